@@ -2,6 +2,7 @@ package pl.lib.api;
 import net.sf.jasperreports.engine.*;
 import net.sf.jasperreports.engine.design.*;
 import net.sf.jasperreports.engine.type.*;
+import pl.lib.automation.compiler.SimpleExpressionCompiler;
 import pl.lib.config.FormattingOptions;
 import pl.lib.config.HighlightRule;
 import pl.lib.config.ReportTheme;
@@ -18,6 +19,16 @@ import net.sf.jasperreports.engine.type.OrientationEnum;
 import net.sf.jasperreports.engine.type.WhenNoDataTypeEnum;
 import net.sf.jasperreports.engine.JRDataSource;
 public class ReportBuilder {
+    public static final String HIGHLIGHT_RULE_FIELD = "HIGHLIGHT_RULE";
+    public static final String PARAM_SHOW_TITLE = "SHOW_TITLE";
+    public static final String PARAM_SHOW_SUMMARY = "SHOW_SUMMARY";
+    public static final String PARAM_ROW_OFFSET = "ROW_OFFSET";
+    public static final String PAGE_NUMBER_KEY = "pageNumber";
+    public static final String PAGE_NUMBER_PREFIX = "Strona ";
+    public static final String SUMMARY_KEY_PREFIX = "summary_";
+    public static final String REPORT_SUM_SUFFIX = "_REPORT_SUM";
+    private static final String ZEBRA_CONDITION = "($V{REPORT_COUNT} + ($P{" + PARAM_ROW_OFFSET + "} == null ? Integer.valueOf(0) : $P{"
+            + PARAM_ROW_OFFSET + "})) % 2 == 0";
     private final List<Column> columns = new ArrayList<>();
     private final List<Style> styles = new ArrayList<>();
     private final JasperDesign jasperDesign;
@@ -28,6 +39,7 @@ public class ReportBuilder {
     private boolean pageFooterEnabled = true;
     private boolean titleEnabled = true;
     private boolean summaryBandEnabled = false;
+    private boolean precomputedHighlights = false;
     private String pageFormat = "A4";
     private ColorSettings colorSettings;
     private int topMargin = 20;
@@ -115,6 +127,17 @@ public class ReportBuilder {
         this.summaryBandEnabled = enabled;
         return this;
     }
+    /**
+     * Reguły wyróżnień są już ocenione w danych: pole {@link #HIGHLIGHT_RULE_FIELD} zawiera indeks reguły
+     * (zob. {@code HighlightRuleEvaluator}), a style warunkowe tylko go porównują.
+     */
+    public ReportBuilder withPrecomputedHighlights(boolean precomputedHighlights) {
+        this.precomputedHighlights = precomputedHighlights;
+        return this;
+    }
+    public List<Column> getColumns() {
+        return java.util.Collections.unmodifiableList(columns);
+    }
     public Map<String, Object> getParameters() {
         return this.parameters;
     }
@@ -137,6 +160,12 @@ public class ReportBuilder {
         return this;
     }
     public JasperReport build() throws JRException {
+        return SimpleExpressionCompiler.compile(buildDesign());
+    }
+    /**
+     * Gotowy projekt bez kompilacji, np. do kompilacji zbiorczej w {@code BatchReportCompiler}.
+     */
+    public JasperDesign buildDesign() throws JRException {
         declareParameters();
         setupPage();
         calculateColumnWidths();
@@ -149,7 +178,7 @@ public class ReportBuilder {
         buildDetailBand();
         buildPageFooterBand();
         buildSummaryBand();
-        return JasperCompileManager.compileReport(this.jasperDesign);
+        return this.jasperDesign;
     }
     private void setupPage() {
         int width;
@@ -233,6 +262,16 @@ public class ReportBuilder {
                 jasperDesign.addField(field);
             }
         }
+        if (usesPrecomputedHighlights() && jasperDesign.getFieldsMap().get(HIGHLIGHT_RULE_FIELD) == null) {
+            JRDesignField field = new JRDesignField();
+            field.setName(HIGHLIGHT_RULE_FIELD);
+            field.setValueClass(Integer.class);
+            jasperDesign.addField(field);
+        }
+    }
+    private boolean usesPrecomputedHighlights() {
+        return precomputedHighlights && formattingOptions != null
+                && formattingOptions.getHighlightRules() != null && !formattingOptions.getHighlightRules().isEmpty();
     }
     private void declareParameters() throws JRException {
         addParameterIfNotExists("ReportTitle", String.class);
@@ -242,7 +281,9 @@ public class ReportBuilder {
         addParameterIfNotExists("CompanyCity", String.class);
         addParameterIfNotExists("FooterLeftText", String.class);
         addParameterIfNotExists("CompanyTaxId", String.class);
-        addParameterIfNotExists("SHOW_SUMMARY", Boolean.class);
+        addParameterIfNotExists(PARAM_SHOW_SUMMARY, Boolean.class);
+        addParameterIfNotExists(PARAM_SHOW_TITLE, Boolean.class);
+        addParameterIfNotExists(PARAM_ROW_OFFSET, Integer.class);
         for (Subreport sub : subreports) {
             addParameterIfNotExists("SUBREPORT_" + sub.getFieldName(), JasperReport.class);
         }
@@ -298,11 +339,15 @@ public class ReportBuilder {
         int availableWidth = jasperDesign.getColumnWidth();
         JRDesignBand titleBand = new JRDesignBand();
         titleBand.setHeight(95);
+        titleBand.setPrintWhenExpression(
+                new JRDesignExpression("$P{" + PARAM_SHOW_TITLE + "} == null ? java.lang.Boolean.TRUE : $P{" + PARAM_SHOW_TITLE + "}")
+        );
         titleBand.addElement(createTextField("$P{CompanyName}", 0, 0, availableWidth / 2, 18, true, 8f));
         titleBand.addElement(createTextField("$P{CompanyAddress}", 0, 18, availableWidth / 2, 15, false, 8f));
         titleBand.addElement(createTextField("$P{CompanyPostalCode} + \" \" + $P{CompanyCity}", 0, 33, availableWidth / 2, 15, false, 8f));
         titleBand.addElement(createTextField("$P{CompanyTaxId} != null ? \"NIP: \" + $P{CompanyTaxId} : \"\"", 0, 48, availableWidth / 2, 15, false, 8f));
-        JRDesignTextField dateField = createTextField("\"Data: \" + new java.text.SimpleDateFormat(\"dd.MM.yyyy\").format(new java.util.Date())", 0, 18, availableWidth, 15, false, 8f);
+        JRDesignTextField dateField = createTextField("new java.util.Date()", 0, 18, availableWidth, 15, false, 8f);
+        dateField.setPattern("'Data: 'dd.MM.yyyy");
         dateField.setHorizontalTextAlign(HorizontalTextAlignEnum.RIGHT);
         titleBand.addElement(dateField);
         JRDesignTextField titleTextField = createTextField("$P{ReportTitle}", 0, 65, availableWidth, 25, true, 10f);
@@ -511,7 +556,8 @@ public class ReportBuilder {
         pageNumberField.setY(12);
         pageNumberField.setWidth(jasperDesign.getColumnWidth());
         pageNumberField.setHeight(20);
-        pageNumberField.setExpression(new JRDesignExpression("\"Strona \" + $V{PAGE_NUMBER}"));
+        pageNumberField.setKey(PAGE_NUMBER_KEY);
+        pageNumberField.setExpression(new JRDesignExpression("\"" + PAGE_NUMBER_PREFIX + "\" + $V{PAGE_NUMBER}"));
         pageNumberField.setHorizontalTextAlign(HorizontalTextAlignEnum.RIGHT);
         pageNumberField.setVerticalTextAlign(VerticalTextAlignEnum.BOTTOM);
         pageNumberField.setFontName(ReportStyles.FONT_DEJAVU_SANS_CONDENSED);
@@ -568,9 +614,10 @@ public class ReportBuilder {
                         (column.getDataType().isNumeric() || column.hasGroupCalculation());
                 if (shouldShowSummary) {
                     String jrFieldName = column.getFieldName().replace('.', '_');
-                    String variableName = jrFieldName + "_REPORT_SUM";
+                    String variableName = jrFieldName + REPORT_SUM_SUFFIX;
                     JRDesignTextField summaryField = createTextField("$V{" + variableName + "}",
                             currentX, summaryY, column.getWidth(), 20, true, 8f);
+                    summaryField.setKey(SUMMARY_KEY_PREFIX + jrFieldName);
                     summaryField.setMode(ModeEnum.TRANSPARENT);
                     summaryField.setFontName(ReportStyles.FONT_DEJAVU_SANS);
                     summaryField.setForecolor(Color.decode("#000000"));
@@ -592,7 +639,7 @@ public class ReportBuilder {
         for (Column column : columns) {
             if (column.getDataType() != null && column.getDataType().isNumeric()) {
                 String jrFieldName = column.getFieldName().replace('.', '_');
-                String variableName = jrFieldName + "_REPORT_SUM";
+                String variableName = jrFieldName + REPORT_SUM_SUFFIX;
                 if (jasperDesign.getVariablesMap().get(variableName) == null) {
                     JRDesignVariable variable = new JRDesignVariable();
                     variable.setName(variableName);
@@ -630,7 +677,9 @@ public class ReportBuilder {
         JRDesignStyle numericDataStyle = (JRDesignStyle) jasperDesign.getStylesMap().get(ReportStyles.NUMERIC_STYLE);
         if (dataStyle == null || formattingOptions == null) return;
         if (formattingOptions.getHighlightRules() != null) {
-            for (HighlightRule rule : formattingOptions.getHighlightRules()) {
+            List<HighlightRule> rules = formattingOptions.getHighlightRules();
+            for (int ruleIndex = 0; ruleIndex < rules.size(); ruleIndex++) {
+                HighlightRule rule = rules.get(ruleIndex);
                 JRDesignConditionalStyle highlightStyleData = new JRDesignConditionalStyle();
                 try {
                     highlightStyleData.setBackcolor(Color.decode(rule.getColor()));
@@ -640,7 +689,9 @@ public class ReportBuilder {
                     highlightStyleData.setBackcolor(Color.YELLOW);
                     highlightStyleData.setMode(ModeEnum.OPAQUE);
                 }
-                String conditionText = buildConditionExpression(rule);
+                String conditionText = precomputedHighlights
+                        ? "Integer.valueOf(" + ruleIndex + ").equals($F{" + HIGHLIGHT_RULE_FIELD + "})"
+                        : buildConditionExpression(rule);
                 if (conditionText != null) {
                     highlightStyleData.setConditionExpression(new JRDesignExpression(conditionText));
                     dataStyle.addConditionalStyle(highlightStyleData);
@@ -662,16 +713,17 @@ public class ReportBuilder {
             }
         }
         if (formattingOptions.isZebraStripes()) {
+            // parzystość liczona od początku całego raportu, także gdy wypełniana jest tylko jego część
             JRDesignConditionalStyle zebraStyleData = new JRDesignConditionalStyle();
             zebraStyleData.setBackcolor(Color.decode("#F7F7F7"));
             zebraStyleData.setMode(ModeEnum.OPAQUE);
-            zebraStyleData.setConditionExpression(new JRDesignExpression("$V{REPORT_COUNT} % 2 == 0"));
+            zebraStyleData.setConditionExpression(new JRDesignExpression(ZEBRA_CONDITION));
             dataStyle.addConditionalStyle(zebraStyleData);
             if (numericDataStyle != null) {
                 JRDesignConditionalStyle zebraStyleNumeric = new JRDesignConditionalStyle();
                 zebraStyleNumeric.setBackcolor(Color.decode("#F7F7F7"));
                 zebraStyleNumeric.setMode(ModeEnum.OPAQUE);
-                zebraStyleNumeric.setConditionExpression(new JRDesignExpression("$V{REPORT_COUNT} % 2 == 0"));
+                zebraStyleNumeric.setConditionExpression(new JRDesignExpression(ZEBRA_CONDITION));
                 numericDataStyle.addConditionalStyle(zebraStyleNumeric);
             }
         }
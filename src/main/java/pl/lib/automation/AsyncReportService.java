@@ -0,0 +1,230 @@
+package pl.lib.automation;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperExportManager;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.fill.AsynchronousFillHandle;
+import net.sf.jasperreports.engine.fill.AsynchronousFilllListener;
+import net.sf.jasperreports.engine.fill.FillListener;
+import pl.lib.automation.pipeline.CompiledDocument;
+import pl.lib.automation.scheduler.JobPriority;
+import pl.lib.automation.scheduler.ReportScheduler;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Asynchroniczne generowanie raportu zbiorczego.
+ * Analiza, kompilacja i eksport działają na podanym wykonawcy (albo na etapach {@link ReportScheduler}), a wypełnianie na uchwycie {@link AsynchronousFillHandle},
+ * który jest przerywany po anulowaniu przyszłości, przekroczeniu terminu albo limitu stron.
+ */
+public class AsyncReportService {
+
+    private final JsonReportGenerator generator;
+    private Executor executor = ForkJoinPool.commonPool();
+    private Duration deadline;
+    private int maxPages;
+    private ReportScheduler scheduler;
+
+    public AsyncReportService() {
+        this(new JsonReportGenerator());
+    }
+
+    public AsyncReportService(JsonReportGenerator generator) {
+        this.generator = generator;
+    }
+
+    public AsyncReportService withExecutor(Executor executor) {
+        this.executor = executor != null ? executor : ForkJoinPool.commonPool();
+        return this;
+    }
+
+    /**
+     * Kompilacja, wypełnianie i eksport na osobnych etapach harmonogramu zamiast na wspólnym wykonawcy.
+     */
+    public AsyncReportService withScheduler(ReportScheduler scheduler) {
+        this.scheduler = scheduler;
+        return this;
+    }
+
+    /**
+     * Maksymalny czas całego zadania; po jego upływie przyszłość kończy się {@link java.util.concurrent.TimeoutException}.
+     */
+    public AsyncReportService withDeadline(Duration deadline) {
+        this.deadline = deadline;
+        return this;
+    }
+
+    /**
+     * Limit stron wypełnianego raportu; 0 wyłącza limit.
+     */
+    public AsyncReportService withMaxPages(int maxPages) {
+        this.maxPages = Math.max(0, maxPages);
+        return this;
+    }
+
+    public CompletableFuture<ReportResult> generateReport(String jsonContent, String reportTitle, String city, boolean includeTitlePage) {
+        return generateReport(jsonContent, reportTitle, city, includeTitlePage, JobPriority.INTERACTIVE);
+    }
+
+    public CompletableFuture<ReportResult> generateReport(String jsonContent, String reportTitle, String city,
+                                                          boolean includeTitlePage, JobPriority priority) {
+        long start = System.nanoTime();
+        FillControl control = new FillControl();
+        CompletableFuture<ReportResult> result = compileStage(priority, () -> compile(jsonContent, includeTitlePage))
+                .thenCompose(document -> fillStage(priority, () -> fill(document, reportTitle, city, control)))
+                .thenApply(print -> new ReportResult(print, null, Duration.ofNanos(System.nanoTime() - start)));
+        return guard(result, control);
+    }
+
+    public CompletableFuture<ReportResult> generatePdf(String jsonContent, String reportTitle, String city, boolean includeTitlePage) {
+        return generatePdf(jsonContent, reportTitle, city, includeTitlePage, JobPriority.INTERACTIVE);
+    }
+
+    public CompletableFuture<ReportResult> generatePdf(String jsonContent, String reportTitle, String city,
+                                                       boolean includeTitlePage, JobPriority priority) {
+        long start = System.nanoTime();
+        FillControl control = new FillControl();
+        CompletableFuture<ReportResult> result = compileStage(priority, () -> compile(jsonContent, includeTitlePage))
+                .thenCompose(document -> fillStage(priority, () -> fill(document, reportTitle, city, control)))
+                .thenCompose(print -> exportStage(priority, () -> new ReportResult(print, exportPdf(print),
+                        Duration.ofNanos(System.nanoTime() - start))));
+        return guard(result, control);
+    }
+
+    private <T> CompletableFuture<T> compileStage(JobPriority priority, Supplier<T> task) {
+        return scheduler != null ? scheduler.getCompileStage().submit(priority, task) : CompletableFuture.supplyAsync(task, executor);
+    }
+
+    private <T> CompletableFuture<T> fillStage(JobPriority priority, Supplier<CompletableFuture<T>> task) {
+        return scheduler != null ? scheduler.getFillStage().submitAsync(priority, task) : task.get();
+    }
+
+    private <T> CompletableFuture<T> exportStage(JobPriority priority, Supplier<T> task) {
+        return scheduler != null ? scheduler.getExportStage().submit(priority, task) : CompletableFuture.supplyAsync(task, executor);
+    }
+
+    private CompletableFuture<ReportResult> guard(CompletableFuture<ReportResult> result, FillControl control) {
+        if (deadline != null) {
+            result.orTimeout(deadline.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        // anulowanie, termin albo błąd przerywa trwające wypełnianie
+        result.whenComplete((r, e) -> {
+            if (e != null) {
+                control.cancel();
+            }
+        });
+        return result;
+    }
+
+    private CompiledDocument compile(String jsonContent, boolean includeTitlePage) {
+        try {
+            return generator.compile(generator.analyze(jsonContent), includeTitlePage);
+        } catch (JRException | IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private CompletableFuture<JasperPrint> fill(CompiledDocument document, String reportTitle, String city, FillControl control) {
+        CompletableFuture<JasperPrint> filled = new CompletableFuture<>();
+        AsynchronousFillHandle handle;
+        try {
+            handle = generator.createFillHandle(document, reportTitle, city);
+        } catch (JRException e) {
+            filled.completeExceptionally(e);
+            return filled;
+        }
+
+        handle.addListener(new AsynchronousFilllListener() {
+            @Override
+            public void reportFinished(JasperPrint jasperPrint) {
+                jasperPrint.setName(reportTitle);
+                filled.complete(jasperPrint);
+            }
+
+            @Override
+            public void reportCancelled() {
+                filled.completeExceptionally(control.pageLimitExceeded.get()
+                        ? new JRException("Report exceeded the page limit of " + maxPages)
+                        : new CancellationException("Report fill cancelled"));
+            }
+
+            @Override
+            public void reportFillError(Throwable t) {
+                filled.completeExceptionally(t);
+            }
+        });
+
+        if (maxPages > 0) {
+            int limit = maxPages;
+            handle.addFillListener(new FillListener() {
+                @Override
+                public void pageGenerated(JasperPrint jasperPrint, int pageIndex) {
+                    if (pageIndex >= limit && control.pageLimitExceeded.compareAndSet(false, true)) {
+                        // przerwanie z innego wątku, wątek wypełniania nie może czekać sam na siebie
+                        CompletableFuture.runAsync(control::cancel, executor);
+                    }
+                }
+
+                @Override
+                public void pageUpdated(JasperPrint jasperPrint, int pageIndex) {
+                }
+            });
+        }
+
+        if (control.attach(handle)) {
+            handle.startFill();
+        } else {
+            filled.completeExceptionally(new CancellationException("Report fill cancelled"));
+        }
+        return filled;
+    }
+
+    private byte[] exportPdf(JasperPrint print) {
+        try {
+            return JasperExportManager.exportReportToPdf(print);
+        } catch (JRException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private static final class FillControl {
+        private final AtomicBoolean pageLimitExceeded = new AtomicBoolean();
+        private AsynchronousFillHandle handle;
+        private boolean cancelled;
+
+        synchronized boolean attach(AsynchronousFillHandle handle) {
+            if (cancelled) {
+                return false;
+            }
+            this.handle = handle;
+            return true;
+        }
+
+        void cancel() {
+            AsynchronousFillHandle running;
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                cancelled = true;
+                running = handle;
+            }
+            if (running != null) {
+                try {
+                    running.cancellFill();
+                } catch (JRException e) {
+                    // wypełnianie już zakończone
+                }
+            }
+        }
+    }
+}
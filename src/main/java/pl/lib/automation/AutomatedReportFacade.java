@@ -11,6 +11,11 @@ import net.sf.jasperreports.export.SimpleExporterInput;
 import net.sf.jasperreports.export.SimpleOutputStreamExporterOutput;
 import net.sf.jasperreports.export.SimplePdfExporterConfiguration;
 import pl.lib.api.ReportBuilder;
+import pl.lib.automation.analyzer.JsonStructureAnalyzer;
+import pl.lib.automation.compiler.SimpleExpressionCompiler;
+import pl.lib.automation.page.TocPageResolver;
+import pl.lib.automation.pipeline.CompiledDocument;
+import pl.lib.automation.pipeline.DocumentAnalysis;
 import pl.lib.config.ReportConfig;
 import pl.lib.config.ReportTheme;
 import pl.lib.model.CompanyInfo;
@@ -19,9 +24,16 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 public class AutomatedReportFacade {
     private final JsonReportGenerator jsonReportGenerator;
+    private final TocPageResolver tocPageResolver = new TocPageResolver();
+    private Executor executor = ForkJoinPool.commonPool();
+    private volatile JasperReport tocReport;
 
     public AutomatedReportFacade() {
         this.jsonReportGenerator = new JsonReportGenerator();
@@ -31,28 +43,53 @@ public class AutomatedReportFacade {
         this.jsonReportGenerator = new JsonReportGenerator().withJrxmlPrinting(printJrxml);
     }
 
+    /**
+     * Wykonawca, na którym strona tytułowa jest wypełniana równolegle z treścią.
+     */
+    public AutomatedReportFacade withExecutor(Executor executor) {
+        this.executor = executor != null ? executor : ForkJoinPool.commonPool();
+        return this;
+    }
+
+    /**
+     * Analizator JSON używany przez generator raportu; null przywraca domyślny.
+     */
+    public AutomatedReportFacade withStructureAnalyzer(JsonStructureAnalyzer analyzer) {
+        jsonReportGenerator.withStructureAnalyzer(analyzer);
+        return this;
+    }
+
     public byte[] generateCompositeReport(String jsonContent, ReportConfig config) throws JRException, IOException {
-        List<Map<String, Object>> tocEntries = jsonReportGenerator.extractTocStructure(jsonContent);
-        JasperPrint titlePagePrint = createTitlePage(config.getTitle(), config.getCompanyInfo(), config);
+        return generateCompositeReport(jsonReportGenerator.analyze(jsonContent), config);
+    }
+
+    /**
+     * Generuje raport zbiorczy z gotowej analizy dokumentu; spis treści i treść korzystają z tej samej analizy.
+     */
+    public byte[] generateCompositeReport(DocumentAnalysis analysis, ReportConfig config) throws JRException {
+        return exportPdf(createCompositePrints(analysis, config), true);
+    }
+
+    /**
+     * Strona tytułowa, spis treści i treść raportu zbiorczego.
+     * Numery w spisie treści są numerami stron treści, takimi jak w jej stopce ("Strona N").
+     */
+    List<JasperPrint> createCompositePrints(DocumentAnalysis analysis, ReportConfig config) throws JRException {
+        List<Map<String, Object>> tocEntries = analysis.getTocEntries();
+        CompletableFuture<JasperPrint> titlePage = supplyAsync(() -> createTitlePage(config.getTitle(), config.getCompanyInfo(), config));
 
         String cityName = config.getCompanyInfo() != null ? config.getCompanyInfo().getName() : "Organizacja";
-        JasperPrint mainContentPrint = jsonReportGenerator.generateReport(jsonContent, config.getTitle(), cityName, false);
+        CompiledDocument compiledDocument = jsonReportGenerator.compile(analysis, false);
+        JasperPrint mainContentPrint = jsonReportGenerator.fill(compiledDocument, config.getTitle(), cityName);
+        JasperPrint titlePagePrint = await(titlePage);
         List<JasperPrint> printList = new ArrayList<>();
         printList.add(titlePagePrint);
-        if (tocEntries != null && !tocEntries.isEmpty()) {
-            JasperPrint tocPagePrint = createTocPageFromData(tocEntries, config);
-            printList.add(tocPagePrint);
+        if (!tocEntries.isEmpty()) {
+            tocPageResolver.resolve(tocEntries, tocPageResolver.collectAnchorPages(mainContentPrint), 0);
+            printList.add(createTocPageFromData(tocEntries, config));
         }
         printList.add(mainContentPrint);
-        ByteArrayOutputStream pdfOutputStream = new ByteArrayOutputStream();
-        JRPdfExporter exporter = new JRPdfExporter();
-        exporter.setExporterInput(SimpleExporterInput.getInstance(printList));
-        exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(pdfOutputStream));
-        SimplePdfExporterConfiguration configuration = new SimplePdfExporterConfiguration();
-        configuration.setCreatingBatchModeBookmarks(Boolean.TRUE);
-        exporter.setConfiguration(configuration);
-        exporter.exportReport();
-        return pdfOutputStream.toByteArray();
+        return printList;
     }
 
     /**
@@ -60,26 +97,29 @@ public class AutomatedReportFacade {
      * Używa JsonReportGenerator.generateTableReportFromJson() dla zawartości tabeli.
      */
     public byte[] generateTableReportWithTitlePage(String jsonContent, ReportConfig config) throws JRException, IOException {
-        // Utwórz stronę tytułową
-        JasperPrint titlePagePrint = createTitlePage(config.getTitle(), config.getCompanyInfo(), config);
+        // Utwórz stronę tytułową równolegle z tabelą
+        CompletableFuture<JasperPrint> titlePage = supplyAsync(() -> createTitlePage(config.getTitle(), config.getCompanyInfo(), config));
 
         // Wygeneruj raport z tabelą danych
         JasperPrint tableReportPrint = jsonReportGenerator.generateTableReportFromJson(jsonContent, config);
 
         // Połącz strony w jednym PDF
         List<JasperPrint> printList = new ArrayList<>();
-        printList.add(titlePagePrint);
+        printList.add(await(titlePage));
         printList.add(tableReportPrint);
 
+        return exportPdf(printList, false);
+    }
+
+    private byte[] exportPdf(List<JasperPrint> printList, boolean batchModeBookmarks) throws JRException {
         ByteArrayOutputStream pdfOutputStream = new ByteArrayOutputStream();
         JRPdfExporter exporter = new JRPdfExporter();
         exporter.setExporterInput(SimpleExporterInput.getInstance(printList));
         exporter.setExporterOutput(new SimpleOutputStreamExporterOutput(pdfOutputStream));
         SimplePdfExporterConfiguration configuration = new SimplePdfExporterConfiguration();
-        configuration.setCreatingBatchModeBookmarks(Boolean.FALSE);
+        configuration.setCreatingBatchModeBookmarks(batchModeBookmarks);
         exporter.setConfiguration(configuration);
         exporter.exportReport();
-
         return pdfOutputStream.toByteArray();
     }
 
@@ -105,12 +145,7 @@ public class AutomatedReportFacade {
     }
 
     private JasperPrint createTocPageFromData(List<Map<String, Object>> tocEntries, ReportConfig config) throws JRException {
-        InputStream tocTemplateStream = getClass().getClassLoader().getResourceAsStream("templates/toc_template.jrxml");
-        if (tocTemplateStream == null) {
-            throw new JRException("Nie znaleziono szablonu toc_template.jrxml");
-        }
-        JasperDesign design = JRXmlLoader.load(tocTemplateStream);
-        JasperReport report = JasperCompileManager.compileReport(design);
+        JasperReport report = getTocReport();
         Map<String, Object> parameters = new HashMap<>();
         parameters.put("PAGE_FORMAT", config.getPageFormat());
         parameters.put("ORIENTATION", config.getOrientation());
@@ -118,6 +153,56 @@ public class AutomatedReportFacade {
         return JasperFillManager.fillReport(report, parameters, dataSource);
     }
 
+    /**
+     * Szablon spisu treści jest stały, więc kompilowany raz.
+     */
+    private JasperReport getTocReport() throws JRException {
+        JasperReport report = tocReport;
+        if (report == null) {
+            synchronized (this) {
+                report = tocReport;
+                if (report == null) {
+                    InputStream tocTemplateStream = getClass().getClassLoader().getResourceAsStream("templates/toc_template.jrxml");
+                    if (tocTemplateStream == null) {
+                        throw new JRException("Nie znaleziono szablonu toc_template.jrxml");
+                    }
+                    report = SimpleExpressionCompiler.compile(JRXmlLoader.load(tocTemplateStream));
+                    tocReport = report;
+                }
+            }
+        }
+        return report;
+    }
+
+    private <T> CompletableFuture<T> supplyAsync(FillTask<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return task.call();
+            } catch (JRException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws JRException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof JRException) {
+                throw (JRException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new JRException(cause);
+        }
+    }
+
+    private interface FillTask<T> {
+        T call() throws JRException;
+    }
+
     private JRDesignStaticText createStaticText(String text, int x, int y, int w, int h, float fontSize, boolean isBold, HorizontalTextAlignEnum align) {
         JRDesignStaticText staticText = new JRDesignStaticText();
         staticText.setX(x);
@@ -3,12 +3,25 @@ package pl.lib.automation;
 import net.sf.jasperreports.engine.JRException;
 import net.sf.jasperreports.engine.JasperExportManager;
 import net.sf.jasperreports.engine.JasperPrint;
+import pl.lib.automation.export.ExportTarget;
+import pl.lib.automation.export.MultiFormatExporter;
+import pl.lib.automation.export.TabularExporter;
+import pl.lib.automation.export.TabularFormat;
 import pl.lib.config.ReportConfig;
 
 import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
 
 public class AutomatedReportService {
     private final JsonReportGenerator generator = new JsonReportGenerator();
+    private final TabularExporter tabularExporter = new TabularExporter();
+    private final MultiFormatExporter multiFormatExporter = new MultiFormatExporter();
 
     public void generatePdfReportFromJson(String jsonContent, ReportConfig config, String outputPath)
             throws JRException, IOException {
@@ -23,6 +36,37 @@ public class AutomatedReportService {
         JasperExportManager.exportReportToPdfFile(jasperPrint, outputPath);
     }
 
+    /**
+     * Wypełnia raport raz i eksportuje go równolegle do wszystkich podanych formatów.
+     */
+    public JasperPrint generateReportsFromJson(String jsonContent, ReportConfig config, Collection<ExportTarget> targets)
+            throws JRException, IOException {
+        JasperPrint jasperPrint = generator.generateTableReportFromJson(jsonContent, config);
+        multiFormatExporter.exportAll(jasperPrint, targets);
+        return jasperPrint;
+    }
+
+    /**
+     * Eksport danych tabeli do CSV/TSV bez układu stron i wypełniania raportu.
+     */
+    public void generateTabularReportFromJson(String jsonContent, ReportConfig config, TabularFormat format, String outputPath)
+            throws IOException {
+        try (Writer writer = Files.newBufferedWriter(Path.of(outputPath), StandardCharsets.UTF_8)) {
+            tabularExporter.export(new StringReader(jsonContent), config, format, writer);
+        }
+    }
+
+    /**
+     * Strumieniowy eksport pliku JSON do CSV/TSV; pamięć nie zależy od liczby wierszy.
+     */
+    public long generateTabularReportFromFile(Path jsonFile, ReportConfig config, TabularFormat format, Path outputPath)
+            throws IOException {
+        try (Reader reader = Files.newBufferedReader(jsonFile, StandardCharsets.UTF_8);
+             Writer writer = Files.newBufferedWriter(outputPath, StandardCharsets.UTF_8)) {
+            return tabularExporter.export(reader, config, format, writer);
+        }
+    }
+
     public JasperPrint generateReportFromJson(String jsonContent, ReportConfig config)
             throws JRException, IOException {
         return generator.generateTableReportFromJson(jsonContent, config);
@@ -5,17 +5,34 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import net.sf.jasperreports.engine.*;
 import net.sf.jasperreports.engine.data.JRMapCollectionDataSource;
 import net.sf.jasperreports.engine.design.*;
+import net.sf.jasperreports.engine.fill.AsynchronousFillHandle;
 import net.sf.jasperreports.engine.type.*;
+import net.sf.jasperreports.engine.xml.JRXmlLoader;
 import net.sf.jasperreports.engine.xml.JRXmlWriter;
 import pl.lib.api.ReportBuilder;
 import pl.lib.automation.analyzer.JsonStructureAnalyzer;
 import pl.lib.automation.analyzer.ReportElement;
 import pl.lib.automation.assembler.ReportAssembler;
+import pl.lib.automation.compiler.BatchReportCompiler;
 import pl.lib.automation.compiler.BudgetTableCompiler;
+import pl.lib.automation.compiler.ChartCompiler;
+import pl.lib.automation.compiler.ChartImageCache;
+import pl.lib.automation.compiler.ChartTemplateCache;
 import pl.lib.automation.compiler.SubreportCompiler;
+import pl.lib.automation.converter.ChildRowStore;
+import pl.lib.automation.converter.ColumnarDataSource;
+import pl.lib.automation.converter.ColumnarRowBuffer;
 import pl.lib.automation.converter.DataSourceConverter;
+import pl.lib.automation.converter.JsonColumnarReader;
+import pl.lib.automation.converter.HighlightRuleEvaluator;
+import pl.lib.automation.fill.PartitionedReportFiller;
+import pl.lib.automation.fill.SectionReportFiller;
 import pl.lib.automation.page.TitlePageGenerator;
+import pl.lib.automation.pipeline.CompiledDocument;
+import pl.lib.automation.pipeline.DocumentAnalysis;
+import pl.lib.automation.util.SeparatorFormatFactory;
 import pl.lib.config.BudgetTableConfig;
+import pl.lib.config.ChartConfig;
 import pl.lib.config.ColumnDefinition;
 import pl.lib.config.GroupDefinition;
 import pl.lib.config.ReportConfig;
@@ -23,47 +40,117 @@ import pl.lib.config.ReportTheme;
 import pl.lib.model.*;
 
 import java.awt.Color;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.Executor;
 
 public class JsonReportGenerator {
     private final ObjectMapper objectMapper = new ObjectMapper();
-    private final JsonStructureAnalyzer structureAnalyzer = new JsonStructureAnalyzer();
+    private JsonStructureAnalyzer structureAnalyzer = new JsonStructureAnalyzer();
     private final SubreportCompiler subreportCompiler = new SubreportCompiler();
     private final BudgetTableCompiler budgetTableCompiler = new BudgetTableCompiler();
+    private BatchReportCompiler batchReportCompiler = new BatchReportCompiler();
+    private PartitionedReportFiller partitionedFiller;
+    private SectionReportFiller sectionFiller;
+    private ColumnarRowBuffer.Factory columnarRows;
+    private final JsonColumnarReader jsonColumnarReader = new JsonColumnarReader();
+    private final ChartCompiler chartCompiler = new ChartCompiler();
+    private final ChartTemplateCache chartTemplateCache = ChartTemplateCache.shared();
+    private ChartImageCache chartImageCache;
     private final DataSourceConverter dataSourceConverter = new DataSourceConverter();
     private final ReportAssembler reportAssembler = new ReportAssembler();
     private final TitlePageGenerator titlePageGenerator = new TitlePageGenerator();
     private final Map<String, Object> reportParameters = new HashMap<>();
     private boolean printJrxmlToConsole = false;
+    private BudgetTableConfig budgetTableConfig = BudgetTableConfig.defaultConfig();
     private JasperDesign lastGeneratedDesign;
+    private boolean lastDesignShared;
 
     public JsonReportGenerator withJrxmlPrinting(boolean print) {
         this.printJrxmlToConsole = print;
         return this;
     }
 
-    public JasperDesign getLastGeneratedDesign() {
+    /**
+     * Wykonawca dla projektów, które wymagają pełnego kompilatora przy kompilacji zbiorczej.
+     */
+    public JsonReportGenerator withCompileExecutor(Executor executor) {
+        this.batchReportCompiler = executor != null ? new BatchReportCompiler(executor) : new BatchReportCompiler();
+        return this;
+    }
+
+    /**
+     * Raporty tabelaryczne z tablicy JSON wypełniane równolegle częściami; null wyłącza podział.
+     * Raporty z zakładkami są zawsze wypełniane w całości.
+     */
+    public JsonReportGenerator withPartitionedFill(PartitionedReportFiller filler) {
+        this.partitionedFiller = filler;
+        return this;
+    }
+
+    /**
+     * Dokumenty zbiorcze wypełniane równolegle sekcjami (nagłówkami najwyższego poziomu); null wyłącza podział.
+     */
+    public JsonReportGenerator withSectionFill(SectionReportFiller filler) {
+        this.sectionFiller = filler;
+        return this;
+    }
+
+    /**
+     * Wiersze raportów tabelarycznych trzymane poza stertą w buforze kolumnowym, np. {@code ColumnarRowBuffer::direct};
+     * null przywraca wiersze jako mapy na stercie.
+     */
+    public JsonReportGenerator withColumnarRows(ColumnarRowBuffer.Factory factory) {
+        this.columnarRows = factory;
+        return this;
+    }
+
+    /**
+     * Analizator dzielący JSON na elementy raportu, np. z własnym progiem sumowania równoległego
+     * ({@link pl.lib.automation.analyzer.BudgetStructureAnalyzer#withParallelAggregation(int)})
+     * lub długością fragmentów wartości ({@link JsonStructureAnalyzer#setMaxValueChunkLength(int)}).
+     * Wartość null przywraca analizator domyślny.
+     */
+    public JsonReportGenerator withStructureAnalyzer(JsonStructureAnalyzer analyzer) {
+        this.structureAnalyzer = analyzer != null ? analyzer : new JsonStructureAnalyzer();
+        return this;
+    }
+
+    public JsonReportGenerator withBudgetTableConfig(BudgetTableConfig config) {
+        this.budgetTableConfig = config != null ? config : BudgetTableConfig.defaultConfig();
+        return this;
+    }
+
+    /**
+     * Renderuje wykresy do obrazów przed wypełnianiem i trzyma je w podanej pamięci podręcznej.
+     * Wartość null przywraca wykresy rysowane podczas wypełniania raportu.
+     */
+    public JsonReportGenerator withChartImageCache(ChartImageCache cache) {
+        this.chartImageCache = cache;
+        return this;
+    }
+
+    /**
+     * Projekt ostatnio wypełnionego raportu. Szablon dokumentu zbiorczego jest współdzielony przez wszystkie generatory,
+     * więc zwracana jest jego kopia, tworzona przy pierwszym wywołaniu po wypełnieniu.
+     */
+    public JasperDesign getLastGeneratedDesign() throws JRException {
+        if (lastDesignShared) {
+            String jrxml = JRXmlWriter.writeReport(lastGeneratedDesign, "UTF-8");
+            lastGeneratedDesign = JRXmlLoader.load(new ByteArrayInputStream(jrxml.getBytes(StandardCharsets.UTF_8)));
+            lastDesignShared = false;
+        }
         return this.lastGeneratedDesign;
     }
 
     public List<Map<String, Object>> extractTocStructure(String jsonContent) throws IOException {
-        JsonNode rootNode = objectMapper.readTree(jsonContent);
-        List<ReportElement> reportElements = structureAnalyzer.flattenJson(rootNode);
-        List<Map<String, Object>> tocEntries = new ArrayList<>();
-        for (ReportElement element : reportElements) {
-            if ("HEADER".equals(element.getType())) {
-                Map<String, Object> entry = new HashMap<>();
-                entry.put("label", element.getText());
-                entry.put("level", element.getLevel());
-                entry.put("pageIndex", "...");
-                tocEntries.add(entry);
-            }
-        }
-        return tocEntries;
+        return analyze(jsonContent).getTocEntries();
     }
 
     public JasperPrint generateReport(String jsonContent, String reportTitle) throws JRException, IOException {
@@ -75,106 +162,138 @@ public class JsonReportGenerator {
     }
 
     public JasperPrint generateReport(String jsonContent, String reportTitle, String city, boolean includeTitlePage) throws JRException, IOException {
-        JsonNode rootNode = objectMapper.readTree(jsonContent);
-        List<ReportElement> reportElements = structureAnalyzer.flattenJson(rootNode);
-        ReportBuilder builder = new ReportBuilder(reportTitle)
-                .withTheme(ReportTheme.DEFAULT)
-                .withPageFormat("A4")
-                .withHorizontalLayout(false)
-                .withMargins(20, 20, 20, 20)
-                .withTitleBand(false)
-                .withSummaryBand(false);
-        JasperDesign design = builder.getDesign();
-        design.setProperty("net.sf.jasperreports.create.bookmarks", "true");
-        if (includeTitlePage) {
-            titlePageGenerator.addTitlePage(design, reportTitle, city);
-        }
-        Map<Integer, JasperReport> compiledTables = new HashMap<>();
-        Map<Integer, JRDataSource> tableDataSources = new HashMap<>();
-        for (int i = 0; i < reportElements.size(); i++) {
-            ReportElement element = reportElements.get(i);
-            if ("TABLE".equals(element.getType()) && element.getRawTableData() != null) {
-                JasperReport tableReport = subreportCompiler.compileTableSubreport(element.getRawTableData(), design.getColumnWidth());
-                JRDataSource tableData = dataSourceConverter.createTableDataSource(element.getRawTableData());
-                String subreportParamName = "TABLE_REPORT_" + i;
-                String dataSourceParamName = "TABLE_DATA_" + i;
-                compiledTables.put(i, tableReport);
-                tableDataSources.put(i, tableData);
-                reportParameters.put(subreportParamName, tableReport);
-                reportParameters.put(dataSourceParamName, tableData);
-                JRDesignParameter p1 = new JRDesignParameter();
-                p1.setName(subreportParamName);
-                p1.setValueClass(JasperReport.class);
-                design.addParameter(p1);
-                JRDesignParameter p2 = new JRDesignParameter();
-                p2.setName(dataSourceParamName);
-                p2.setValueClass(JRDataSource.class);
-                design.addParameter(p2);
-            } else if ("BUDGET_TABLE".equals(element.getType()) && element.getBudgetTree() != null) {
-                BudgetTableConfig budgetConfig = BudgetTableConfig.defaultConfig();
-                JasperReport budgetReport = budgetTableCompiler.compileBudgetTable(element.getBudgetTree(), budgetConfig, design.getColumnWidth());
-
-                List<Map<String, Object>> budgetData = convertBudgetTreeToMapList(element.getBudgetTree(), budgetConfig);
-                JRDataSource budgetDataSource = new JRMapCollectionDataSource((Collection<Map<String, ?>>) (Collection<?>) budgetData);
-
-                String subreportParamName = "BUDGET_REPORT_" + i;
-                String dataSourceParamName = "BUDGET_DATA_" + i;
-
-                reportParameters.put(subreportParamName, budgetReport);
-                reportParameters.put(dataSourceParamName, budgetDataSource);
+        return fill(compile(analyze(jsonContent), includeTitlePage), reportTitle, city);
+    }
 
-                JRDesignParameter p1 = new JRDesignParameter();
-                p1.setName(subreportParamName);
-                p1.setValueClass(JasperReport.class);
-                design.addParameter(p1);
+    public JsonNode parse(String jsonContent) throws IOException {
+        return objectMapper.readTree(jsonContent);
+    }
 
-                JRDesignParameter p2 = new JRDesignParameter();
-                p2.setName(dataSourceParamName);
-                p2.setValueClass(JRDataSource.class);
-                design.addParameter(p2);
-            } else if ("CHART".equals(element.getType()) && element.getChartConfig() != null && element.getRawTableData() != null) {
-                // Kompiluj wykres jako subreport
-                JasperReport chartReport = compileChartSubreport(element.getChartConfig(), element.getRawTableData(), design.getColumnWidth());
-                JRDataSource chartData = dataSourceConverter.createChartDataSource(element.getRawTableData());
+    public DocumentAnalysis analyze(String jsonContent) throws IOException {
+        return analyze(parse(jsonContent));
+    }
 
-                String subreportParamName = "CHART_REPORT_" + i;
-                String dataSourceParamName = "CHART_DATA_" + i;
+    public DocumentAnalysis analyze(JsonNode rootNode) {
+        return new DocumentAnalysis(rootNode, structureAnalyzer.flattenJson(rootNode));
+    }
 
-                reportParameters.put(subreportParamName, chartReport);
-                reportParameters.put(dataSourceParamName, chartData);
+    /**
+     * Kompiluje podraporty tabel, budżetów i wykresów; wynik można wypełniać wielokrotnie.
+     */
+    public CompiledDocument compile(DocumentAnalysis analysis, boolean includeTitlePage) throws JRException {
+        int columnWidth = reportAssembler.getCompositeDesign(includeTitlePage).getColumnWidth();
+        List<ReportElement> reportElements = analysis.getElements();
 
-                JRDesignParameter p1 = new JRDesignParameter();
-                p1.setName(subreportParamName);
-                p1.setValueClass(JasperReport.class);
-                design.addParameter(p1);
+        // Projekty tabel zbierane najpierw i kompilowane jednym wywołaniem; tabele budżetowe mają wspólny projekt
+        Map<Integer, JasperDesign> designs = new LinkedHashMap<>();
+        JasperDesign budgetDesign = null;
+        for (int i = 0; i < reportElements.size(); i++) {
+            ReportElement element = reportElements.get(i);
+            if ("TABLE".equals(element.getType()) && element.getRawTableData() != null) {
+                designs.put(i, subreportCompiler.createTableSubreportDesign(element.getRawTableData(), columnWidth));
+            } else if ("BUDGET_TABLE".equals(element.getType()) && element.getBudgetTree() != null) {
+                if (budgetDesign == null) {
+                    budgetDesign = budgetTableCompiler.createDesign(budgetTableConfig, columnWidth);
+                }
+                designs.put(i, budgetDesign);
+            }
+        }
+        Map<Integer, JasperReport> compiledTables = batchReportCompiler.compileAll(designs);
 
-                JRDesignParameter p2 = new JRDesignParameter();
-                p2.setName(dataSourceParamName);
-                p2.setValueClass(JRDataSource.class);
-                design.addParameter(p2);
+        List<CompiledDocument.CompiledSubreport> subreports = new ArrayList<>();
+        for (int i = 0; i < reportElements.size(); i++) {
+            ReportElement element = reportElements.get(i);
+            if ("TABLE".equals(element.getType()) && element.getRawTableData() != null) {
+                subreports.add(new CompiledDocument.CompiledSubreport(i, compiledTables.get(i),
+                        () -> dataSourceConverter.createTableDataSource(element.getRawTableData()), null));
+            } else if ("BUDGET_TABLE".equals(element.getType()) && element.getBudgetTree() != null) {
+                BudgetTableConfig config = budgetTableConfig;
+                Map<String, Object> budgetParams = new HashMap<>();
+                budgetParams.put(JRParameter.REPORT_FORMAT_FACTORY, SeparatorFormatFactory.forBudget(config));
+                subreports.add(new CompiledDocument.CompiledSubreport(i, compiledTables.get(i),
+                        () -> dataSourceConverter.createBudgetDataSource(element.getBudgetTree(), config), budgetParams));
+            } else if ("CHART".equals(element.getType()) && element.getChartConfig() != null && element.getRawTableData() != null) {
+                ChartConfig chartConfig = element.getChartConfig();
+                if (chartImageCache != null) {
+                    // Wykres wyrenderowany wcześniej do obrazu, z pamięci podręcznej gdy dane się nie zmieniły
+                    int chartHeight = ChartTemplateCache.chartHeight(chartConfig);
+                    JasperReport chartReport = chartTemplateCache.getImageTemplate(columnWidth, chartHeight);
+                    Map<String, Object> chartParams = new HashMap<>();
+                    chartParams.put(ChartTemplateCache.PARAM_IMAGE, chartImageCache.getImage(chartConfig,
+                            dataSourceConverter.createChartSeries(element.getRawTableData(), chartConfig, columnWidth),
+                            columnWidth, chartHeight));
+                    subreports.add(new CompiledDocument.CompiledSubreport(i, chartReport,
+                            () -> new JREmptyDataSource(1), chartParams));
+                } else {
+                    // Współdzielony szablon wykresu, tytuł i etykiety idą parametrami
+                    JasperReport chartReport = chartTemplateCache.getTemplate(chartConfig, columnWidth);
+                    subreports.add(new CompiledDocument.CompiledSubreport(i, chartReport,
+                            () -> dataSourceConverter.createChartDataSource(element.getRawTableData(), chartConfig, columnWidth),
+                            chartCompiler.createTemplateParameters(chartConfig)));
+                }
             }
         }
 
-        String footerText = city + " | Wygenerowano: " + java.time.LocalDate.now();
-        reportParameters.put("FooterLeftText", footerText);
+        return new CompiledDocument(analysis, includeTitlePage, reportAssembler.getCompositeReport(includeTitlePage), subreports);
+    }
 
-        JRDesignBand pageFooter = (JRDesignBand) design.getPageFooter();
-        if (pageFooter != null && includeTitlePage) {
-            JRDesignExpression printWhenExpression = new JRDesignExpression();
-            printWhenExpression.setText("$V{PAGE_NUMBER} > 1");
-            pageFooter.setPrintWhenExpression(printWhenExpression);
+    public JasperPrint fill(CompiledDocument document, String reportTitle, String city) throws JRException {
+        boolean includeTitlePage = document.isIncludeTitlePage();
+        this.lastGeneratedDesign = reportAssembler.getCompositeDesign(includeTitlePage);
+        this.lastDesignShared = true;
+        JasperPrint jasperPrint;
+        if (sectionFiller != null) {
+            jasperPrint = sectionFiller.fill(document, createDocumentParameters(document, reportTitle, city));
+        } else {
+            JRDataSource dataSource = dataSourceConverter.createMainDataSource(document.getAnalysis().getElements());
+            jasperPrint = reportAssembler.assemble(includeTitlePage, dataSource, createFillParameters(document, reportTitle, city));
         }
-
-        JRDataSource dataSource = dataSourceConverter.createMainDataSource(reportElements);
-        this.lastGeneratedDesign = design;
-        JasperPrint jasperPrint = reportAssembler.assemble(design, dataSource, reportParameters, reportElements);
+        jasperPrint.setName(reportTitle);
         if (printJrxmlToConsole) {
-            printJrxmlToConsole(JasperCompileManager.compileReport(design), "MAIN DYNAMIC REPORT");
+            printJrxmlToConsole(document.getCompositeReport(), "MAIN DYNAMIC REPORT");
         }
         return jasperPrint;
     }
 
+    /**
+     * Uchwyt wypełniania asynchronicznego tego samego raportu co {@link #fill(CompiledDocument, String, String)}.
+     */
+    public AsynchronousFillHandle createFillHandle(CompiledDocument document, String reportTitle, String city) throws JRException {
+        JRDataSource dataSource = dataSourceConverter.createMainDataSource(document.getAnalysis().getElements());
+        return reportAssembler.createFillHandle(document.isIncludeTitlePage(), dataSource,
+                createFillParameters(document, reportTitle, city));
+    }
+
+    private Map<String, Object> createFillParameters(CompiledDocument document, String reportTitle, String city) {
+        Map<String, Object> parameters = createDocumentParameters(document, reportTitle, city);
+        parameters.putAll(document.createFillParameters());
+        return parameters;
+    }
+
+    /**
+     * Parametry stopki i strony tytułowej, bez podraportów.
+     * Bez strony tytułowej stopka z numerem strony jest drukowana także na pierwszej stronie.
+     */
+    private Map<String, Object> createDocumentParameters(CompiledDocument document, String reportTitle, String city) {
+        Map<String, Object> parameters = new HashMap<>();
+        String footerText = city + " | Wygenerowano: " + java.time.LocalDate.now();
+        parameters.put("FooterLeftText", footerText);
+        if (document.isIncludeTitlePage()) {
+            parameters.put(TitlePageGenerator.PARAM_TITLE, reportTitle);
+            parameters.put(TitlePageGenerator.PARAM_FOOTER, titlePageGenerator.createFooterText(city));
+        } else {
+            parameters.put("IS_TOC_PAGE", Boolean.FALSE);
+        }
+        return parameters;
+    }
+
     public JasperPrint generateTableReportFromJson(String jsonContent, ReportConfig config) throws JRException, IOException {
+        if (usesColumnarRows(config)) {
+            try (ColumnarRowBuffer buffer = columnarRows.create()) {
+                jsonColumnarReader.read(jsonContent, buffer);
+                return generateReportFromBuffer(buffer, config);
+            }
+        }
         JsonNode arrayNode = objectMapper.readTree(jsonContent);
         if (!arrayNode.isArray()) {
             throw new IllegalArgumentException("JSON content must be an array");
@@ -183,6 +302,31 @@ public class JsonReportGenerator {
         return generateReportFromArray(arrayNode, config);
     }
 
+    /**
+     * Jak {@link #generateTableReportFromJson(String, ReportConfig)}, ale czyta JSON strumieniowo.
+     * Z włączonym {@link #withColumnarRows} wiersze trafiają prosto do bufora kolumnowego, bez drzewa węzłów.
+     */
+    public JasperPrint generateTableReportFromJson(InputStream jsonContent, ReportConfig config) throws JRException, IOException {
+        if (usesColumnarRows(config)) {
+            try (ColumnarRowBuffer buffer = columnarRows.create()) {
+                jsonColumnarReader.read(jsonContent, buffer);
+                return generateReportFromBuffer(buffer, config);
+            }
+        }
+        JsonNode arrayNode = objectMapper.readTree(jsonContent);
+        if (!arrayNode.isArray()) {
+            throw new IllegalArgumentException("JSON content must be an array");
+        }
+        return generateReportFromArray(arrayNode, config);
+    }
+
+    /**
+     * Bufor kolumnowy nie przechowuje zagnieżdżonych tablic, więc raporty z podraportami idą zwykłą ścieżką.
+     */
+    private boolean usesColumnarRows(ReportConfig config) {
+        return columnarRows != null && (config.getSubreportConfigs() == null || config.getSubreportConfigs().isEmpty());
+    }
+
     private void processNode(JRDesignBand band, JasperDesign design, String key, JsonNode node, int level) throws JRException {
         if (node.isObject()) {
             if (level > 0) {
@@ -269,48 +413,6 @@ public class JsonReportGenerator {
         return header;
     }
 
-    private JasperReport compileChartSubreport(pl.lib.config.ChartConfig chartConfig, JsonNode chartData, int width) throws JRException {
-        ReportBuilder builder = new ReportBuilder("ChartSubreport")
-                .withTheme(ReportTheme.DEFAULT)
-                .withPageFormat("A4")
-                .withMargins(0, 0, 0, 0)
-                .withTitleBand(false)
-                .withPageFooter(false)
-                .withSummaryBand(true)
-                .withColumnWidth(width);
-
-        JasperDesign design = builder.getDesign();
-
-        // Dodaj pola dla danych wykresu
-        JRDesignField categoryField = new JRDesignField();
-        categoryField.setName("category");
-        categoryField.setValueClass(String.class);
-        design.addField(categoryField);
-
-        JRDesignField valueField = new JRDesignField();
-        valueField.setName("value");
-        valueField.setValueClass(Double.class);
-        design.addField(valueField);
-
-        JRDesignBand summaryBand = new JRDesignBand();
-        int chartHeight = chartConfig.getHeight() > 0 ? chartConfig.getHeight() : 300;
-        summaryBand.setHeight(chartHeight);
-        summaryBand.setSplitType(SplitTypeEnum.STRETCH);
-
-        pl.lib.automation.compiler.ChartCompiler compiler = new pl.lib.automation.compiler.ChartCompiler();
-        JRDesignChart chart = compiler.compileChart(chartConfig, chartData, width);
-        chart.setX(0);
-        chart.setY(0);
-        chart.setWidth(width);
-        chart.setHeight(chartHeight);
-        chart.setEvaluationTime(EvaluationTimeEnum.REPORT);
-
-        summaryBand.addElement(chart);
-        design.setSummary(summaryBand);
-
-        return JasperCompileManager.compileReport(design);
-    }
-
     private JRDesignTextField createKeyValueField(String key, String value, int width, int level) {
         JRDesignTextField textField = new JRDesignTextField();
         textField.setX(level * 15);
@@ -332,7 +434,46 @@ public class JsonReportGenerator {
     }
 
     private JasperPrint generateReportFromArray(JsonNode arrayNode, ReportConfig config) throws JRException {
-        ReportStructure structure = analyzeArrayStructure(arrayNode);
+        ReportBuilder reportBuilder = createTableReportBuilder(config);
+        JasperReport mainReport = createTableReport(reportBuilder, analyzeArrayStructure(arrayNode), config);
+        List<Map<String, Object>> mainData = convertJsonArrayToList(arrayNode);
+        if (config.getFormattingOptions() != null) {
+            new HighlightRuleEvaluator(config.getFormattingOptions().getHighlightRules(), reportBuilder.getColumns()).apply(mainData);
+        }
+        if (config.getGroups() != null && !config.getGroups().isEmpty()) {
+            mainData.sort(groupOrder(config.getGroups()));
+        }
+        JRDataSource dataSource = new JRMapCollectionDataSource((Collection<Map<String, ?>>) (Collection<?>) mainData);
+        return fillTableReport(mainReport, reportBuilder, config, mainData, dataSource);
+    }
+
+    /**
+     * Raport tabelaryczny z wierszy w {@link ColumnarRowBuffer}; struktura pochodzi z typów kolumn bufora.
+     */
+    private JasperPrint generateReportFromBuffer(ColumnarRowBuffer buffer, ReportConfig config) throws JRException {
+        ReportStructure structure = new ReportStructure();
+        for (int column = 0; column < buffer.getColumnCount(); column++) {
+            String field = buffer.getColumnNames().get(column);
+            structure.getFields().add(field);
+            structure.getFieldTypes().put(field, buffer.getColumnType(column));
+        }
+        ReportBuilder reportBuilder = createTableReportBuilder(config);
+        JasperReport mainReport = createTableReport(reportBuilder, structure, config);
+        if (config.getFormattingOptions() != null) {
+            HighlightRuleEvaluator evaluator = new HighlightRuleEvaluator(config.getFormattingOptions().getHighlightRules(), reportBuilder.getColumns());
+            if (!evaluator.isEmpty()) {
+                int column = buffer.addColumn(ReportBuilder.HIGHLIGHT_RULE_FIELD);
+                for (int row = 0; row < buffer.getRowCount(); row++) {
+                    buffer.putInteger(row, column, evaluator.evaluate(buffer.row(row)));
+                }
+            }
+        }
+        int[] order = config.getGroups() != null && !config.getGroups().isEmpty()
+                ? buffer.sortedOrder(groupOrder(config.getGroups())) : null;
+        return fillTableReport(mainReport, reportBuilder, config, buffer.rows(order), new ColumnarDataSource(buffer, order));
+    }
+
+    private ReportBuilder createTableReportBuilder(ReportConfig config) {
         ReportBuilder reportBuilder = new ReportBuilder();
         reportBuilder.withHorizontalLayout("LANDSCAPE".equalsIgnoreCase(config.getOrientation()));
         reportBuilder.withPageFormat(config.getPageFormat());
@@ -342,6 +483,10 @@ public class JsonReportGenerator {
         } else {
             reportBuilder.withMargins(10, 10, 10, 10);
         }
+        return reportBuilder;
+    }
+
+    private JasperReport createTableReport(ReportBuilder reportBuilder, ReportStructure structure, ReportConfig config) throws JRException {
         int mainReportColumnWidth = reportBuilder.preparePageAndGetColumnWidth();
 
         Map<String, JasperReport> compiledSubreports = compileSubreports(structure, config, "LANDSCAPE".equalsIgnoreCase(config.getOrientation()), mainReportColumnWidth);
@@ -349,31 +494,37 @@ public class JsonReportGenerator {
             reportBuilder.getParameters().put("SUBREPORT_" + entry.getKey(), entry.getValue());
         }
 
+        reportBuilder.withPrecomputedHighlights(true);
         JasperReport mainReport = createMainReport(reportBuilder, structure, config, compiledSubreports);
         this.lastGeneratedDesign = reportBuilder.getDesign();
+        this.lastDesignShared = false;
         if (printJrxmlToConsole) {
             printJrxmlToConsole(mainReport, "MAIN REPORT: " + config.getTitle());
         }
-        List<Map<String, Object>> mainData = convertJsonArrayToList(arrayNode);
-        if (config.getGroups() != null && !config.getGroups().isEmpty()) {
-            mainData.sort((map1, map2) -> {
-                for (GroupDefinition groupDef : config.getGroups()) {
-                    String field = groupDef.getField();
-                    Object val1 = map1.get(field);
-                    Object val2 = map2.get(field);
-                    if (val1 == null && val2 == null) continue;
-                    if (val1 == null) return -1;
-                    if (val2 == null) return 1;
-                    if (val1 instanceof Comparable) {
-                        @SuppressWarnings("unchecked")
-                        int result = ((Comparable<Object>) val1).compareTo(val2);
-                        if (result != 0) return result;
-                    }
+        return mainReport;
+    }
+
+    private static Comparator<Map<String, ?>> groupOrder(List<GroupDefinition> groups) {
+        return (map1, map2) -> {
+            for (GroupDefinition groupDef : groups) {
+                String field = groupDef.getField();
+                Object val1 = map1.get(field);
+                Object val2 = map2.get(field);
+                if (val1 == null && val2 == null) continue;
+                if (val1 == null) return -1;
+                if (val2 == null) return 1;
+                if (val1 instanceof Comparable) {
+                    @SuppressWarnings("unchecked")
+                    int result = ((Comparable<Object>) val1).compareTo(val2);
+                    if (result != 0) return result;
                 }
-                return 0;
-            });
-        }
-        JRDataSource dataSource = new JRMapCollectionDataSource((Collection<Map<String, ?>>) (Collection<?>) mainData);
+            }
+            return 0;
+        };
+    }
+
+    private JasperPrint fillTableReport(JasperReport mainReport, ReportBuilder reportBuilder, ReportConfig config,
+                                        List<? extends Map<String, ?>> rows, JRDataSource dataSource) throws JRException {
         Map<String, Object> parameters = reportBuilder.getParameters();
         parameters.put("ReportTitle", config.getTitle());
         if (config.getCompanyInfo() != null) {
@@ -386,6 +537,15 @@ public class JsonReportGenerator {
         if (config.getFooterLeftText() != null) {
             parameters.put("FooterLeftText", config.getFooterLeftText());
         }
+        if (partitionedFiller != null && (config.getFormattingOptions() == null || !config.getFormattingOptions().isGenerateBookmarks())) {
+            List<String> groupFields = new ArrayList<>();
+            if (config.getGroups() != null) {
+                for (GroupDefinition groupDef : config.getGroups()) {
+                    groupFields.add(groupDef.getField());
+                }
+            }
+            return partitionedFiller.fill(mainReport, parameters, rows, groupFields);
+        }
         return JasperFillManager.fillReport(mainReport, parameters, dataSource);
     }
 
@@ -496,12 +656,17 @@ public class JsonReportGenerator {
         }
     }
 
+    /**
+     * Wiersze tablicy jako spłaszczone mapy. Zagnieżdżone tablice każdego pola trafiają do jednego
+     * {@link ChildRowStore} (wspólnego dla wszystkich wierszy), a wiersz przechowuje tylko zakres swoich wierszy.
+     */
     private List<Map<String, Object>> convertJsonArrayToList(JsonNode arrayNode) {
+        Map<String, ChildRowStore> childRows = new HashMap<>();
         List<Map<String, Object>> result = new ArrayList<>();
         if (arrayNode != null && arrayNode.isArray()) {
             for (JsonNode item : arrayNode) {
                 if (item.isObject()) {
-                    result.add(flattenJson(item));
+                    result.add(flattenJson(item, "", childRows));
                 }
             }
         }
@@ -522,18 +687,32 @@ public class JsonReportGenerator {
         return value.toString();
     }
 
-    private Map<String, Object> flattenJson(JsonNode node) {
-        Map<String, Object> map = new LinkedHashMap<>();
-        addKeys("", node, map);
+    private Map<String, Object> flattenJson(JsonNode node, String scope, Map<String, ChildRowStore> childRows) {
+        Map<String, Object> map = new ChildRowStore.Row(scope, childRows);
+        addKeys("", node, map, scope, childRows);
         return map;
     }
 
-    private void addKeys(String currentPath, JsonNode jsonNode, Map<String, Object> map) {
+    /**
+     * @param scope     ścieżka zagnieżdżonych tablic nad bieżącym wierszem, rozróżnia magazyny wierszy podrzędnych
+     * @param childRows magazyny wierszy podrzędnych według pełnej ścieżki pola
+     */
+    private void addKeys(String currentPath, JsonNode jsonNode, Map<String, Object> map, String scope,
+                         Map<String, ChildRowStore> childRows) {
         if (jsonNode.isObject()) {
             String prefix = currentPath.isEmpty() ? "" : currentPath + "_";
-            jsonNode.fields().forEachRemaining(entry -> addKeys(prefix + entry.getKey(), entry.getValue(), map));
+            jsonNode.fields().forEachRemaining(entry -> addKeys(prefix + entry.getKey(), entry.getValue(), map, scope, childRows));
         } else if (jsonNode.isArray()) {
-            map.put(currentPath, new JRMapCollectionDataSource((Collection<Map<String, ?>>) (Collection<?>) convertJsonArrayToList(jsonNode)));
+            String childScope = scope + currentPath + "/";
+            ChildRowStore store = childRows.computeIfAbsent(childScope, k -> new ChildRowStore());
+            int offset = store.mark();
+            for (JsonNode item : jsonNode) {
+                if (item.isObject()) {
+                    // wnuki trafiają do innych magazynów, więc wiersze tego rodzica zostają obok siebie
+                    store.add(flattenJson(item, childScope, childRows));
+                }
+            }
+            map.put(currentPath, store.span(offset));
         } else {
             map.put(currentPath, convertJsonValue(jsonNode));
         }
@@ -613,47 +792,4 @@ public class JsonReportGenerator {
             return nestedStructures;
         }
     }
-
-    private List<Map<String, Object>> convertBudgetTreeToMapList(BudgetHierarchyNode root, BudgetTableConfig config) {
-        List<Map<String, Object>> result = new ArrayList<>();
-        pl.lib.automation.analyzer.BudgetStructureAnalyzer analyzer = new pl.lib.automation.analyzer.BudgetStructureAnalyzer();
-        List<BudgetHierarchyNode> flatTree = analyzer.flattenTree(root);
-        pl.lib.automation.util.CurrencyFormatter formatter = pl.lib.automation.util.CurrencyFormatter.forPLN();
-
-        for (BudgetHierarchyNode node : flatTree) {
-            Map<String, Object> row = new HashMap<>();
-            row.put("code", node.getCode() != null ? node.getCode() : "");
-
-            String nameWithIndent = generateIndent(node.getLevel(), config) + node.getName();
-            row.put("name", nameWithIndent);
-            row.put("indent", node.getLevel());
-            row.put("planned", formatter.formatAmountWithoutCurrency(node.getPlannedAmount()));
-            row.put("actual", formatter.formatAmountWithoutCurrency(node.getActualAmount()));
-
-            if (config.isShowPercentages()) {
-                row.put("percent", formatter.formatPercentDirect(node.getExecutionPercent()));
-            }
-            if (config.isShowDifferences()) {
-                row.put("difference", formatter.formatDifferenceWithoutCurrency(node.getDifference()));
-            }
-
-            boolean isBold = node.hasChildren() && config.isBoldSubtotals();
-            row.put("isBold", isBold);
-
-            result.add(row);
-        }
-        return result;
-    }
-
-    private String generateIndent(int level, BudgetTableConfig config) {
-        if (!config.isIndentHierarchy() || level <= 1) {
-            return "";
-        }
-        int spaces = (level - 1) * config.getIndentSize();
-        StringBuilder indent = new StringBuilder();
-        for (int i = 0; i < spaces; i++) {
-            indent.append(" ");
-        }
-        return indent.toString();
-    }
 }
@@ -0,0 +1,40 @@
+package pl.lib.automation;
+
+import net.sf.jasperreports.engine.JasperPrint;
+
+import java.time.Duration;
+
+/**
+ * Wynik zadania {@link AsyncReportService}: wypełniony raport, opcjonalnie PDF, i czas wykonania.
+ */
+public final class ReportResult {
+
+    private final JasperPrint jasperPrint;
+    private final byte[] pdf;
+    private final Duration duration;
+
+    public ReportResult(JasperPrint jasperPrint, byte[] pdf, Duration duration) {
+        this.jasperPrint = jasperPrint;
+        this.pdf = pdf;
+        this.duration = duration;
+    }
+
+    public JasperPrint getJasperPrint() {
+        return jasperPrint;
+    }
+
+    public int getPageCount() {
+        return jasperPrint.getPages().size();
+    }
+
+    /**
+     * Bajty PDF albo null, gdy zadanie nie obejmowało eksportu.
+     */
+    public byte[] getPdf() {
+        return pdf;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+}
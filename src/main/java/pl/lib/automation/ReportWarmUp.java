@@ -0,0 +1,159 @@
+package pl.lib.automation;
+
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.fonts.FontUtil;
+import pl.lib.automation.export.ExportFormat;
+import pl.lib.automation.export.MultiFormatExporter;
+import pl.lib.config.ColumnDefinition;
+import pl.lib.config.GroupDefinition;
+import pl.lib.config.ReportConfig;
+import pl.lib.model.ReportStyles;
+
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.font.FontRenderContext;
+import java.awt.font.TextLayout;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rozgrzewka biblioteki przed przyjęciem ruchu: ładuje czcionki DejaVu z rozszerzeń i metryki AWT,
+ * a potem generuje małe raporty każdą główną ścieżką (tabela, grupy, budżet, wykres, raport zbiorczy, eksport),
+ * żeby pierwsze żądanie nie płaciło za ładowanie klas, kompilację wyrażeń i inicjalizację czcionek.
+ */
+public class ReportWarmUp {
+
+    private static final String SAMPLE_TEXT = "Zażółć gęślą jaźń 1 234,56 zł";
+
+    private static final String TABLE_JSON = "["
+            + "{\"dzial\": \"A\", \"nazwa\": \"Pozycja 1\", \"kwota\": 1234.56, \"data\": \"2024-01-15T00:00:00Z\"},"
+            + "{\"dzial\": \"B\", \"nazwa\": \"Pozycja 2\", \"kwota\": 99.90, \"data\": \"2024-02-20T00:00:00Z\"}"
+            + "]";
+
+    private static final String BUDGET_JSON = "{ \"budzet\": { \"struktura\": ["
+            + "{\"kod\": \"750\", \"nazwa\": \"Administracja publiczna\", \"level\": 1, \"plan\": 1000.00, \"wykonanie\": 900.00}"
+            + "] } }";
+
+    private static final String CHART_JSON = "{ \"wykres\": { \"type\": \"bar\", \"title\": \"Rozgrzewka\","
+            + " \"data\": {\"A\": 1, \"B\": 2, \"C\": 3} } }";
+
+    private static final String COMPOSITE_JSON = "{ \"Sekcja\": { \"opis\": \"" + SAMPLE_TEXT + "\","
+            + " \"pozycje\": [{\"nazwa\": \"A\", \"kwota\": 10}] } }";
+
+    /**
+     * Wykonuje rozgrzewkę i zwraca czasy poszczególnych kroków.
+     */
+    public Result run() throws JRException, IOException {
+        Map<String, Duration> steps = new LinkedHashMap<>();
+        long start = System.nanoTime();
+
+        long stepStart = System.nanoTime();
+        preloadFonts();
+        stepStart = record(steps, "fonts", stepStart);
+
+        JsonReportGenerator generator = new JsonReportGenerator();
+        JasperPrint table = generator.generateTableReportFromJson(TABLE_JSON, tableConfig().build());
+        stepStart = record(steps, "table", stepStart);
+
+        generator.generateTableReportFromJson(TABLE_JSON, tableConfig()
+                .addGroup(GroupDefinition.builder("dzial").build())
+                .build());
+        stepStart = record(steps, "grouped", stepStart);
+
+        generator.generateReport(BUDGET_JSON, "Rozgrzewka", "Chełm", false);
+        stepStart = record(steps, "budget", stepStart);
+
+        generator.generateReport(CHART_JSON, "Rozgrzewka", "Chełm", false);
+        stepStart = record(steps, "chart", stepStart);
+
+        new AutomatedReportFacade().generateCompositeReport(COMPOSITE_JSON,
+                new ReportConfig.Builder().title("Rozgrzewka").pageFormat("A4").build());
+        stepStart = record(steps, "composite", stepStart);
+
+        new MultiFormatExporter().exportAll(table, ExportFormat.values());
+        record(steps, "export", stepStart);
+
+        return new Result(Duration.ofNanos(System.nanoTime() - start), steps);
+    }
+
+    /**
+     * Czcionki z {@link ReportStyles} w stylach zwykłym i pogrubionym, razem z metrykami i układem tekstu AWT.
+     */
+    public void preloadFonts() {
+        Set<String> fontNames = new LinkedHashSet<>();
+        fontNames.add(ReportStyles.FONT_DEJAVU_SANS);
+        fontNames.add(ReportStyles.FONT_DEJAVU_SANS_CONDENSED);
+
+        FontUtil fontUtil = FontUtil.getInstance(DefaultJasperReportsContext.getInstance());
+        BufferedImage image = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            FontRenderContext renderContext = graphics.getFontRenderContext();
+            for (String fontName : fontNames) {
+                for (int style : new int[]{Font.PLAIN, Font.BOLD}) {
+                    Font font = fontUtil.getAwtFontFromBundles(fontName, style, 10f, Locale.getDefault(), true);
+                    if (font == null) {
+                        font = new Font(fontName, style, 10);
+                    }
+                    graphics.getFontMetrics(font).stringWidth(SAMPLE_TEXT);
+                    new TextLayout(SAMPLE_TEXT, font, renderContext).getBounds();
+                }
+            }
+        } finally {
+            graphics.dispose();
+        }
+    }
+
+    private ReportConfig.Builder tableConfig() {
+        return new ReportConfig.Builder()
+                .title("Rozgrzewka")
+                .pageFormat("A4")
+                .addColumn(ColumnDefinition.builder("dzial").header("Dział").build())
+                .addColumn(ColumnDefinition.builder("nazwa").header("Nazwa").build())
+                .addColumn(ColumnDefinition.builder("kwota").header("Kwota").format("#,##0.00").build())
+                .addColumn(ColumnDefinition.builder("data").header("Data").format("dd.MM.yyyy").build());
+    }
+
+    private static long record(Map<String, Duration> steps, String name, long stepStart) {
+        long now = System.nanoTime();
+        steps.put(name, Duration.ofNanos(now - stepStart));
+        return now;
+    }
+
+    /**
+     * Czas całej rozgrzewki i poszczególnych kroków, w kolejności wykonania.
+     */
+    public static final class Result {
+        private final Duration total;
+        private final Map<String, Duration> steps;
+
+        private Result(Duration total, Map<String, Duration> steps) {
+            this.total = total;
+            this.steps = Collections.unmodifiableMap(steps);
+        }
+
+        public Duration getTotal() {
+            return total;
+        }
+
+        public Map<String, Duration> getSteps() {
+            return steps;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder("Warm-up took ").append(total.toMillis()).append(" ms");
+            steps.forEach((name, duration) -> text.append(", ").append(name).append('=').append(duration.toMillis()).append(" ms"));
+            return text.toString();
+        }
+    }
+}
@@ -5,12 +5,35 @@ import pl.lib.model.BudgetHierarchyNode;
 import pl.lib.model.BudgetNodeType;
 
 import java.math.BigDecimal;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Deque;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
 
 public class BudgetStructureAnalyzer {
 
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 10_000;
+
+    private int parallelThreshold;
+
+    /**
+     * Włącza równoległe sumowanie (fork-join) dla poddrzew liczących co najmniej {@code nodeThreshold} węzłów.
+     * Wartość 0 lub ujemna wyłącza tryb równoległy.
+     */
+    public BudgetStructureAnalyzer withParallelAggregation(int nodeThreshold) {
+        this.parallelThreshold = Math.max(0, nodeThreshold);
+        return this;
+    }
+
+    public int getParallelThreshold() {
+        return parallelThreshold;
+    }
+
     public boolean isBudgetData(JsonNode node) {
         if (!node.isObject()) {
             return false;
@@ -37,7 +60,7 @@ public class BudgetStructureAnalyzer {
 
         if (structure.isArray()) {
             for (JsonNode item : structure) {
-                BudgetHierarchyNode node = buildNodeRecursively(item, 1);
+                BudgetHierarchyNode node = buildNodeIteratively(item, 1);
                 if (node != null) {
                     root.addChild(node);
                 }
@@ -52,7 +75,7 @@ public class BudgetStructureAnalyzer {
         BudgetHierarchyNode root = new BudgetHierarchyNode("ROOT", "Budget Root", BudgetNodeType.SECTION, 0);
 
         for (JsonNode item : array) {
-            BudgetHierarchyNode node = buildNodeRecursively(item, 1);
+            BudgetHierarchyNode node = buildNodeIteratively(item, 1);
             if (node != null) {
                 root.addChild(node);
             }
@@ -62,11 +85,44 @@ public class BudgetStructureAnalyzer {
         return root;
     }
 
-    private BudgetHierarchyNode buildNodeRecursively(JsonNode node, int level) {
+    /**
+     * Buduje poddrzewo z zagnieżdżonych "dzieci" bez rekurencji, dzięki czemu głębokie
+     * zagnieżdżenie nie przepełnia stosu wywołań. Kolejność dzieci jest zachowana.
+     */
+    private BudgetHierarchyNode buildNodeIteratively(JsonNode node, int level) {
         if (!node.isObject()) {
             return null;
         }
 
+        BudgetHierarchyNode topNode = createNode(node, level);
+        Deque<PendingNode> stack = new ArrayDeque<>();
+        stack.push(new PendingNode(node, topNode));
+
+        while (!stack.isEmpty()) {
+            PendingNode pending = stack.pop();
+            JsonNode children = pending.json.get("dzieci");
+            if (children == null || !children.isArray()) {
+                continue;
+            }
+
+            int childLevel = pending.budgetNode.getLevel() + 1;
+            List<PendingNode> created = new ArrayList<>(children.size());
+            for (JsonNode child : children) {
+                if (child.isObject()) {
+                    BudgetHierarchyNode childNode = createNode(child, childLevel);
+                    pending.budgetNode.addChild(childNode);
+                    created.add(new PendingNode(child, childNode));
+                }
+            }
+            for (int i = created.size() - 1; i >= 0; i--) {
+                stack.push(created.get(i));
+            }
+        }
+
+        return topNode;
+    }
+
+    private BudgetHierarchyNode createNode(JsonNode node, int level) {
         String code = node.has("kod") ? node.get("kod").asText() : "";
         String name = node.has("nazwa") ? node.get("nazwa").asText() : "";
 
@@ -81,15 +137,6 @@ public class BudgetStructureAnalyzer {
             budgetNode.setActualAmount(new BigDecimal(node.get("wykonanie").asText()));
         }
 
-        if (node.has("dzieci") && node.get("dzieci").isArray()) {
-            for (JsonNode child : node.get("dzieci")) {
-                BudgetHierarchyNode childNode = buildNodeRecursively(child, level + 1);
-                if (childNode != null) {
-                    budgetNode.addChild(childNode);
-                }
-            }
-        }
-
         return budgetNode;
     }
 
@@ -127,47 +174,182 @@ public class BudgetStructureAnalyzer {
             return;
         }
 
-        calculateAggregatesRecursive(root);
+        if (parallelThreshold > 0) {
+            calculateAggregatesParallel(root, parallelThreshold);
+        } else {
+            calculateAggregatesSequential(root);
+        }
     }
 
-    private void calculateAggregatesRecursive(BudgetHierarchyNode node) {
-        if (node.hasChildren()) {
-            BigDecimal totalPlanned = BigDecimal.ZERO;
-            BigDecimal totalActual = BigDecimal.ZERO;
+    public void calculateAggregatesSequential(BudgetHierarchyNode root) {
+        if (root != null) {
+            walkPostOrder(root, BudgetStructureAnalyzer::aggregateFromChildren);
+        }
+    }
 
+    /**
+     * Sumuje drzewo w puli fork-join. Poddrzewa mniejsze niż próg liczone są sekwencyjnie,
+     * a reguła uzupełniania kwot rodzica (tylko gdy są zerowe) jest taka sama jak w trybie sekwencyjnym.
+     */
+    public void calculateAggregatesParallel(BudgetHierarchyNode root, int nodeThreshold) {
+        if (root == null) {
+            return;
+        }
+
+        int threshold = Math.max(1, nodeThreshold);
+        Map<BudgetHierarchyNode, Integer> subtreeSizes = countSubtreeSizes(root);
+        if (subtreeSizes.get(root) < threshold) {
+            calculateAggregatesSequential(root);
+            return;
+        }
+
+        ForkJoinPool.commonPool().invoke(new AggregationTask(root, subtreeSizes, threshold));
+    }
+
+    private static Map<BudgetHierarchyNode, Integer> countSubtreeSizes(BudgetHierarchyNode root) {
+        Map<BudgetHierarchyNode, Integer> sizes = new IdentityHashMap<>();
+        walkPostOrder(root, node -> {
+            int size = 1;
             for (BudgetHierarchyNode child : node.getChildren()) {
-                calculateAggregatesRecursive(child);
-                totalPlanned = totalPlanned.add(child.getPlannedAmount() != null ? child.getPlannedAmount() : BigDecimal.ZERO);
-                totalActual = totalActual.add(child.getActualAmount() != null ? child.getActualAmount() : BigDecimal.ZERO);
+                size += sizes.get(child);
             }
+            sizes.put(node, size);
+        });
+        return sizes;
+    }
 
-            if (node.getPlannedAmount() == null || node.getPlannedAmount().compareTo(BigDecimal.ZERO) == 0) {
-                node.setPlannedAmount(totalPlanned);
-            }
-            if (node.getActualAmount() == null || node.getActualAmount().compareTo(BigDecimal.ZERO) == 0) {
-                node.setActualAmount(totalActual);
+    /**
+     * Przechodzi drzewo w kolejności post-order (dzieci przed rodzicem) na jawnym stosie,
+     * więc zużycie stosu nie zależy od głębokości hierarchii.
+     */
+    private static void walkPostOrder(BudgetHierarchyNode root, Consumer<BudgetHierarchyNode> visitor) {
+        Deque<AggregationFrame> stack = new ArrayDeque<>();
+        stack.push(new AggregationFrame(root));
+
+        while (!stack.isEmpty()) {
+            AggregationFrame frame = stack.peek();
+            List<BudgetHierarchyNode> children = frame.node.getChildren();
+            if (frame.nextChild < children.size()) {
+                stack.push(new AggregationFrame(children.get(frame.nextChild++)));
+            } else {
+                stack.pop();
+                visitor.accept(frame.node);
             }
         }
     }
 
+    private static void aggregateFromChildren(BudgetHierarchyNode node) {
+        if (!node.hasChildren()) {
+            return;
+        }
+
+        BigDecimal totalPlanned = BigDecimal.ZERO;
+        BigDecimal totalActual = BigDecimal.ZERO;
+
+        for (BudgetHierarchyNode child : node.getChildren()) {
+            totalPlanned = totalPlanned.add(child.getPlannedAmount() != null ? child.getPlannedAmount() : BigDecimal.ZERO);
+            totalActual = totalActual.add(child.getActualAmount() != null ? child.getActualAmount() : BigDecimal.ZERO);
+        }
+
+        if (node.getPlannedAmount() == null || node.getPlannedAmount().compareTo(BigDecimal.ZERO) == 0) {
+            node.setPlannedAmount(totalPlanned);
+        }
+        if (node.getActualAmount() == null || node.getActualAmount().compareTo(BigDecimal.ZERO) == 0) {
+            node.setActualAmount(totalActual);
+        }
+    }
+
     public List<BudgetHierarchyNode> flattenTree(BudgetHierarchyNode root) {
         List<BudgetHierarchyNode> flatList = new ArrayList<>();
-        flattenTreeRecursive(root, flatList);
+        if (root == null) {
+            return flatList;
+        }
+
+        Deque<BudgetHierarchyNode> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            BudgetHierarchyNode node = stack.pop();
+            if (!"ROOT".equals(node.getCode())) {
+                flatList.add(node);
+            }
+            List<BudgetHierarchyNode> children = node.getChildren();
+            for (int i = children.size() - 1; i >= 0; i--) {
+                stack.push(children.get(i));
+            }
+        }
         return flatList;
     }
 
-    private void flattenTreeRecursive(BudgetHierarchyNode node, List<BudgetHierarchyNode> flatList) {
-        if (node == null) {
-            return;
+    private static final class PendingNode {
+        private final JsonNode json;
+        private final BudgetHierarchyNode budgetNode;
+
+        private PendingNode(JsonNode json, BudgetHierarchyNode budgetNode) {
+            this.json = json;
+            this.budgetNode = budgetNode;
         }
+    }
 
-        if (!"ROOT".equals(node.getCode())) {
-            flatList.add(node);
+    /**
+     * Zadanie sumujące poddrzewo. Idzie w dół wzdłuż pierwszego dużego dziecka w tym samym wątku,
+     * kolejne duże dzieci oddaje do puli, a małe sumuje sekwencyjnie.
+     */
+    private static final class AggregationTask extends RecursiveAction {
+        private final BudgetHierarchyNode subtreeRoot;
+        private final Map<BudgetHierarchyNode, Integer> subtreeSizes;
+        private final int threshold;
+
+        private AggregationTask(BudgetHierarchyNode subtreeRoot, Map<BudgetHierarchyNode, Integer> subtreeSizes, int threshold) {
+            this.subtreeRoot = subtreeRoot;
+            this.subtreeSizes = subtreeSizes;
+            this.threshold = threshold;
         }
 
-        for (BudgetHierarchyNode child : node.getChildren()) {
-            flattenTreeRecursive(child, flatList);
+        @Override
+        protected void compute() {
+            Deque<BudgetHierarchyNode> spine = new ArrayDeque<>();
+            List<AggregationTask> forked = new ArrayList<>();
+            List<BudgetHierarchyNode> smallSubtrees = new ArrayList<>();
+            BudgetHierarchyNode current = subtreeRoot;
+
+            while (current != null) {
+                spine.push(current);
+                BudgetHierarchyNode next = null;
+                for (BudgetHierarchyNode child : current.getChildren()) {
+                    if (!child.hasChildren()) {
+                        continue;
+                    }
+                    if (subtreeSizes.get(child) < threshold) {
+                        smallSubtrees.add(child);
+                    } else if (next == null) {
+                        next = child;
+                    } else {
+                        AggregationTask task = new AggregationTask(child, subtreeSizes, threshold);
+                        task.fork();
+                        forked.add(task);
+                    }
+                }
+                current = next;
+            }
+
+            for (BudgetHierarchyNode small : smallSubtrees) {
+                walkPostOrder(small, BudgetStructureAnalyzer::aggregateFromChildren);
+            }
+            for (int i = forked.size() - 1; i >= 0; i--) {
+                forked.get(i).join();
+            }
+            while (!spine.isEmpty()) {
+                aggregateFromChildren(spine.pop());
+            }
         }
     }
-}
 
+    private static final class AggregationFrame {
+        private final BudgetHierarchyNode node;
+        private int nextChild;
+
+        private AggregationFrame(BudgetHierarchyNode node) {
+            this.node = node;
+        }
+    }
+}
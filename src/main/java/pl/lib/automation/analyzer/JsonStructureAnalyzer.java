@@ -1,6 +1,7 @@
 package pl.lib.automation.analyzer;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import pl.lib.automation.util.TextChunker;
 import pl.lib.model.BudgetHierarchyNode;
 
 import java.util.ArrayList;
@@ -8,7 +9,37 @@ import java.util.List;
 
 public class JsonStructureAnalyzer {
 
-    private final BudgetStructureAnalyzer budgetAnalyzer = new BudgetStructureAnalyzer();
+    public static final int DEFAULT_MAX_VALUE_CHUNK_LENGTH = 1000;
+
+    private final BudgetStructureAnalyzer budgetAnalyzer;
+    private int maxValueChunkLength = DEFAULT_MAX_VALUE_CHUNK_LENGTH;
+
+    /**
+     * Budżety sumowane równolegle od {@link BudgetStructureAnalyzer#DEFAULT_PARALLEL_THRESHOLD} węzłów w poddrzewie.
+     */
+    public JsonStructureAnalyzer() {
+        this(new BudgetStructureAnalyzer().withParallelAggregation(BudgetStructureAnalyzer.DEFAULT_PARALLEL_THRESHOLD));
+    }
+
+    public JsonStructureAnalyzer(BudgetStructureAnalyzer budgetAnalyzer) {
+        this.budgetAnalyzer = budgetAnalyzer;
+    }
+
+    /**
+     * Długie wartości są dzielone na wiersze wielkości akapitu, żeby wypełnianie mierzyło i łamało małe fragmenty;
+     * klucz zostaje tylko w pierwszym wierszu. 0 wyłącza podział.
+     */
+    public void setMaxValueChunkLength(int maxValueChunkLength) {
+        this.maxValueChunkLength = Math.max(0, maxValueChunkLength);
+    }
+
+    public int getMaxValueChunkLength() {
+        return maxValueChunkLength;
+    }
+
+    public BudgetStructureAnalyzer getBudgetAnalyzer() {
+        return budgetAnalyzer;
+    }
 
     public List<ReportElement> flattenJson(JsonNode rootNode) {
         List<ReportElement> elements = new ArrayList<>();
@@ -36,7 +67,15 @@ public class JsonStructureAnalyzer {
         } else if (node.isArray() && !node.isEmpty() && node.get(0).isObject()) {
             elements.add(ReportElement.createTable(key, level, node));
         } else if (node.isValueNode()) {
-            elements.add(ReportElement.createKeyValue(key, node.asText("null"), level));
+            addKeyValue(elements, key, node.asText("null"), level);
+        }
+    }
+
+    private void addKeyValue(List<ReportElement> elements, String key, String value, int level) {
+        List<String> chunks = TextChunker.split(value, maxValueChunkLength);
+        elements.add(ReportElement.createKeyValue(key, chunks.get(0), level));
+        for (int i = 1; i < chunks.size(); i++) {
+            elements.add(ReportElement.createKeyValueContinuation(chunks.get(i), level));
         }
     }
 
@@ -55,6 +94,11 @@ public class JsonStructureAnalyzer {
         pl.lib.config.ChartConfig config = new pl.lib.config.ChartConfig();
         config.setTitle(title);
 
+        if (node.has("maxPoints") || node.has("maxCategories")) {
+            config.setDataReduction(true);
+            config.setMaxDataPoints(node.path("maxPoints").asInt(0));
+            config.setMaxCategories(node.path("maxCategories").asInt(config.getMaxCategories()));
+        }
 
         switch (type.toLowerCase()) {
             case "pie":
@@ -66,6 +110,9 @@ public class JsonStructureAnalyzer {
             case "line":
                 config.setType(pl.lib.model.ChartType.LINE);
                 break;
+            case "area":
+                config.setType(pl.lib.model.ChartType.AREA);
+                break;
             default:
                 config.setType(pl.lib.model.ChartType.BAR);
         }
@@ -31,6 +31,13 @@ public class ReportElement {
         return new ReportElement("KEY_VALUE", text, value, level, null, null, null);
     }
 
+    /**
+     * Dalszy fragment długiej wartości pola: bez klucza, na tym samym poziomie co pierwszy wiersz.
+     */
+    public static ReportElement createKeyValueContinuation(String value, int level) {
+        return new ReportElement("KEY_VALUE", null, value, level, null, null, null);
+    }
+
     public static ReportElement createTable(String text, int level, JsonNode tableData) {
         return new ReportElement("TABLE", text, null, level, tableData, null, null);
     }
@@ -2,30 +2,135 @@ package pl.lib.automation.assembler;
 
 import net.sf.jasperreports.engine.*;
 import net.sf.jasperreports.engine.design.*;
+import net.sf.jasperreports.engine.fill.AsynchronousFillHandle;
+import net.sf.jasperreports.engine.fill.AsynchronousFilllListener;
 import net.sf.jasperreports.engine.type.*;
-import pl.lib.automation.analyzer.ReportElement;
-import pl.lib.automation.compiler.ChartCompiler;
+import pl.lib.api.ReportBuilder;
+import pl.lib.automation.compiler.SimpleExpressionCompiler;
+import pl.lib.automation.page.TitlePageGenerator;
+import pl.lib.config.ReportTheme;
 import pl.lib.model.ReportStyles;
 
-import java.util.List;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
+/**
+ * Składa raport zbiorczy z elementów dokumentu.
+ * Projekt raportu nie zależy od treści: podraporty tabel, budżetów i wykresów są wybierane dla bieżącego
+ * {@code elementIndex} z map przekazanych w parametrach, więc szablon kompiluje się raz na wariant (ze stroną tytułową lub bez).
+ */
 public class ReportAssembler {
-    private final ChartCompiler chartCompiler = new ChartCompiler();
-
-    public JasperPrint assemble(
-            JasperDesign design,
-            JRDataSource dataSource,
-            Map<String, Object> parameters,
-            List<ReportElement> elements
-    ) throws JRException {
+
+    public static final String PARAM_SUBREPORTS = "SUBREPORTS";
+    public static final String PARAM_SUBREPORT_DATA = "SUBREPORT_DATA";
+    public static final String PARAM_SUBREPORT_PARAMETERS = "SUBREPORT_PARAMETERS";
+    public static final String ANCHOR_PREFIX = "bookmark_";
+
+    private static final String CREATE_BOOKMARKS_PROPERTY = "net.sf.jasperreports.create.bookmarks";
+
+    private static final ConcurrentMap<Boolean, CompositeTemplate> TEMPLATES = new ConcurrentHashMap<>();
+
+    private final TitlePageGenerator titlePageGenerator = new TitlePageGenerator();
+
+    public JasperPrint assemble(boolean includeTitlePage, JRDataSource dataSource, Map<String, Object> parameters) throws JRException {
+        JasperPrint jasperPrint = JasperFillManager.fillReport(getCompositeReport(includeTitlePage), fillParameters(parameters), dataSource);
+        jasperPrint.setProperty(CREATE_BOOKMARKS_PROPERTY, "true");
+        return jasperPrint;
+    }
+
+    /**
+     * Wypełnianie asynchroniczne raportu zbiorczego; uchwyt pozwala przerwać wypełnianie ({@code cancellFill()}).
+     * Wypełnianie startuje dopiero po {@code startFill()}, więc można wcześniej dodać własnych słuchaczy.
+     */
+    public AsynchronousFillHandle createFillHandle(boolean includeTitlePage, JRDataSource dataSource,
+                                                   Map<String, Object> parameters) throws JRException {
+        AsynchronousFillHandle handle = AsynchronousFillHandle.createHandle(
+                getCompositeReport(includeTitlePage), fillParameters(parameters), dataSource);
+        handle.addListener(new AsynchronousFilllListener() {
+            @Override
+            public void reportFinished(JasperPrint jasperPrint) {
+                jasperPrint.setProperty(CREATE_BOOKMARKS_PROPERTY, "true");
+            }
+
+            @Override
+            public void reportCancelled() {
+            }
+
+            @Override
+            public void reportFillError(Throwable t) {
+            }
+        });
+        return handle;
+    }
+
+    private Map<String, Object> fillParameters(Map<String, Object> parameters) {
+        Map<String, Object> fillParameters = new HashMap<>(parameters);
+        fillParameters.putIfAbsent(PARAM_SUBREPORTS, new HashMap<Integer, JasperReport>());
+        fillParameters.putIfAbsent(PARAM_SUBREPORT_DATA, new HashMap<Integer, JRDataSource>());
+        fillParameters.putIfAbsent(PARAM_SUBREPORT_PARAMETERS, new HashMap<Integer, Map<String, Object>>());
+        return fillParameters;
+    }
+
+    /**
+     * Rejestruje podraport dla elementu o podanym indeksie w mapach dyspozytora.
+     */
+    @SuppressWarnings("unchecked")
+    public static void putSubreport(Map<String, Object> parameters, int elementIndex, JasperReport report,
+                                    JRDataSource dataSource, Map<String, Object> subreportParameters) {
+        ((Map<Integer, JasperReport>) parameters.computeIfAbsent(PARAM_SUBREPORTS, k -> new HashMap<Integer, JasperReport>()))
+                .put(elementIndex, report);
+        ((Map<Integer, JRDataSource>) parameters.computeIfAbsent(PARAM_SUBREPORT_DATA, k -> new HashMap<Integer, JRDataSource>()))
+                .put(elementIndex, dataSource);
+        if (subreportParameters != null) {
+            ((Map<Integer, Map<String, Object>>) parameters.computeIfAbsent(PARAM_SUBREPORT_PARAMETERS, k -> new HashMap<Integer, Map<String, Object>>()))
+                    .put(elementIndex, subreportParameters);
+        }
+    }
+
+    public JasperReport getCompositeReport(boolean includeTitlePage) throws JRException {
+        return getCompositeTemplate(includeTitlePage).report;
+    }
+
+    /**
+     * Projekt współdzielonego szablonu, z którego skompilowano {@link #getCompositeReport(boolean)}; tylko do odczytu.
+     */
+    public JasperDesign getCompositeDesign(boolean includeTitlePage) throws JRException {
+        return getCompositeTemplate(includeTitlePage).design;
+    }
+
+    private CompositeTemplate getCompositeTemplate(boolean includeTitlePage) throws JRException {
+        CompositeTemplate template = TEMPLATES.get(includeTitlePage);
+        if (template == null) {
+            JasperDesign design = createCompositeDesign(includeTitlePage);
+            CompositeTemplate compiled = new CompositeTemplate(design, SimpleExpressionCompiler.compile(design));
+            template = TEMPLATES.putIfAbsent(includeTitlePage, compiled);
+            if (template == null) {
+                template = compiled;
+            }
+        }
+        return template;
+    }
+
+    private JasperDesign createCompositeDesign(boolean includeTitlePage) throws JRException {
+        ReportBuilder builder = new ReportBuilder("CompositeReport")
+                .withTheme(ReportTheme.DEFAULT)
+                .withPageFormat("A4")
+                .withHorizontalLayout(false)
+                .withMargins(20, 20, 20, 20)
+                .withTitleBand(false)
+                .withSummaryBand(false);
+        JasperDesign design = builder.getDesign();
+        design.setProperty("net.sf.jasperreports.create.bookmarks", "true");
+        if (includeTitlePage) {
+            titlePageGenerator.addParameterizedTitlePage(design);
+        }
+
         addFieldsToDesign(design);
-        buildDetailBand(design, elements);
+        buildDetailBand(design);
         buildPageFooter(design);
-        JasperReport jasperReport = JasperCompileManager.compileReport(design);
-        JasperPrint jasperPrint = JasperFillManager.fillReport(jasperReport, parameters, dataSource);
-        jasperPrint.setProperty("net.sf.jasperreports.create.bookmarks", "true");
-        return jasperPrint;
+        return design;
     }
 
     private void addFieldsToDesign(JasperDesign design) throws JRException {
@@ -34,6 +139,8 @@ public class ReportAssembler {
         addField(design, "value", String.class);
         addField(design, "level", Integer.class);
         addField(design, "elementIndex", Integer.class);
+        addField(design, "headerText", String.class);
+        addField(design, "valueHtml", String.class);
 
         JRDesignParameter footerParam = new JRDesignParameter();
         footerParam.setName("FooterLeftText");
@@ -44,6 +151,13 @@ public class ReportAssembler {
         isTocPageParam.setName("IS_TOC_PAGE");
         isTocPageParam.setValueClass(Boolean.class);
         design.addParameter(isTocPageParam);
+
+        for (String name : new String[]{PARAM_SUBREPORTS, PARAM_SUBREPORT_DATA, PARAM_SUBREPORT_PARAMETERS}) {
+            JRDesignParameter dispatchParam = new JRDesignParameter();
+            dispatchParam.setName(name);
+            dispatchParam.setValueClass(Map.class);
+            design.addParameter(dispatchParam);
+        }
     }
 
     private void addField(JasperDesign design, String name, Class<?> valueClass) throws JRException {
@@ -53,13 +167,13 @@ public class ReportAssembler {
         design.addField(field);
     }
 
-    private void buildDetailBand(JasperDesign design, List<ReportElement> elements) throws JRException {
+    private void buildDetailBand(JasperDesign design) throws JRException {
         JRDesignBand detailBand = new JRDesignBand();
         detailBand.setHeight(25);
         detailBand.setSplitType(SplitTypeEnum.STRETCH);
         detailBand.addElement(createHeaderField(design));
         detailBand.addElement(createKeyValueField(design));
-        addTableSubreports(detailBand, design, elements);
+        detailBand.addElement(createDispatchSubreport(design));
         ((JRDesignSection) design.getDetailSection()).addBand(detailBand);
     }
 
@@ -78,12 +192,10 @@ public class ReportAssembler {
         headerField.setVerticalTextAlign(VerticalTextAlignEnum.MIDDLE);
         headerField.setForecolor(new java.awt.Color(28, 58, 87));
 
-        headerField.setExpression(new JRDesignExpression(
-                "\"   \".repeat(Math.max(0, $F{level} - 1)) + $F{text}"
-        ));
+        headerField.setExpression(new JRDesignExpression("$F{headerText}"));
 
         headerField.setPrintWhenExpression(new JRDesignExpression("$F{type}.equals(\"HEADER\")"));
-        headerField.setAnchorNameExpression(new JRDesignExpression("\"bookmark_\" + $F{elementIndex}"));
+        headerField.setAnchorNameExpression(new JRDesignExpression("\"" + ANCHOR_PREFIX + "\" + $F{elementIndex}"));
         headerField.setBookmarkLevelExpression(new JRDesignExpression("$F{level}"));
         return headerField;
     }
@@ -103,48 +215,18 @@ public class ReportAssembler {
         keyValueField.setHorizontalTextAlign(HorizontalTextAlignEnum.JUSTIFIED);
         keyValueField.setVerticalTextAlign(VerticalTextAlignEnum.TOP);
 
-
-        String expression =
-            "\"&nbsp;\".repeat(Math.max(0, $F{level} - 1) * 4 + 2) + \"<b style='color: #1C3A57;'>\" + $F{text} + \":</b> \" + " +
-            "($F{value} != null && $F{value}.matches(\"(?s).*[\\\\n\\\\r]\\\\s*[-*\\\\u2022]\\\\s+.*\") ? " +
-            "  ($F{value}.replaceAll(\"(?m)^\\\\s*[-*\\\\u2022]\\\\s+(.+)$\", \"&nbsp;&nbsp;&nbsp;&#8226; $1\")) : " +
-            "  $F{value})";
-
-        keyValueField.setExpression(new JRDesignExpression(expression));
+        // HTML wiersza przygotowany w DataSourceConverter.keyValueHtml
+        keyValueField.setExpression(new JRDesignExpression("$F{valueHtml}"));
         keyValueField.setPrintWhenExpression(new JRDesignExpression("$F{type}.equals(\"KEY_VALUE\")"));
         return keyValueField;
     }
 
-    private void addTableSubreports(JRDesignBand detailBand, JasperDesign design, List<ReportElement> elements) throws JRException {
-        for (int i = 0; i < elements.size(); i++) {
-            ReportElement element = elements.get(i);
-
-            if ("TABLE".equals(element.getType())) {
-                detailBand.addElement(createTableSubreport(design, i));
-            }
-            else if ("CHART".equals(element.getType()) && element.getChartConfig() != null) {
-                detailBand.addElement(createChartSubreport(design, i));
-            }
-        }
-    }
-
-    private JRDesignSubreport createChartSubreport(JasperDesign design, int index) {
-        JRDesignSubreport subreport = new JRDesignSubreport(design);
-        subreport.setX(0);
-        subreport.setY(0);
-        subreport.setWidth(design.getColumnWidth());
-        subreport.setHeight(1);
-        subreport.setRemoveLineWhenBlank(true);
-        subreport.setPositionType(PositionTypeEnum.FLOAT);
-        subreport.setExpression(new JRDesignExpression("$P{CHART_REPORT_" + index + "}"));
-        subreport.setDataSourceExpression(new JRDesignExpression("$P{CHART_DATA_" + index + "}"));
-        subreport.setPrintWhenExpression(new JRDesignExpression(
-                "$F{type}.equals(\"CHART\") && $F{elementIndex}.equals(" + index + ")"
-        ));
-        return subreport;
-    }
-
-    private JRDesignSubreport createTableSubreport(JasperDesign design, int index) {
+    /**
+     * Jeden podraport dla wszystkich tabel, budżetów i wykresów: raport, dane i parametry
+     * są pobierane z map po {@code elementIndex}, więc koszt wiersza nie zależy od liczby elementów.
+     */
+    private JRDesignSubreport createDispatchSubreport(JasperDesign design) {
+        String elementIndex = "$F{elementIndex}";
         JRDesignSubreport subreport = new JRDesignSubreport(design);
         subreport.setX(0);
         subreport.setY(0);
@@ -152,11 +234,16 @@ public class ReportAssembler {
         subreport.setHeight(1);
         subreport.setRemoveLineWhenBlank(true);
         subreport.setPositionType(PositionTypeEnum.FLOAT);
-        subreport.setExpression(new JRDesignExpression("$P{TABLE_REPORT_" + index + "}"));
-        subreport.setDataSourceExpression(new JRDesignExpression("$P{TABLE_DATA_" + index + "}"));
+        subreport.setExpression(new JRDesignExpression(
+                "(net.sf.jasperreports.engine.JasperReport) $P{" + PARAM_SUBREPORTS + "}.get(" + elementIndex + ")"));
+        subreport.setDataSourceExpression(new JRDesignExpression(
+                "(net.sf.jasperreports.engine.JRDataSource) $P{" + PARAM_SUBREPORT_DATA + "}.get(" + elementIndex + ")"));
+        subreport.setParametersMapExpression(new JRDesignExpression(
+                "$P{" + PARAM_SUBREPORT_PARAMETERS + "}.containsKey(" + elementIndex + ")"
+                        + " ? new java.util.HashMap((java.util.Map) $P{" + PARAM_SUBREPORT_PARAMETERS + "}.get(" + elementIndex + "))"
+                        + " : new java.util.HashMap()"));
         subreport.setPrintWhenExpression(new JRDesignExpression(
-                "$F{type}.equals(\"TABLE\") && $F{elementIndex}.equals(" + index + ")"
-        ));
+                "$P{" + PARAM_SUBREPORTS + "}.containsKey(" + elementIndex + ")"));
         return subreport;
     }
 
@@ -185,7 +272,8 @@ public class ReportAssembler {
         pageNumberField.setY(12);
         pageNumberField.setWidth(design.getColumnWidth());
         pageNumberField.setHeight(20);
-        pageNumberField.setExpression(new JRDesignExpression("\"Strona \" + $V{PAGE_NUMBER}"));
+        pageNumberField.setKey(ReportBuilder.PAGE_NUMBER_KEY);
+        pageNumberField.setExpression(new JRDesignExpression("\"" + ReportBuilder.PAGE_NUMBER_PREFIX + "\" + $V{PAGE_NUMBER}"));
         pageNumberField.setHorizontalTextAlign(HorizontalTextAlignEnum.RIGHT);
         pageNumberField.setVerticalTextAlign(VerticalTextAlignEnum.BOTTOM);
         pageNumberField.setFontName(ReportStyles.FONT_DEJAVU_SANS_CONDENSED);
@@ -194,4 +282,14 @@ public class ReportAssembler {
 
         design.setPageFooter(pageFooterBand);
     }
+
+    private static final class CompositeTemplate {
+        private final JasperDesign design;
+        private final JasperReport report;
+
+        private CompositeTemplate(JasperDesign design, JasperReport report) {
+            this.design = design;
+            this.report = report;
+        }
+    }
 }
@@ -0,0 +1,94 @@
+package pl.lib.automation.compiler;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.design.JasperDesign;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Kompilacja wszystkich projektów jednego generowania naraz.
+ * Ten sam obiekt projektu pod wieloma kluczami jest kompilowany raz. Projekty z prostymi wyrażeniami
+ * są kompilowane bez javac w wątku wywołującym, a tylko pozostałe trafiają równolegle do pełnego kompilatora.
+ */
+public class BatchReportCompiler {
+
+    private final Executor executor;
+
+    public BatchReportCompiler() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public BatchReportCompiler(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Zwraca skompilowane raporty pod kluczami projektów, w kolejności wejścia.
+     * Błędy pozostałych projektów są dołączone do pierwszego jako suppressed.
+     */
+    public <K> Map<K, JasperReport> compileAll(Map<K, JasperDesign> designs) throws JRException {
+        Map<JasperDesign, JasperReport> compiled = new IdentityHashMap<>();
+        Map<JasperDesign, CompletableFuture<JasperReport>> pending = new IdentityHashMap<>();
+        for (JasperDesign design : designs.values()) {
+            if (compiled.containsKey(design) || pending.containsKey(design)) {
+                continue;
+            }
+            JasperReport report = SimpleExpressionCompiler.tryCompile(design);
+            if (report != null) {
+                compiled.put(design, report);
+            } else {
+                pending.put(design, CompletableFuture.supplyAsync(() -> compileUnchecked(design), executor));
+            }
+        }
+
+        JRException failure = null;
+        for (Map.Entry<JasperDesign, CompletableFuture<JasperReport>> entry : pending.entrySet()) {
+            try {
+                compiled.put(entry.getKey(), entry.getValue().join());
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                if (failure == null) {
+                    failure = cause instanceof JRException ? (JRException) cause
+                            : new JRException("Compilation of " + entry.getKey().getName() + " failed", cause);
+                } else {
+                    failure.addSuppressed(cause);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+
+        Map<K, JasperReport> result = new LinkedHashMap<>();
+        for (Map.Entry<K, JasperDesign> entry : designs.entrySet()) {
+            result.put(entry.getKey(), compiled.get(entry.getValue()));
+        }
+        return result;
+    }
+
+    public List<JasperReport> compileAll(List<JasperDesign> designs) throws JRException {
+        Map<Integer, JasperDesign> keyed = new LinkedHashMap<>();
+        for (int i = 0; i < designs.size(); i++) {
+            keyed.put(i, designs.get(i));
+        }
+        return new ArrayList<>(compileAll(keyed).values());
+    }
+
+    private static JasperReport compileUnchecked(JasperDesign design) {
+        try {
+            return JasperCompileManager.compileReport(design);
+        } catch (JRException e) {
+            throw new CompletionException(e);
+        }
+    }
+}
@@ -4,35 +4,29 @@ import net.sf.jasperreports.engine.*;
 import net.sf.jasperreports.engine.data.JRMapCollectionDataSource;
 import net.sf.jasperreports.engine.design.*;
 import net.sf.jasperreports.engine.type.*;
-import pl.lib.automation.analyzer.BudgetStructureAnalyzer;
-import pl.lib.automation.util.CurrencyFormatter;
 import pl.lib.config.BudgetTableConfig;
 import pl.lib.model.BudgetHierarchyNode;
 
 import java.awt.Color;
-import java.util.*;
+import java.math.BigDecimal;
 
 public class BudgetTableCompiler {
 
-    private final CurrencyFormatter currencyFormatter;
-    private final BudgetStructureAnalyzer budgetAnalyzer;
-
-    public BudgetTableCompiler() {
-        this.currencyFormatter = CurrencyFormatter.forPLN();
-        this.budgetAnalyzer = new BudgetStructureAnalyzer();
+    public JasperReport compileBudgetTable(BudgetHierarchyNode rootNode, BudgetTableConfig config, int availableWidth) throws JRException {
+        JasperReport report = SimpleExpressionCompiler.compile(createDesign(config, availableWidth));
+        return report;
     }
 
-    public JasperReport compileBudgetTable(BudgetHierarchyNode rootNode, BudgetTableConfig config, int availableWidth) throws JRException {
+    /**
+     * Projekt tabeli budżetowej; zależy tylko od konfiguracji i szerokości, nie od danych.
+     */
+    public JasperDesign createDesign(BudgetTableConfig config, int availableWidth) throws JRException {
         JasperDesign design = createBudgetTableDesign(availableWidth);
 
-        List<Map<String, Object>> flatData = convertTreeToFlatData(rootNode, config);
-
         addColumnsToDesign(design, config, availableWidth);
         addColumnHeaderBand(design, config, availableWidth);
         addDetailBand(design, config, availableWidth);
-
-        JasperReport report = JasperCompileManager.compileReport(design);
-        return report;
+        return design;
     }
 
     private JasperDesign createBudgetTableDesign(int width) throws JRException {
@@ -52,6 +46,8 @@ public class BudgetTableCompiler {
     }
 
     private void addColumnsToDesign(JasperDesign design, BudgetTableConfig config, int width) throws JRException {
+        Class<?> amountClass = config.isNumericAmounts() ? BigDecimal.class : String.class;
+
         JRDesignField codeField = new JRDesignField();
         codeField.setName("code");
         codeField.setValueClass(String.class);
@@ -69,25 +65,25 @@ public class BudgetTableCompiler {
 
         JRDesignField plannedField = new JRDesignField();
         plannedField.setName("planned");
-        plannedField.setValueClass(String.class);
+        plannedField.setValueClass(amountClass);
         design.addField(plannedField);
 
         JRDesignField actualField = new JRDesignField();
         actualField.setName("actual");
-        actualField.setValueClass(String.class);
+        actualField.setValueClass(amountClass);
         design.addField(actualField);
 
         if (config.isShowPercentages()) {
             JRDesignField percentField = new JRDesignField();
             percentField.setName("percent");
-            percentField.setValueClass(String.class);
+            percentField.setValueClass(amountClass);
             design.addField(percentField);
         }
 
         if (config.isShowDifferences()) {
             JRDesignField diffField = new JRDesignField();
             diffField.setName("difference");
-            diffField.setValueClass(String.class);
+            diffField.setValueClass(amountClass);
             design.addField(diffField);
         }
 
@@ -201,11 +197,13 @@ public class BudgetTableCompiler {
         int amountWidth = 100;
         JRDesignTextField plannedField = createTextField("planned", x, 0, amountWidth, columnHeight, design);
         plannedField.setHorizontalTextAlign(HorizontalTextAlignEnum.RIGHT);
+        applyNumericPattern(plannedField, config, config.getAmountPattern());
         detailBand.addElement(plannedField);
         x += amountWidth;
 
         JRDesignTextField actualField = createTextField("actual", x, 0, amountWidth, columnHeight, design);
         actualField.setHorizontalTextAlign(HorizontalTextAlignEnum.RIGHT);
+        applyNumericPattern(actualField, config, config.getAmountPattern());
         detailBand.addElement(actualField);
         x += amountWidth;
 
@@ -213,6 +211,7 @@ public class BudgetTableCompiler {
             int percentWidth = 60;
             JRDesignTextField percentField = createTextField("percent", x, 0, percentWidth, columnHeight, design);
             percentField.setHorizontalTextAlign(HorizontalTextAlignEnum.RIGHT);
+            applyNumericPattern(percentField, config, config.getPercentPattern());
             detailBand.addElement(percentField);
             x += percentWidth;
         }
@@ -221,12 +220,19 @@ public class BudgetTableCompiler {
             int diffWidth = 100;
             JRDesignTextField diffField = createTextField("difference", x, 0, diffWidth, columnHeight, design);
             diffField.setHorizontalTextAlign(HorizontalTextAlignEnum.RIGHT);
+            applyNumericPattern(diffField, config, config.getDifferencePattern());
             detailBand.addElement(diffField);
         }
 
         ((JRDesignSection) design.getDetailSection()).addBand(detailBand);
     }
 
+    private void applyNumericPattern(JRDesignTextField textField, BudgetTableConfig config, String pattern) {
+        if (config.isNumericAmounts()) {
+            textField.setPattern(pattern);
+        }
+    }
+
     private JRDesignTextField createTextField(String fieldName, int x, int y, int width, int height, JasperDesign design) throws JRException {
         JRDesignTextField textField = new JRDesignTextField();
         textField.setX(x);
@@ -259,50 +265,4 @@ public class BudgetTableCompiler {
 
         return textField;
     }
-
-    private List<Map<String, Object>> convertTreeToFlatData(BudgetHierarchyNode rootNode, BudgetTableConfig config) {
-        List<Map<String, Object>> flatData = new ArrayList<>();
-        List<BudgetHierarchyNode> flatTree = budgetAnalyzer.flattenTree(rootNode);
-
-        for (BudgetHierarchyNode node : flatTree) {
-            Map<String, Object> row = new HashMap<>();
-
-            row.put("code", node.getCode() != null ? node.getCode() : "");
-
-            String nameWithIndent = generateIndentation(node.getLevel(), config) + node.getName();
-            row.put("name", nameWithIndent);
-            row.put("indent", node.getLevel());
-
-            row.put("planned", currencyFormatter.formatAmountWithoutCurrency(node.getPlannedAmount()));
-            row.put("actual", currencyFormatter.formatAmountWithoutCurrency(node.getActualAmount()));
-
-            if (config.isShowPercentages()) {
-                row.put("percent", currencyFormatter.formatPercentDirect(node.getExecutionPercent()));
-            }
-
-            if (config.isShowDifferences()) {
-                row.put("difference", currencyFormatter.formatDifferenceWithoutCurrency(node.getDifference()));
-            }
-
-            boolean isBold = node.hasChildren() && config.isBoldSubtotals();
-            row.put("isBold", isBold);
-
-            flatData.add(row);
-        }
-
-        return flatData;
-    }
-
-    private String generateIndentation(int level, BudgetTableConfig config) {
-        if (!config.isIndentHierarchy() || level <= 1) {
-            return "";
-        }
-
-        int spaces = (level - 1) * config.getIndentSize();
-        StringBuilder indent = new StringBuilder();
-        for (int i = 0; i < spaces; i++) {
-            indent.append(" ");
-        }
-        return indent.toString();
-    }
 }
@@ -9,58 +9,112 @@ import net.sf.jasperreports.engine.type.EvaluationTimeEnum;
 import pl.lib.config.ChartConfig;
 import pl.lib.model.ChartType;
 
+import java.util.HashMap;
+import java.util.Map;
+
 public class ChartCompiler {
 
+    public static final String PARAM_TITLE = "CHART_TITLE";
+    public static final String PARAM_CATEGORY_AXIS_LABEL = "CHART_CATEGORY_AXIS_LABEL";
+    public static final String PARAM_VALUE_AXIS_LABEL = "CHART_VALUE_AXIS_LABEL";
+    public static final String PARAM_SERIES_NAME = "CHART_SERIES_NAME";
+
     public JRDesignChart compileChart(ChartConfig config, JsonNode data, int width) throws JRException {
-        if (config == null) {
-            throw new JRException("ChartConfig cannot be null");
+        validate(config);
+
+        JRDesignChart chart = createChart(config.getType(), config.isShow3D(), literal(defaultSeriesName(config.getType())));
+        configureChartBasics(chart, config.getWidth() > 0 ? config.getWidth() : width, config.getHeight(), config.isShowLegend());
+
+        if (config.getTitle() != null && !config.getTitle().isEmpty()) {
+            chart.setTitleExpression(createExpression(literal(config.getTitle())));
         }
-        if (config.getType() == null) {
+        setAxisLabels(chart,
+                config.getCategoryAxisLabel() != null ? literal(config.getCategoryAxisLabel()) : null,
+                config.getValueAxisLabel() != null ? literal(config.getValueAxisLabel()) : null);
+
+        return chart;
+    }
+
+    /**
+     * Wykres-szablon: tytuł, etykiety osi i nazwa serii są czytane z parametrów raportu,
+     * więc jeden skompilowany szablon obsługuje wszystkie wykresy o tym samym typie i rozmiarze.
+     */
+    public JRDesignChart compileChartTemplate(ChartType type, int width, int height, boolean showLegend, boolean show3D) throws JRException {
+        if (type == null) {
             throw new JRException("ChartType cannot be null");
         }
 
-        return switch (config.getType()) {
-            case PIE -> compilePieChart(config, width);
-            case LINE -> compileLineChart(config, width);
-            case AREA -> compileAreaChart(config, width);
-            case STACKED_BAR -> compileStackedBarChart(config, width);
-            default -> compileBarChart(config, width);
-        };
+        JRDesignChart chart = createChart(type, show3D, parameter(PARAM_SERIES_NAME));
+        configureChartBasics(chart, width, height, showLegend);
+        chart.setTitleExpression(createExpression(parameter(PARAM_TITLE)));
+        setAxisLabels(chart, parameter(PARAM_CATEGORY_AXIS_LABEL), parameter(PARAM_VALUE_AXIS_LABEL));
+
+        return chart;
     }
 
-    private JRDesignChart compileBarChart(ChartConfig config, int width) throws JRException {
-        JRDesignChart chart = new JRDesignChart(null, JRChart.CHART_TYPE_BAR);
-        configureChartBasics(chart, config, width);
+    public void declareTemplateParameters(JasperDesign design) throws JRException {
+        for (String name : new String[]{PARAM_TITLE, PARAM_CATEGORY_AXIS_LABEL, PARAM_VALUE_AXIS_LABEL, PARAM_SERIES_NAME}) {
+            JRDesignParameter parameter = new JRDesignParameter();
+            parameter.setName(name);
+            parameter.setValueClass(String.class);
+            design.addParameter(parameter);
+        }
+    }
 
+    /**
+     * Wartości parametrów szablonu dla konkretnego wykresu.
+     */
+    public Map<String, Object> createTemplateParameters(ChartConfig config) throws JRException {
+        validate(config);
+
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put(PARAM_TITLE, config.getTitle() != null && !config.getTitle().isEmpty() ? config.getTitle() : null);
+        parameters.put(PARAM_CATEGORY_AXIS_LABEL, config.getCategoryAxisLabel());
+        parameters.put(PARAM_VALUE_AXIS_LABEL, config.getValueAxisLabel());
+        parameters.put(PARAM_SERIES_NAME, defaultSeriesName(config.getType()));
+        return parameters;
+    }
 
-        JRDesignCategoryDataset dataset = new JRDesignCategoryDataset(null);
-        JRDesignCategorySeries series = new JRDesignCategorySeries();
+    public static String defaultSeriesName(ChartType type) {
+        return switch (type) {
+            case LINE -> "Trend";
+            case AREA -> "Obszar";
+            case STACKED_BAR -> "Serie";
+            default -> "Wartości";
+        };
+    }
 
-        series.setSeriesExpression(createExpression("\"Wartości\""));
-        series.setCategoryExpression(createExpression("$F{category}"));
-        series.setValueExpression(createExpression("$F{value}"));
+    private void validate(ChartConfig config) throws JRException {
+        if (config == null) {
+            throw new JRException("ChartConfig cannot be null");
+        }
+        if (config.getType() == null) {
+            throw new JRException("ChartType cannot be null");
+        }
+    }
 
-        dataset.addCategorySeries(series);
-        chart.setDataset(dataset);
+    private JRDesignChart createChart(ChartType type, boolean show3D, String seriesExpression) {
+        return switch (type) {
+            case PIE -> compilePieChart(show3D);
+            case LINE -> compileLineChart(seriesExpression);
+            case AREA -> createCategoryChart(JRChart.CHART_TYPE_AREA, seriesExpression);
+            case STACKED_BAR -> createCategoryChart(JRChart.CHART_TYPE_STACKEDBAR, seriesExpression);
+            default -> compileBarChart(seriesExpression);
+        };
+    }
+
+    private JRDesignChart compileBarChart(String seriesExpression) {
+        JRDesignChart chart = createCategoryChart(JRChart.CHART_TYPE_BAR, seriesExpression);
 
         JRDesignBarPlot plot = (JRDesignBarPlot) chart.getPlot();
         plot.setShowTickLabels(true);
         plot.setShowTickMarks(true);
 
-        if (config.getCategoryAxisLabel() != null) {
-            plot.setCategoryAxisLabelExpression(createExpression("\"" + config.getCategoryAxisLabel() + "\""));
-        }
-        if (config.getValueAxisLabel() != null) {
-            plot.setValueAxisLabelExpression(createExpression("\"" + config.getValueAxisLabel() + "\""));
-        }
-
         return chart;
     }
 
-    private JRDesignChart compilePieChart(ChartConfig config, int width) throws JRException {
-        JRDesignChart chart = new JRDesignChart(null,
-            config.isShow3D() ? JRChart.CHART_TYPE_PIE3D : JRChart.CHART_TYPE_PIE);
-        configureChartBasics(chart, config, width);
+    private JRDesignChart compilePieChart(boolean show3D) {
+        JRDesignChart chart = new JRDesignChart(null, show3D ? JRChart.CHART_TYPE_PIE3D : JRChart.CHART_TYPE_PIE);
 
         JRDesignPieDataset dataset = new JRDesignPieDataset(null);
         JRDesignPieSeries series = new JRDesignPieSeries();
@@ -74,43 +128,23 @@ public class ChartCompiler {
         return chart;
     }
 
-    private JRDesignChart compileLineChart(ChartConfig config, int width) throws JRException {
-        JRDesignChart chart = new JRDesignChart(null, JRChart.CHART_TYPE_LINE);
-        configureChartBasics(chart, config, width);
-
-        JRDesignCategoryDataset dataset = new JRDesignCategoryDataset(null);
-        JRDesignCategorySeries series = new JRDesignCategorySeries();
-
-        series.setSeriesExpression(createExpression("\"Trend\""));
-        series.setCategoryExpression(createExpression("$F{category}"));
-        series.setValueExpression(createExpression("$F{value}"));
-
-        dataset.addCategorySeries(series);
-        chart.setDataset(dataset);
-
+    private JRDesignChart compileLineChart(String seriesExpression) {
+        JRDesignChart chart = createCategoryChart(JRChart.CHART_TYPE_LINE, seriesExpression);
 
         JRDesignLinePlot plot = (JRDesignLinePlot) chart.getPlot();
         plot.setShowLines(true);
         plot.setShowShapes(true);
 
-        if (config.getCategoryAxisLabel() != null) {
-            plot.setCategoryAxisLabelExpression(createExpression("\"" + config.getCategoryAxisLabel() + "\""));
-        }
-        if (config.getValueAxisLabel() != null) {
-            plot.setValueAxisLabelExpression(createExpression("\"" + config.getValueAxisLabel() + "\""));
-        }
-
         return chart;
     }
 
-    private JRDesignChart compileAreaChart(ChartConfig config, int width) throws JRException {
-        JRDesignChart chart = new JRDesignChart(null, JRChart.CHART_TYPE_AREA);
-        configureChartBasics(chart, config, width);
+    private JRDesignChart createCategoryChart(byte chartType, String seriesExpression) {
+        JRDesignChart chart = new JRDesignChart(null, chartType);
 
         JRDesignCategoryDataset dataset = new JRDesignCategoryDataset(null);
         JRDesignCategorySeries series = new JRDesignCategorySeries();
 
-        series.setSeriesExpression(createExpression("\"Obszar\""));
+        series.setSeriesExpression(createExpression(seriesExpression));
         series.setCategoryExpression(createExpression("$F{category}"));
         series.setValueExpression(createExpression("$F{value}"));
 
@@ -120,33 +154,47 @@ public class ChartCompiler {
         return chart;
     }
 
-    private JRDesignChart compileStackedBarChart(ChartConfig config, int width) throws JRException {
-        JRDesignChart chart = new JRDesignChart(null, JRChart.CHART_TYPE_STACKEDBAR);
-        configureChartBasics(chart, config, width);
-
-        // Dataset - używamy standardowych pól
-        JRDesignCategoryDataset dataset = new JRDesignCategoryDataset(null);
-        JRDesignCategorySeries series = new JRDesignCategorySeries();
-
-        series.setSeriesExpression(createExpression("\"Serie\""));
-        series.setCategoryExpression(createExpression("$F{category}"));
-        series.setValueExpression(createExpression("$F{value}"));
-
-        dataset.addCategorySeries(series);
-        chart.setDataset(dataset);
-
-        return chart;
+    private void setAxisLabels(JRDesignChart chart, String categoryAxisLabel, String valueAxisLabel) {
+        if (chart.getPlot() instanceof JRDesignBarPlot) {
+            JRDesignBarPlot plot = (JRDesignBarPlot) chart.getPlot();
+            if (categoryAxisLabel != null) {
+                plot.setCategoryAxisLabelExpression(createExpression(categoryAxisLabel));
+            }
+            if (valueAxisLabel != null) {
+                plot.setValueAxisLabelExpression(createExpression(valueAxisLabel));
+            }
+        } else if (chart.getPlot() instanceof JRDesignLinePlot) {
+            JRDesignLinePlot plot = (JRDesignLinePlot) chart.getPlot();
+            if (categoryAxisLabel != null) {
+                plot.setCategoryAxisLabelExpression(createExpression(categoryAxisLabel));
+            }
+            if (valueAxisLabel != null) {
+                plot.setValueAxisLabelExpression(createExpression(valueAxisLabel));
+            }
+        } else if (chart.getPlot() instanceof JRDesignAreaPlot) {
+            JRDesignAreaPlot plot = (JRDesignAreaPlot) chart.getPlot();
+            if (categoryAxisLabel != null) {
+                plot.setCategoryAxisLabelExpression(createExpression(categoryAxisLabel));
+            }
+            if (valueAxisLabel != null) {
+                plot.setValueAxisLabelExpression(createExpression(valueAxisLabel));
+            }
+        }
     }
 
-    private void configureChartBasics(JRDesignChart chart, ChartConfig config, int width) {
-        chart.setWidth(config.getWidth() > 0 ? config.getWidth() : width);
-        chart.setHeight(config.getHeight());
-        chart.setShowLegend(config.isShowLegend());
+    private void configureChartBasics(JRDesignChart chart, int width, int height, boolean showLegend) {
+        chart.setWidth(width);
+        chart.setHeight(height);
+        chart.setShowLegend(showLegend);
         chart.setEvaluationTime(EvaluationTimeEnum.NOW);
+    }
 
-        if (config.getTitle() != null && !config.getTitle().isEmpty()) {
-            chart.setTitleExpression(createExpression("\"" + config.getTitle() + "\""));
-        }
+    private String literal(String text) {
+        return "\"" + text.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    private String parameter(String name) {
+        return "$P{" + name + "}";
     }
 
     private JRDesignExpression createExpression(String text) {
@@ -155,4 +203,3 @@ public class ChartCompiler {
         return expression;
     }
 }
-
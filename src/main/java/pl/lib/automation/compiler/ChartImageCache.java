@@ -0,0 +1,123 @@
+package pl.lib.automation.compiler;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.renderers.Renderable;
+import net.sf.jasperreports.renderers.SimpleDataRenderer;
+import pl.lib.automation.converter.ChartDataReducer.ChartSeries;
+import pl.lib.config.ChartConfig;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ograniczona pamięć podręczna (LRU) wyrenderowanych wykresów.
+ * Klucz to skrót SHA-256 konfiguracji wykresu, rozmiaru i danych, więc niezmieniony wykres nie jest rysowany ponownie.
+ */
+public class ChartImageCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 64;
+
+    private final ChartImageRenderer renderer = new ChartImageRenderer();
+    private final Map<String, Renderable> images;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public ChartImageCache() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    public ChartImageCache(int maxEntries) {
+        int capacity = Math.max(1, maxEntries);
+        this.images = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Renderable> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public Renderable getImage(ChartConfig config, ChartSeries series, int width, int height) throws JRException {
+        String key = cacheKey(config, series, width, height);
+        synchronized (images) {
+            Renderable cached = images.get(key);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached;
+            }
+        }
+
+        misses.incrementAndGet();
+        Renderable rendered = SimpleDataRenderer.getInstance(renderer.renderPng(config, series, width, height));
+        synchronized (images) {
+            images.put(key, rendered);
+        }
+        return rendered;
+    }
+
+    public int size() {
+        synchronized (images) {
+            return images.size();
+        }
+    }
+
+    public void clear() {
+        synchronized (images) {
+            images.clear();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    static String cacheKey(ChartConfig config, ChartSeries series, int width, int height) {
+        MessageDigest digest = sha256();
+        update(digest, String.valueOf(config.getType()));
+        update(digest, config.getTitle());
+        update(digest, config.getCategoryAxisLabel());
+        update(digest, config.getValueAxisLabel());
+        update(digest, config.isShowLegend() + ":" + config.isShow3D() + ":" + width + "x" + height);
+
+        byte[] number = new byte[Long.BYTES];
+        for (int i = 0; i < series.size(); i++) {
+            update(digest, series.getCategory(i));
+            long bits = Double.doubleToLongBits(series.getValue(i));
+            for (int b = 0; b < Long.BYTES; b++) {
+                number[b] = (byte) (bits >>> (8 * b));
+            }
+            digest.update(number);
+        }
+
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : digest.digest()) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        if (value == null) {
+            digest.update((byte) 0);
+            return;
+        }
+        digest.update((byte) 1);
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
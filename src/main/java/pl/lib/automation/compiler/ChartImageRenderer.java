@@ -0,0 +1,75 @@
+package pl.lib.automation.compiler;
+
+import net.sf.jasperreports.engine.JRException;
+import org.jfree.chart.ChartFactory;
+import org.jfree.chart.ChartUtilities;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.data.category.DefaultCategoryDataset;
+import org.jfree.data.general.DefaultPieDataset;
+import pl.lib.automation.converter.ChartDataReducer.ChartSeries;
+import pl.lib.config.ChartConfig;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * Renderuje wykres do PNG bezpośrednio przez JFreeChart, poza wypełnianiem raportu.
+ * Obraz jest rysowany w podwójnej rozdzielczości, żeby zachować ostrość w druku.
+ */
+public class ChartImageRenderer {
+
+    private static final int PRINT_SCALE = 2;
+
+    public byte[] renderPng(ChartConfig config, ChartSeries series, int width, int height) throws JRException {
+        if (config == null || config.getType() == null) {
+            throw new JRException("ChartConfig with chart type is required");
+        }
+
+        JFreeChart chart = createChart(config, series);
+        BufferedImage image = chart.createBufferedImage(width * PRINT_SCALE, height * PRINT_SCALE, width, height, null);
+        try {
+            return ChartUtilities.encodeAsPNG(image);
+        } catch (IOException e) {
+            throw new JRException("Failed to encode chart image: " + config.getTitle(), e);
+        }
+    }
+
+    private JFreeChart createChart(ChartConfig config, ChartSeries series) {
+        String title = config.getTitle() != null && !config.getTitle().isEmpty() ? config.getTitle() : null;
+        boolean legend = config.isShowLegend();
+
+        switch (config.getType()) {
+            case PIE: {
+                DefaultPieDataset dataset = new DefaultPieDataset();
+                for (int i = 0; i < series.size(); i++) {
+                    dataset.setValue(series.getCategory(i), series.getValue(i));
+                }
+                return config.isShow3D()
+                        ? ChartFactory.createPieChart3D(title, dataset, legend, false, false)
+                        : ChartFactory.createPieChart(title, dataset, legend, false, false);
+            }
+            case LINE:
+                return ChartFactory.createLineChart(title, config.getCategoryAxisLabel(), config.getValueAxisLabel(),
+                        categoryDataset(config, series), PlotOrientation.VERTICAL, legend, false, false);
+            case AREA:
+                return ChartFactory.createAreaChart(title, config.getCategoryAxisLabel(), config.getValueAxisLabel(),
+                        categoryDataset(config, series), PlotOrientation.VERTICAL, legend, false, false);
+            case STACKED_BAR:
+                return ChartFactory.createStackedBarChart(title, config.getCategoryAxisLabel(), config.getValueAxisLabel(),
+                        categoryDataset(config, series), PlotOrientation.VERTICAL, legend, false, false);
+            default:
+                return ChartFactory.createBarChart(title, config.getCategoryAxisLabel(), config.getValueAxisLabel(),
+                        categoryDataset(config, series), PlotOrientation.VERTICAL, legend, false, false);
+        }
+    }
+
+    private DefaultCategoryDataset categoryDataset(ChartConfig config, ChartSeries series) {
+        String seriesName = ChartCompiler.defaultSeriesName(config.getType());
+        DefaultCategoryDataset dataset = new DefaultCategoryDataset();
+        for (int i = 0; i < series.size(); i++) {
+            dataset.addValue(series.getValue(i), seriesName, series.getCategory(i));
+        }
+        return dataset;
+    }
+}
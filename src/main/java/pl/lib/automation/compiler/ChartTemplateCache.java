@@ -0,0 +1,193 @@
+package pl.lib.automation.compiler;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.design.*;
+import net.sf.jasperreports.engine.type.EvaluationTimeEnum;
+import net.sf.jasperreports.engine.type.HorizontalImageAlignEnum;
+import net.sf.jasperreports.engine.type.ScaleImageEnum;
+import net.sf.jasperreports.engine.type.SplitTypeEnum;
+import net.sf.jasperreports.renderers.Renderable;
+import pl.lib.api.ReportBuilder;
+import pl.lib.config.ChartConfig;
+import pl.lib.config.ReportTheme;
+import pl.lib.model.ChartType;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Pamięć podręczna skompilowanych podraportów wykresów.
+ * Szablon zależy tylko od typu, rozmiaru, legendy i 3D; tytuł, etykiety i nazwa serii są przekazywane parametrami
+ * (zob. {@link ChartCompiler#createTemplateParameters(ChartConfig)}).
+ */
+public class ChartTemplateCache {
+
+    public static final int DEFAULT_CHART_HEIGHT = 300;
+    public static final String PARAM_IMAGE = "CHART_IMAGE";
+
+    private static final ChartTemplateCache SHARED = new ChartTemplateCache();
+
+    private final ChartCompiler chartCompiler = new ChartCompiler();
+    private final ConcurrentMap<TemplateKey, JasperReport> templates = new ConcurrentHashMap<>();
+
+    public static ChartTemplateCache shared() {
+        return SHARED;
+    }
+
+    public JasperReport getTemplate(ChartConfig config, int width) throws JRException {
+        if (config == null || config.getType() == null) {
+            throw new JRException("ChartConfig with chart type is required");
+        }
+
+        int height = chartHeight(config);
+        TemplateKey key = new TemplateKey(config.getType(), width, height, config.isShowLegend(), config.isShow3D());
+
+        JasperReport template = templates.get(key);
+        if (template == null) {
+            JasperReport compiled = compileTemplate(key);
+            template = templates.putIfAbsent(key, compiled);
+            if (template == null) {
+                template = compiled;
+            }
+        }
+        return template;
+    }
+
+    /**
+     * Szablon z samym obrazem wykresu (parametr {@link #PARAM_IMAGE}), dla wykresów renderowanych poza wypełnianiem.
+     */
+    public JasperReport getImageTemplate(int width, int height) throws JRException {
+        // typ null oznacza szablon obrazu
+        TemplateKey key = new TemplateKey(null, width, height, false, false);
+
+        JasperReport template = templates.get(key);
+        if (template == null) {
+            JasperReport compiled = compileImageTemplate(key);
+            template = templates.putIfAbsent(key, compiled);
+            if (template == null) {
+                template = compiled;
+            }
+        }
+        return template;
+    }
+
+    public static int chartHeight(ChartConfig config) {
+        return config.getHeight() > 0 ? config.getHeight() : DEFAULT_CHART_HEIGHT;
+    }
+
+    public int size() {
+        return templates.size();
+    }
+
+    public void clear() {
+        templates.clear();
+    }
+
+    private JasperReport compileTemplate(TemplateKey key) throws JRException {
+        ReportBuilder builder = new ReportBuilder("ChartSubreport")
+                .withTheme(ReportTheme.DEFAULT)
+                .withPageFormat("A4")
+                .withMargins(0, 0, 0, 0)
+                .withTitleBand(false)
+                .withPageFooter(false)
+                .withSummaryBand(true)
+                .withColumnWidth(key.width);
+
+        JasperDesign design = builder.getDesign();
+        design.setName("ChartTemplate_" + key.type + "_" + key.width + "x" + key.height);
+        chartCompiler.declareTemplateParameters(design);
+
+        JRDesignField categoryField = new JRDesignField();
+        categoryField.setName("category");
+        categoryField.setValueClass(String.class);
+        design.addField(categoryField);
+
+        JRDesignField valueField = new JRDesignField();
+        valueField.setName("value");
+        valueField.setValueClass(Double.class);
+        design.addField(valueField);
+
+        JRDesignBand summaryBand = new JRDesignBand();
+        summaryBand.setHeight(key.height);
+        summaryBand.setSplitType(SplitTypeEnum.STRETCH);
+
+        JRDesignChart chart = chartCompiler.compileChartTemplate(key.type, key.width, key.height, key.showLegend, key.show3D);
+        chart.setX(0);
+        chart.setY(0);
+        chart.setEvaluationTime(EvaluationTimeEnum.REPORT);
+
+        summaryBand.addElement(chart);
+        design.setSummary(summaryBand);
+
+        return SimpleExpressionCompiler.compile(design);
+    }
+
+    private JasperReport compileImageTemplate(TemplateKey key) throws JRException {
+        ReportBuilder builder = new ReportBuilder("ChartImageSubreport")
+                .withTheme(ReportTheme.DEFAULT)
+                .withPageFormat("A4")
+                .withMargins(0, 0, 0, 0)
+                .withTitleBand(false)
+                .withPageFooter(false)
+                .withSummaryBand(true)
+                .withColumnWidth(key.width);
+
+        JasperDesign design = builder.getDesign();
+        design.setName("ChartImageTemplate_" + key.width + "x" + key.height);
+
+        JRDesignParameter imageParameter = new JRDesignParameter();
+        imageParameter.setName(PARAM_IMAGE);
+        imageParameter.setValueClass(Renderable.class);
+        design.addParameter(imageParameter);
+
+        JRDesignBand summaryBand = new JRDesignBand();
+        summaryBand.setHeight(key.height);
+        summaryBand.setSplitType(SplitTypeEnum.STRETCH);
+
+        JRDesignImage image = new JRDesignImage(design);
+        image.setX(0);
+        image.setY(0);
+        image.setWidth(key.width);
+        image.setHeight(key.height);
+        image.setScaleImage(ScaleImageEnum.RETAIN_SHAPE);
+        image.setHorizontalImageAlign(HorizontalImageAlignEnum.CENTER);
+        image.setExpression(new JRDesignExpression("$P{" + PARAM_IMAGE + "}"));
+
+        summaryBand.addElement(image);
+        design.setSummary(summaryBand);
+
+        return SimpleExpressionCompiler.compile(design);
+    }
+
+    private static final class TemplateKey {
+        private final ChartType type;
+        private final int width;
+        private final int height;
+        private final boolean showLegend;
+        private final boolean show3D;
+
+        private TemplateKey(ChartType type, int width, int height, boolean showLegend, boolean show3D) {
+            this.type = type;
+            this.width = width;
+            this.height = height;
+            this.showLegend = showLegend;
+            this.show3D = show3D;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof TemplateKey)) return false;
+            TemplateKey that = (TemplateKey) o;
+            return width == that.width && height == that.height && showLegend == that.showLegend
+                    && show3D == that.show3D && type == that.type;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, width, height, showLegend, show3D);
+        }
+    }
+}
@@ -0,0 +1,1000 @@
+package pl.lib.automation.compiler;
+
+import net.sf.jasperreports.engine.JRException;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * Wyrażenie raportu w ograniczonym podzbiorze Javy, interpretowane bez kompilacji.
+ * Obsługuje odwołania {@code $F{}}, {@code $P{}}, {@code $V{}}, literały, operatory arytmetyczne, porównania,
+ * operatory logiczne, {@code ?:} oraz kilka metod i konstruktorów używanych przez bibliotekę
+ * (np. {@code equals}, {@code compareTo}, {@code Integer.valueOf}, {@code new java.math.BigDecimal("...")}).
+ * Wyrażenia spoza tego podzbioru powodują {@link JRException} przy parsowaniu.
+ * Parser śledzi statyczne typy Javy i odrzuca konstrukcje, których wynik zależy od typu nieznanego interpreterowi
+ * (np. {@code +} na referencjach nieznanego typu, konstruktor {@code BigDecimal} z argumentem typu Object).
+ */
+public final class SimpleExpression implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String text;
+    private final Node root;
+
+    private SimpleExpression(String text, Node root) {
+        this.text = text;
+        this.root = root;
+    }
+
+    /**
+     * Parsowanie bez typów pól, parametrów i zmiennych; odwołania mają typ {@code Object}.
+     */
+    public static SimpleExpression parse(String text) throws JRException {
+        return parse(text, (kind, name) -> Object.class);
+    }
+
+    static SimpleExpression parse(String text, Types types) throws JRException {
+        if (text == null || text.trim().isEmpty()) {
+            return new SimpleExpression(text, new Literal(null, NULL_TYPE, false));
+        }
+        return new SimpleExpression(text, new Parser(text, types).parseAll());
+    }
+
+    public static boolean isSupported(String text) {
+        try {
+            parse(text);
+            return true;
+        } catch (JRException e) {
+            return false;
+        }
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    Object evaluate(Scope scope) {
+        return root.evaluate(scope);
+    }
+
+    /**
+     * Zadeklarowane klasy pól ({@code 'F'}), parametrów ({@code 'P'}) i zmiennych ({@code 'V'}).
+     */
+    interface Types {
+        /**
+         * Klasa wartości albo null, gdy projekt nie deklaruje takiej nazwy.
+         */
+        Class<?> of(char kind, String name);
+    }
+
+    /**
+     * Źródło wartości pól, parametrów i zmiennych (bieżących, poprzednich albo szacowanych).
+     */
+    interface Scope {
+        Object field(String name);
+
+        Object parameter(String name);
+
+        Object variable(String name);
+    }
+
+    private abstract static class Node implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Statyczny typ wyniku; dla typów prostych klasa opakowania, np. {@code Integer} dla {@code int}.
+         */
+        final Class<?> type;
+
+        /**
+         * Czy wynik ma w Javie typ prosty; od tego zależy znaczenie {@code ==}.
+         */
+        final boolean primitive;
+
+        Node(Class<?> type, boolean primitive) {
+            this.type = type;
+            this.primitive = primitive;
+        }
+
+        abstract Object evaluate(Scope scope);
+    }
+
+    private static final class Literal extends Node {
+        private static final long serialVersionUID = 1L;
+        private final Object value;
+
+        Literal(Object value, Class<?> type, boolean primitive) {
+            super(type, primitive);
+            this.value = value;
+        }
+
+        @Override
+        Object evaluate(Scope scope) {
+            return value;
+        }
+    }
+
+    private static final class Reference extends Node {
+        private static final long serialVersionUID = 1L;
+        private final char kind;
+        private final String name;
+
+        Reference(char kind, String name, Class<?> type) {
+            super(type, false);
+            this.kind = kind;
+            this.name = name;
+        }
+
+        @Override
+        Object evaluate(Scope scope) {
+            switch (kind) {
+                case 'F':
+                    return scope.field(name);
+                case 'P':
+                    return scope.parameter(name);
+                default:
+                    return scope.variable(name);
+            }
+        }
+    }
+
+    private static final class Unary extends Node {
+        private static final long serialVersionUID = 1L;
+        private final char operator;
+        private final Node operand;
+
+        Unary(char operator, Node operand, Class<?> type) {
+            super(type, true);
+            this.operator = operator;
+            this.operand = operand;
+        }
+
+        @Override
+        Object evaluate(Scope scope) {
+            Object value = operand.evaluate(scope);
+            if (operator == '!') {
+                return !(Boolean) value;
+            }
+            Number number = number(value);
+            if (number instanceof Double || number instanceof Float) return -number.doubleValue();
+            if (number instanceof Long) return -number.longValue();
+            return -number.intValue();
+        }
+    }
+
+    private static final class Binary extends Node {
+        private static final long serialVersionUID = 1L;
+        private final String operator;
+        private final Node left;
+        private final Node right;
+        private final boolean concat;
+
+        Binary(String operator, Node left, Node right, Class<?> type, boolean primitive) {
+            super(type, primitive);
+            this.operator = operator;
+            this.left = left;
+            this.right = right;
+            this.concat = "+".equals(operator) && type == String.class;
+        }
+
+        @Override
+        Object evaluate(Scope scope) {
+            switch (operator) {
+                case "&&":
+                    return (Boolean) left.evaluate(scope) && (Boolean) right.evaluate(scope);
+                case "||":
+                    return (Boolean) left.evaluate(scope) || (Boolean) right.evaluate(scope);
+                default:
+                    break;
+            }
+
+            Object a = left.evaluate(scope);
+            Object b = right.evaluate(scope);
+            switch (operator) {
+                case "==":
+                    return same(a, b);
+                case "!=":
+                    return !same(a, b);
+                case "+":
+                    if (concat) {
+                        return String.valueOf(a) + b;
+                    }
+                    return arithmetic(a, b);
+                default:
+                    return arithmetic(a, b);
+            }
+        }
+
+        private boolean same(Object a, Object b) {
+            if (!left.primitive && !right.primitive) {
+                return a == b;
+            }
+            if (a == null || b == null) {
+                throw new NullPointerException("Operand of " + operator + " is null");
+            }
+            if (a instanceof Number && b instanceof Number) {
+                return compareNumbers(number(a), number(b)) == 0;
+            }
+            return a.equals(b);
+        }
+
+        private Object arithmetic(Object a, Object b) {
+            Number x = number(a);
+            Number y = number(b);
+            switch (operator) {
+                case "<":
+                    return compareNumbers(x, y) < 0;
+                case ">":
+                    return compareNumbers(x, y) > 0;
+                case "<=":
+                    return compareNumbers(x, y) <= 0;
+                case ">=":
+                    return compareNumbers(x, y) >= 0;
+                default:
+                    break;
+            }
+            if (isFloating(x) || isFloating(y)) {
+                double p = x.doubleValue();
+                double q = y.doubleValue();
+                switch (operator) {
+                    case "+": return p + q;
+                    case "-": return p - q;
+                    case "*": return p * q;
+                    case "/": return p / q;
+                    default: return p % q;
+                }
+            }
+            if (x instanceof Long || y instanceof Long) {
+                long p = x.longValue();
+                long q = y.longValue();
+                switch (operator) {
+                    case "+": return p + q;
+                    case "-": return p - q;
+                    case "*": return p * q;
+                    case "/": return p / q;
+                    default: return p % q;
+                }
+            }
+            int p = x.intValue();
+            int q = y.intValue();
+            switch (operator) {
+                case "+": return p + q;
+                case "-": return p - q;
+                case "*": return p * q;
+                case "/": return p / q;
+                default: return p % q;
+            }
+        }
+    }
+
+    private static final class Conditional extends Node {
+        private static final long serialVersionUID = 1L;
+        private final Node condition;
+        private final Node whenTrue;
+        private final Node whenFalse;
+
+        Conditional(Node condition, Node whenTrue, Node whenFalse, Class<?> type) {
+            super(type, whenTrue.primitive && whenFalse.primitive);
+            this.condition = condition;
+            this.whenTrue = whenTrue;
+            this.whenFalse = whenFalse;
+        }
+
+        @Override
+        Object evaluate(Scope scope) {
+            return (Boolean) condition.evaluate(scope) ? whenTrue.evaluate(scope) : whenFalse.evaluate(scope);
+        }
+    }
+
+    private static final class MethodCall extends Node {
+        private static final long serialVersionUID = 1L;
+        private final Node target;
+        private final String method;
+        private final Node argument;
+
+        MethodCall(Node target, String method, Node argument, Class<?> type) {
+            super(type, !"toString".equals(method));
+            this.target = target;
+            this.method = method;
+            this.argument = argument;
+        }
+
+        @Override
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Object evaluate(Scope scope) {
+            Object value = target.evaluate(scope);
+            if (value == null) {
+                throw new NullPointerException("Cannot invoke " + method + "() on null");
+            }
+            switch (method) {
+                case "equals":
+                    return value.equals(argument.evaluate(scope));
+                case "compareTo":
+                    return ((Comparable) value).compareTo(argument.evaluate(scope));
+                case "contains":
+                    return ((String) value).contains((CharSequence) argument.evaluate(scope));
+                case "startsWith":
+                    return ((String) value).startsWith((String) argument.evaluate(scope));
+                case "toString":
+                    return value.toString();
+                case "intValue":
+                    return ((Number) value).intValue();
+                case "longValue":
+                    return ((Number) value).longValue();
+                case "doubleValue":
+                    return ((Number) value).doubleValue();
+                default:
+                    return ((Boolean) value).booleanValue();
+            }
+        }
+    }
+
+    private static final class Construction extends Node {
+        private static final long serialVersionUID = 1L;
+        private final String typeName;
+        private final Node argument;
+        private final boolean constructor;
+
+        Construction(String typeName, Node argument, Class<?> type, boolean constructor) {
+            super(type, false);
+            this.typeName = typeName;
+            this.argument = argument;
+            this.constructor = constructor;
+        }
+
+        /**
+         * Przeciążenia wybierane jak w javac, po statycznym typie argumentu sprawdzonym przy parsowaniu.
+         */
+        @Override
+        Object evaluate(Scope scope) {
+            Object value = argument != null ? argument.evaluate(scope) : null;
+            boolean text = argument != null && argument.type == String.class;
+            switch (typeName) {
+                case "Integer":
+                    return text ? Integer.valueOf((String) value) : Integer.valueOf(number(value).intValue());
+                case "Long":
+                    return text ? Long.valueOf((String) value) : Long.valueOf(number(value).longValue());
+                case "Double":
+                    return text ? Double.valueOf((String) value) : Double.valueOf(number(value).doubleValue());
+                case "Boolean":
+                    if (text) {
+                        return Boolean.valueOf((String) value);
+                    }
+                    if (value == null) {
+                        throw new NullPointerException("Boolean operand is null");
+                    }
+                    return value;
+                case "BigDecimal":
+                    if (text) {
+                        return new BigDecimal((String) value);
+                    }
+                    return isFloatingType(argument.type) ? new BigDecimal(number(value).doubleValue()) : BigDecimal.valueOf(number(value).longValue());
+                case "String":
+                    if (constructor) {
+                        if (value == null) {
+                            throw new NullPointerException("String argument is null");
+                        }
+                        return value;
+                    }
+                    return String.valueOf(value);
+                default:
+                    return new java.util.Date();
+            }
+        }
+    }
+
+    private static Number number(Object value) {
+        if (value == null) {
+            throw new NullPointerException("Numeric operand is null");
+        }
+        if (value instanceof Integer || value instanceof Long || value instanceof Double
+                || value instanceof Float || value instanceof Short || value instanceof Byte) {
+            return (Number) value;
+        }
+        if (value instanceof Character) {
+            return (int) (Character) value;
+        }
+        throw new IllegalArgumentException("Unsupported numeric operand: " + value.getClass().getName());
+    }
+
+    /**
+     * Typ literału {@code null}.
+     */
+    private static final Class<?> NULL_TYPE = Void.class;
+
+    /**
+     * Typy liczbowe z arytmetyką Javy (bez {@code float} i {@code BigDecimal}).
+     */
+    private static boolean isNumericType(Class<?> type) {
+        return isIntType(type) || type == Long.class || type == Double.class;
+    }
+
+    private static boolean isIntType(Class<?> type) {
+        return type == Integer.class || type == Short.class || type == Byte.class;
+    }
+
+    private static boolean isFloatingType(Class<?> type) {
+        return type == Double.class || type == Float.class;
+    }
+
+    private static Class<?> promote(Class<?> left, Class<?> right) {
+        if (left == Double.class || right == Double.class) {
+            return Double.class;
+        }
+        if (left == Long.class || right == Long.class) {
+            return Long.class;
+        }
+        return Integer.class;
+    }
+
+    private static boolean isFloating(Number number) {
+        return number instanceof Double || number instanceof Float;
+    }
+
+    private static int compareNumbers(Number x, Number y) {
+        if (isFloating(x) || isFloating(y)) {
+            return Double.compare(x.doubleValue(), y.doubleValue());
+        }
+        return Long.compare(x.longValue(), y.longValue());
+    }
+
+    /**
+     * Parser zstępujący z priorytetami operatorów jak w Javie.
+     */
+    private static final class Parser {
+        private final String text;
+        private final Types types;
+        private int position;
+
+        Parser(String text, Types types) {
+            this.text = text;
+            this.types = types;
+        }
+
+        Node parseAll() throws JRException {
+            Node node = conditional();
+            skipWhitespace();
+            if (position < text.length()) {
+                throw unsupported();
+            }
+            return node;
+        }
+
+        private Node conditional() throws JRException {
+            Node condition = binary(0);
+            if (accept("?")) {
+                requireBoolean(condition);
+                Node whenTrue = conditional();
+                expect(":");
+                Node whenFalse = conditional();
+                return new Conditional(condition, whenTrue, whenFalse, conditionalType(whenTrue, whenFalse));
+            }
+            return condition;
+        }
+
+        /**
+         * Bez rozpakowania i promocji: obie gałęzie referencyjne albo obie tego samego typu prostego.
+         */
+        private Class<?> conditionalType(Node whenTrue, Node whenFalse) throws JRException {
+            if (whenTrue.primitive || whenFalse.primitive) {
+                if (whenTrue.primitive && whenFalse.primitive && whenTrue.type == whenFalse.type) {
+                    return whenTrue.type;
+                }
+                throw unsupported();
+            }
+            if (whenTrue.type != whenFalse.type && isNumericType(whenTrue.type) && isNumericType(whenFalse.type)) {
+                // dwa różne opakowania liczbowe javac rozpakowuje i promuje
+                throw unsupported();
+            }
+            if (whenTrue.type == whenFalse.type || whenFalse.type == NULL_TYPE) {
+                return whenTrue.type;
+            }
+            return whenTrue.type == NULL_TYPE ? whenFalse.type : Object.class;
+        }
+
+        private static final String[][] LEVELS = {
+                {"||"},
+                {"&&"},
+                {"==", "!="},
+                {"<=", ">=", "<", ">"},
+                {"+", "-"},
+                {"*", "/", "%"}
+        };
+
+        private Node binary(int level) throws JRException {
+            if (level == LEVELS.length) {
+                return unary();
+            }
+            Node left = binary(level + 1);
+            while (true) {
+                String operator = acceptAny(LEVELS[level]);
+                if (operator == null) {
+                    return left;
+                }
+                Node right = binary(level + 1);
+                left = combine(operator, left, right);
+            }
+        }
+
+        private Node combine(String operator, Node left, Node right) throws JRException {
+            switch (operator) {
+                case "||":
+                case "&&":
+                    requireBoolean(left);
+                    requireBoolean(right);
+                    return new Binary(operator, left, right, Boolean.class, true);
+                case "==":
+                case "!=":
+                    requireComparable(left, right);
+                    return new Binary(operator, left, right, Boolean.class, true);
+                case "+":
+                    if (left.type == String.class || right.type == String.class) {
+                        return new Binary(operator, left, right, String.class, false);
+                    }
+                    break;
+                default:
+                    break;
+            }
+            requireNumeric(left);
+            requireNumeric(right);
+            switch (operator) {
+                case "<":
+                case ">":
+                case "<=":
+                case ">=":
+                    return new Binary(operator, left, right, Boolean.class, true);
+                default:
+                    return new Binary(operator, left, right, promote(left.type, right.type), true);
+            }
+        }
+
+        /**
+         * {@code ==} na dwóch referencjach porównuje tożsamość; z typem prostym po drugiej stronie - wartości tego samego rodzaju.
+         */
+        private void requireComparable(Node left, Node right) throws JRException {
+            if (!left.primitive && !right.primitive) {
+                return;
+            }
+            boolean numeric = isNumericType(left.type) && isNumericType(right.type);
+            boolean logical = left.type == Boolean.class && right.type == Boolean.class;
+            if (!numeric && !logical) {
+                throw unsupported();
+            }
+        }
+
+        private void requireBoolean(Node node) throws JRException {
+            if (node.type != Boolean.class) {
+                throw unsupported();
+            }
+        }
+
+        private void requireNumeric(Node node) throws JRException {
+            if (!isNumericType(node.type)) {
+                throw unsupported();
+            }
+        }
+
+        private Node unary() throws JRException {
+            if (accept("!")) {
+                Node operand = unary();
+                requireBoolean(operand);
+                return new Unary('!', operand, Boolean.class);
+            }
+            if (accept("-")) {
+                Node operand = unary();
+                requireNumeric(operand);
+                return new Unary('-', operand, promote(operand.type, Integer.class));
+            }
+            return postfix(primary());
+        }
+
+        private Node postfix(Node target) throws JRException {
+            Node node = target;
+            while (accept(".")) {
+                String method = identifier();
+                expect("(");
+                Node argument = null;
+                Class<?> type;
+                switch (method) {
+                    case "equals":
+                        requireReference(node);
+                        argument = conditional();
+                        type = Boolean.class;
+                        break;
+                    case "compareTo":
+                        if (node.primitive || !Comparable.class.isAssignableFrom(node.type)) {
+                            throw unsupported();
+                        }
+                        argument = conditional();
+                        if (argument.type != node.type && argument.type != NULL_TYPE) {
+                            throw unsupported();
+                        }
+                        type = Integer.class;
+                        break;
+                    case "contains":
+                    case "startsWith":
+                        if (node.type != String.class) {
+                            throw unsupported();
+                        }
+                        argument = conditional();
+                        if (argument.type != String.class && argument.type != NULL_TYPE) {
+                            throw unsupported();
+                        }
+                        type = Boolean.class;
+                        break;
+                    case "toString":
+                        requireReference(node);
+                        type = String.class;
+                        break;
+                    case "intValue":
+                    case "longValue":
+                    case "doubleValue":
+                        if (node.primitive || !Number.class.isAssignableFrom(node.type)) {
+                            throw unsupported();
+                        }
+                        type = "intValue".equals(method) ? Integer.class : "longValue".equals(method) ? Long.class : Double.class;
+                        break;
+                    case "booleanValue":
+                        if (node.primitive || node.type != Boolean.class) {
+                            throw unsupported();
+                        }
+                        type = Boolean.class;
+                        break;
+                    default:
+                        throw unsupported();
+                }
+                expect(")");
+                node = new MethodCall(node, method, argument, type);
+            }
+            return node;
+        }
+
+        private void requireReference(Node node) throws JRException {
+            if (node.primitive || node.type == NULL_TYPE) {
+                throw unsupported();
+            }
+        }
+
+        private Node primary() throws JRException {
+            skipWhitespace();
+            if (position >= text.length()) {
+                throw unsupported();
+            }
+            char c = text.charAt(position);
+            if (c == '$') {
+                return reference();
+            }
+            if (c == '"') {
+                return new Literal(stringLiteral(), String.class, false);
+            }
+            if (Character.isDigit(c)) {
+                return numberLiteral();
+            }
+            if (c == '(') {
+                position++;
+                Node node = conditional();
+                expect(")");
+                return node;
+            }
+            if (Character.isJavaIdentifierStart(c)) {
+                return qualified();
+            }
+            throw unsupported();
+        }
+
+        private Node reference() throws JRException {
+            if (position + 2 >= text.length() || text.charAt(position + 2) != '{') {
+                throw unsupported();
+            }
+            char kind = text.charAt(position + 1);
+            if (kind != 'F' && kind != 'P' && kind != 'V') {
+                throw unsupported();
+            }
+            int end = text.indexOf('}', position + 3);
+            if (end < 0) {
+                throw unsupported();
+            }
+            String name = text.substring(position + 3, end);
+            Class<?> type = types.of(kind, name);
+            if (type == null) {
+                throw unsupported();
+            }
+            position = end + 1;
+            return new Reference(kind, name, type);
+        }
+
+        private Node qualified() throws JRException {
+            String name = qualifiedName(false);
+            switch (name) {
+                case "true":
+                    return new Literal(Boolean.TRUE, Boolean.class, true);
+                case "false":
+                    return new Literal(Boolean.FALSE, Boolean.class, true);
+                case "null":
+                    return new Literal(null, NULL_TYPE, false);
+                case "Boolean.TRUE":
+                case "java.lang.Boolean.TRUE":
+                    return new Literal(Boolean.TRUE, Boolean.class, false);
+                case "Boolean.FALSE":
+                case "java.lang.Boolean.FALSE":
+                    return new Literal(Boolean.FALSE, Boolean.class, false);
+                case "new":
+                    return construction();
+                default:
+                    break;
+            }
+
+            String type = simpleType(name.endsWith(".valueOf") ? name.substring(0, name.length() - ".valueOf".length()) : null);
+            if (type == null || "Date".equals(type) || "BigDecimal".equals(type)) {
+                throw unsupported();
+            }
+            expect("(");
+            Node argument = conditional();
+            expect(")");
+            return new Construction(type, argument, constructedType(type, argument, false), false);
+        }
+
+        private Node construction() throws JRException {
+            String type = simpleType(qualifiedName(true));
+            if (type == null) {
+                throw unsupported();
+            }
+            expect("(");
+            if ("Date".equals(type)) {
+                expect(")");
+                return new Construction(type, null, java.util.Date.class, true);
+            }
+            Node argument = conditional();
+            expect(")");
+            return new Construction(type, argument, constructedType(type, argument, true), true);
+        }
+
+        /**
+         * Typ wyniku konstruktora albo {@code valueOf}; argumenty, dla których javac wybrałby inne przeciążenie
+         * niż interpreter (albo żadne), są odrzucane.
+         */
+        private Class<?> constructedType(String type, Node argument, boolean constructor) throws JRException {
+            Class<?> argumentType = argument.type;
+            boolean text = argumentType == String.class;
+            boolean supported;
+            switch (type) {
+                case "Integer":
+                    supported = text || isIntType(argumentType);
+                    return checked(supported, Integer.class);
+                case "Long":
+                    supported = text || isIntType(argumentType) || argumentType == Long.class;
+                    return checked(supported, Long.class);
+                case "Double":
+                    supported = text || isNumericType(argumentType);
+                    return checked(supported, Double.class);
+                case "Boolean":
+                    supported = text || argumentType == Boolean.class;
+                    return checked(supported, Boolean.class);
+                case "BigDecimal":
+                    supported = text || isNumericType(argumentType);
+                    return checked(supported, BigDecimal.class);
+                default:
+                    // String.valueOf(null) w javac wybiera valueOf(char[])
+                    supported = constructor ? text : argumentType != NULL_TYPE;
+                    return checked(supported, String.class);
+            }
+        }
+
+        private Class<?> checked(boolean supported, Class<?> type) throws JRException {
+            if (!supported) {
+                throw unsupported();
+            }
+            return type;
+        }
+
+        private String simpleType(String name) {
+            if (name == null) {
+                return null;
+            }
+            switch (name) {
+                case "Integer":
+                case "java.lang.Integer":
+                    return "Integer";
+                case "Long":
+                case "java.lang.Long":
+                    return "Long";
+                case "Double":
+                case "java.lang.Double":
+                    return "Double";
+                case "Boolean":
+                case "java.lang.Boolean":
+                    return "Boolean";
+                case "String":
+                case "java.lang.String":
+                    return "String";
+                case "java.math.BigDecimal":
+                    return "BigDecimal";
+                case "Date":
+                case "java.util.Date":
+                    return "Date";
+                default:
+                    return null;
+            }
+        }
+
+        /**
+         * Nazwa kwalifikowana; w nazwie typu po {@code new} nawias kończy nazwę, poza nią tylko {@code valueOf(}.
+         */
+        private String qualifiedName(boolean typeName) throws JRException {
+            StringBuilder name = new StringBuilder(identifier());
+            if ("new".contentEquals(name)) {
+                return "new";
+            }
+            while (true) {
+                int mark = position;
+                if (!accept(".")) {
+                    return name.toString();
+                }
+                skipWhitespace();
+                if (position >= text.length() || !Character.isJavaIdentifierStart(text.charAt(position))) {
+                    position = mark;
+                    return name.toString();
+                }
+                String part = identifier();
+                skipWhitespace();
+                boolean call = position < text.length() && text.charAt(position) == '(';
+                // metoda instancji (np. TRUE.equals) kończy nazwę kwalifikowaną
+                if (call && !typeName && !"valueOf".equals(part)) {
+                    position = mark;
+                    return name.toString();
+                }
+                name.append('.').append(part);
+                if (call) {
+                    return name.toString();
+                }
+            }
+        }
+
+        private String identifier() throws JRException {
+            skipWhitespace();
+            int start = position;
+            if (position >= text.length() || !Character.isJavaIdentifierStart(text.charAt(position))) {
+                throw unsupported();
+            }
+            position++;
+            while (position < text.length() && Character.isJavaIdentifierPart(text.charAt(position))) {
+                position++;
+            }
+            return text.substring(start, position);
+        }
+
+        private String stringLiteral() throws JRException {
+            StringBuilder value = new StringBuilder();
+            position++;
+            while (position < text.length()) {
+                char c = text.charAt(position++);
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                if (position >= text.length()) {
+                    break;
+                }
+                char escape = text.charAt(position++);
+                switch (escape) {
+                    case 'n': value.append('\n'); break;
+                    case 't': value.append('\t'); break;
+                    case 'r': value.append('\r'); break;
+                    case 'b': value.append('\b'); break;
+                    case 'f': value.append('\f'); break;
+                    case '"': value.append('"'); break;
+                    case '\'': value.append('\''); break;
+                    case '\\': value.append('\\'); break;
+                    case 'u':
+                        if (position + 4 > text.length()) {
+                            throw unsupported();
+                        }
+                        try {
+                            value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw unsupported();
+                        }
+                        position += 4;
+                        break;
+                    default:
+                        throw unsupported();
+                }
+            }
+            throw unsupported();
+        }
+
+        private Node numberLiteral() throws JRException {
+            int start = position;
+            while (position < text.length() && Character.isDigit(text.charAt(position))) {
+                position++;
+            }
+            boolean decimal = false;
+            if (position + 1 < text.length() && text.charAt(position) == '.' && Character.isDigit(text.charAt(position + 1))) {
+                decimal = true;
+                position++;
+                while (position < text.length() && Character.isDigit(text.charAt(position))) {
+                    position++;
+                }
+            }
+            String digits = text.substring(start, position);
+            char suffix = position < text.length() ? text.charAt(position) : ' ';
+            try {
+                if (suffix == 'L' || suffix == 'l') {
+                    position++;
+                    return new Literal(Long.valueOf(digits), Long.class, true);
+                }
+                if (suffix == 'd' || suffix == 'D') {
+                    position++;
+                    return new Literal(Double.valueOf(digits), Double.class, true);
+                }
+                if (Character.isJavaIdentifierPart(suffix)) {
+                    throw unsupported();
+                }
+                return decimal ? new Literal(Double.valueOf(digits), Double.class, true) : new Literal(Integer.valueOf(digits), Integer.class, true);
+            } catch (NumberFormatException e) {
+                throw unsupported();
+            }
+        }
+
+        private String acceptAny(String[] operators) {
+            skipWhitespace();
+            for (String operator : operators) {
+                if (text.startsWith(operator, position) && !continuesOperator(operator)) {
+                    position += operator.length();
+                    return operator;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Chroni przed odczytaniem {@code <} z {@code <=}, {@code !} z {@code !=} albo {@code &} zamiast {@code &&}.
+         */
+        private boolean continuesOperator(String operator) {
+            int next = position + operator.length();
+            if (next >= text.length()) {
+                return false;
+            }
+            char c = text.charAt(next);
+            char op = operator.charAt(0);
+            if (operator.length() > 1) {
+                return false;
+            }
+            if ("<>=!".indexOf(op) >= 0) {
+                return c == '=';
+            }
+            if ("+-*/%&|".indexOf(op) >= 0) {
+                return c == op || c == '=';
+            }
+            return false;
+        }
+
+        private boolean accept(String token) {
+            skipWhitespace();
+            if (text.startsWith(token, position) && !continuesOperator(token)) {
+                position += token.length();
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(String token) throws JRException {
+            if (!accept(token)) {
+                throw unsupported();
+            }
+        }
+
+        private void skipWhitespace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+
+        private JRException unsupported() {
+            return new JRException("Unsupported expression at position " + position + ": " + text);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package pl.lib.automation.compiler;
+
+import net.sf.jasperreports.engine.DefaultJasperReportsContext;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRExpression;
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.JRParameter;
+import net.sf.jasperreports.engine.JRVariable;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.JasperReportsContext;
+import net.sf.jasperreports.engine.design.JRAbstractCompiler;
+import net.sf.jasperreports.engine.design.JRCompilationSourceCode;
+import net.sf.jasperreports.engine.design.JRCompilationUnit;
+import net.sf.jasperreports.engine.design.JRDefaultCompilationSourceCode;
+import net.sf.jasperreports.engine.design.JRSourceCompileTask;
+import net.sf.jasperreports.engine.design.JasperDesign;
+import net.sf.jasperreports.engine.fill.JREvaluator;
+
+import java.io.File;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Kompilator raportów bez javac/JDT dla wyrażeń z ograniczonego podzbioru Javy (zob. {@link SimpleExpression}).
+ * Wyrażenia są parsowane przy kompilacji i interpretowane przy wypełnianiu przez {@link SimpleExpressionEvaluator}.
+ * {@link #compile(JasperDesign)} używa zwykłego kompilatora, gdy któreś wyrażenie wykracza poza ten podzbiór.
+ */
+public class SimpleExpressionCompiler extends JRAbstractCompiler {
+
+    private static final String LANGUAGE = "java";
+
+    /**
+     * Klasy wartości znane interpreterowi; pozostałe są traktowane jak {@code Object}.
+     */
+    private static final Map<String, Class<?>> KNOWN_TYPES = Map.of(
+            String.class.getName(), String.class,
+            Integer.class.getName(), Integer.class,
+            Long.class.getName(), Long.class,
+            Double.class.getName(), Double.class,
+            Float.class.getName(), Float.class,
+            Short.class.getName(), Short.class,
+            Byte.class.getName(), Byte.class,
+            Boolean.class.getName(), Boolean.class,
+            BigDecimal.class.getName(), BigDecimal.class,
+            Date.class.getName(), Date.class);
+
+    public SimpleExpressionCompiler() {
+        this(DefaultJasperReportsContext.getInstance());
+    }
+
+    public SimpleExpressionCompiler(JasperReportsContext jasperReportsContext) {
+        super(jasperReportsContext, false);
+    }
+
+    /**
+     * Kompiluje projekt bez generowania klas, a w razie nieobsługiwanego wyrażenia przez {@link JasperCompileManager}.
+     */
+    public static JasperReport compile(JasperDesign design) throws JRException {
+        JasperReport report = tryCompile(design);
+        return report != null ? report : JasperCompileManager.compileReport(design);
+    }
+
+    /**
+     * Kompilacja bez javac albo {@code null}, gdy projekt wymaga pełnego kompilatora.
+     */
+    static JasperReport tryCompile(JasperDesign design) {
+        if (LANGUAGE.equals(design.getLanguage())) {
+            try {
+                return new SimpleExpressionCompiler().compileReport(design);
+            } catch (JRException e) {
+                // wyrażenie spoza podzbioru albo błąd projektu - pełny kompilator zgłosi go po swojemu
+            }
+        }
+        return null;
+    }
+
+    @Override
+    protected void checkLanguage(String language) throws JRException {
+        if (!LANGUAGE.equals(language)) {
+            throw new JRException("Language " + language + " is not supported by " + getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * "Kod źródłowy" jednostki to lista typów pól, parametrów i zmiennych ({@code F/P/V, nazwa, klasa}),
+     * a po niej identyfikatory i teksty wyrażeń, po jednym w wierszu.
+     */
+    @Override
+    protected JRCompilationSourceCode generateSourceCode(JRSourceCompileTask sourceTask) throws JRException {
+        StringBuilder listing = new StringBuilder();
+        Map<String, Class<?>> types = new HashMap<>();
+        for (JRField field : sourceTask.getFieldsMap().values()) {
+            declare(listing, types, 'F', field.getName(), field.getValueClassName());
+        }
+        for (JRParameter parameter : sourceTask.getParametersMap().values()) {
+            declare(listing, types, 'P', parameter.getName(), parameter.getValueClassName());
+        }
+        for (JRVariable variable : sourceTask.getVariablesMap().values()) {
+            declare(listing, types, 'V', variable.getName(), variable.getValueClassName());
+        }
+        for (JRExpression expression : sourceTask.getExpressions()) {
+            String text = expression.getText() != null ? expression.getText() : "";
+            SimpleExpression.parse(text, (kind, name) -> types.get(kind + name));
+            Integer id = sourceTask.getExpressionCollector().getExpressionId(expression);
+            listing.append(id).append('\t').append(text.replace('\r', ' ').replace('\n', ' ')).append('\n');
+        }
+        return new JRDefaultCompilationSourceCode(listing.toString(), null);
+    }
+
+    @Override
+    protected String compileUnits(JRCompilationUnit[] units, String classpath, File tempDirFile) throws JRException {
+        for (JRCompilationUnit unit : units) {
+            HashMap<Integer, SimpleExpression> expressions = new HashMap<>();
+            Map<String, Class<?>> types = new HashMap<>();
+            for (String line : unit.getSourceCode().split("\n")) {
+                int tab = line.indexOf('\t');
+                if (tab <= 0) {
+                    continue;
+                }
+                if (Character.isDigit(line.charAt(0))) {
+                    String text = line.substring(tab + 1);
+                    expressions.put(Integer.valueOf(line.substring(0, tab)), SimpleExpression.parse(text, (kind, name) -> types.get(kind + name)));
+                } else {
+                    String[] declaration = line.split("\t", 3);
+                    types.put(declaration[0] + declaration[1], knownType(declaration[2]));
+                }
+            }
+            unit.setCompileData(expressions);
+        }
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected JREvaluator loadEvaluator(Serializable compileData, String unitName) throws JRException {
+        if (!(compileData instanceof HashMap)) {
+            throw new JRException("Invalid compile data for unit " + unitName);
+        }
+        return new SimpleExpressionEvaluator((HashMap<Integer, SimpleExpression>) compileData);
+    }
+
+    private static void declare(StringBuilder listing, Map<String, Class<?>> types, char kind, String name, String className) {
+        listing.append(kind).append('\t').append(name).append('\t').append(className).append('\n');
+        types.put(kind + name, knownType(className));
+    }
+
+    private static Class<?> knownType(String className) {
+        return KNOWN_TYPES.getOrDefault(className, Object.class);
+    }
+
+    @Override
+    protected String getSourceFileName(String unitName) {
+        return unitName;
+    }
+}
@@ -0,0 +1,101 @@
+package pl.lib.automation.compiler;
+
+import net.sf.jasperreports.engine.fill.JREvaluator;
+import net.sf.jasperreports.engine.fill.JRFillField;
+import net.sf.jasperreports.engine.fill.JRFillParameter;
+import net.sf.jasperreports.engine.fill.JRFillVariable;
+
+import java.util.Map;
+
+/**
+ * Ewaluator interpretujący wyrażenia sparsowane przez {@link SimpleExpressionCompiler}.
+ */
+public class SimpleExpressionEvaluator extends JREvaluator {
+
+    private final Map<Integer, SimpleExpression> expressions;
+    private final FillScope current = new FillScope(FillScope.CURRENT);
+    private final FillScope old = new FillScope(FillScope.OLD);
+    private final FillScope estimated = new FillScope(FillScope.ESTIMATED);
+
+    private Map<String, JRFillParameter> parameters;
+    private Map<String, JRFillField> fields;
+    private Map<String, JRFillVariable> variables;
+
+    public SimpleExpressionEvaluator(Map<Integer, SimpleExpression> expressions) {
+        this.expressions = expressions;
+    }
+
+    @Override
+    protected void customizedInit(Map<String, JRFillParameter> parametersMap, Map<String, JRFillField> fieldsMap,
+                                  Map<String, JRFillVariable> variablesMap) {
+        this.parameters = parametersMap;
+        this.fields = fieldsMap;
+        this.variables = variablesMap;
+    }
+
+    @Override
+    public Object evaluate(int id) throws Throwable {
+        return evaluate(id, current);
+    }
+
+    @Override
+    public Object evaluateOld(int id) throws Throwable {
+        return evaluate(id, old);
+    }
+
+    @Override
+    public Object evaluateEstimated(int id) throws Throwable {
+        return evaluate(id, estimated);
+    }
+
+    private Object evaluate(int id, FillScope scope) {
+        SimpleExpression expression = expressions.get(id);
+        return expression != null ? expression.evaluate(scope) : null;
+    }
+
+    private final class FillScope implements SimpleExpression.Scope {
+        static final int CURRENT = 0;
+        static final int OLD = 1;
+        static final int ESTIMATED = 2;
+
+        private final int mode;
+
+        private FillScope(int mode) {
+            this.mode = mode;
+        }
+
+        @Override
+        public Object field(String name) {
+            JRFillField field = fields.get(name);
+            if (field == null) {
+                throw new IllegalStateException("Unknown field: " + name);
+            }
+            return mode == OLD ? field.getOldValue() : field.getValue();
+        }
+
+        @Override
+        public Object parameter(String name) {
+            JRFillParameter parameter = parameters.get(name);
+            if (parameter == null) {
+                throw new IllegalStateException("Unknown parameter: " + name);
+            }
+            return parameter.getValue();
+        }
+
+        @Override
+        public Object variable(String name) {
+            JRFillVariable variable = variables.get(name);
+            if (variable == null) {
+                throw new IllegalStateException("Unknown variable: " + name);
+            }
+            switch (mode) {
+                case OLD:
+                    return variable.getOldValue();
+                case ESTIMATED:
+                    return variable.getEstimatedValue();
+                default:
+                    return variable.getValue();
+            }
+        }
+    }
+}
@@ -3,6 +3,7 @@ package pl.lib.automation.compiler;
 import com.fasterxml.jackson.databind.JsonNode;
 import net.sf.jasperreports.engine.JRException;
 import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.design.JasperDesign;
 import pl.lib.api.ReportBuilder;
 import pl.lib.config.ReportTheme;
 import pl.lib.model.*;
@@ -14,6 +15,10 @@ import java.util.List;
 
 public class SubreportCompiler {
     public JasperReport compileTableSubreport(JsonNode tableData, int availableWidth) throws JRException {
+        return SimpleExpressionCompiler.compile(createTableSubreportDesign(tableData, availableWidth));
+    }
+
+    public JasperDesign createTableSubreportDesign(JsonNode tableData, int availableWidth) throws JRException {
         if (!tableData.isArray() || tableData.isEmpty()) {
             throw new JRException("Table data must be a non-empty array");
         }
@@ -77,6 +82,6 @@ public class SubreportCompiler {
 
         tableBuilder.calculateColumnWidths();
 
-        return tableBuilder.build();
+        return tableBuilder.buildDesign();
     }
 }
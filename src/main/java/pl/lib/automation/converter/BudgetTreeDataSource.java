@@ -0,0 +1,145 @@
+package pl.lib.automation.converter;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.JRRewindableDataSource;
+import pl.lib.automation.util.AmountFormatter;
+import pl.lib.config.BudgetTableConfig;
+import pl.lib.model.BudgetHierarchyNode;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Źródło danych przechodzące drzewo budżetu w głąb (pre-order) za pomocą jawnego stosu ramek (węzeł, indeks następnego dziecka).
+ * Wartości pól (wcięcie, formatowanie kwot, pogrubienie) są wyliczane tylko dla bieżącego wiersza,
+ * więc pamięć zależy od głębokości drzewa, a nie od liczby wierszy.
+ * W trybie {@link BudgetTableConfig#isNumericAmounts()} kwoty i procenty są zwracane jako BigDecimal.
+ */
+public class BudgetTreeDataSource implements JRRewindableDataSource {
+
+    private final BudgetHierarchyNode root;
+    private final BudgetTableConfig config;
+    private final AmountFormatter amountFormatter;
+    private final Deque<Frame> stack = new ArrayDeque<>();
+    private BudgetHierarchyNode current;
+    private boolean started;
+
+    public BudgetTreeDataSource(BudgetHierarchyNode root, BudgetTableConfig config) {
+        this.root = root;
+        this.config = config != null ? config : BudgetTableConfig.defaultConfig();
+        this.amountFormatter = AmountFormatter.forBudget(this.config);
+        moveFirst();
+    }
+
+    @Override
+    public boolean next() {
+        if (!started) {
+            started = true;
+            if (root != null && enter(root)) {
+                return true;
+            }
+        }
+        while (!stack.isEmpty()) {
+            Frame frame = stack.peek();
+            List<BudgetHierarchyNode> children = frame.node.getChildren();
+            if (frame.nextChild < children.size()) {
+                if (enter(children.get(frame.nextChild++))) {
+                    return true;
+                }
+            } else {
+                stack.pop();
+            }
+        }
+        current = null;
+        return false;
+    }
+
+    /**
+     * Wchodzi do węzła; zwraca true, gdy węzeł jest wierszem raportu (sztuczny korzeń nim nie jest).
+     */
+    private boolean enter(BudgetHierarchyNode node) {
+        stack.push(new Frame(node));
+        if ("ROOT".equals(node.getCode())) {
+            return false;
+        }
+        current = node;
+        return true;
+    }
+
+    /**
+     * Liczba ramek na stosie, czyli głębokość bieżącego wiersza.
+     */
+    int depth() {
+        return stack.size();
+    }
+
+    @Override
+    public Object getFieldValue(JRField field) throws JRException {
+        if (current == null) {
+            throw new JRException("Brak bieżącego wiersza budżetu dla pola: " + field.getName());
+        }
+
+        switch (field.getName()) {
+            case "code":
+                return current.getCode() != null ? current.getCode() : "";
+            case "name":
+                return generateIndentation(current.getLevel()) + current.getName();
+            case "indent":
+                return current.getLevel();
+            case "planned":
+                if (config.isNumericAmounts()) {
+                    return amountOrZero(current.getPlannedAmount());
+                }
+                return amountFormatter.formatAmountWithoutCurrency(current.getPlannedAmount());
+            case "actual":
+                if (config.isNumericAmounts()) {
+                    return amountOrZero(current.getActualAmount());
+                }
+                return amountFormatter.formatAmountWithoutCurrency(current.getActualAmount());
+            case "percent":
+                if (config.isNumericAmounts()) {
+                    return current.getExecutionPercent();
+                }
+                return amountFormatter.formatPercentDirect(current.getExecutionPercent());
+            case "difference":
+                if (config.isNumericAmounts()) {
+                    return current.getDifference();
+                }
+                return amountFormatter.formatDifferenceWithoutCurrency(current.getDifference());
+            case "isBold":
+                return current.hasChildren() && config.isBoldSubtotals();
+            default:
+                return null;
+        }
+    }
+
+    @Override
+    public void moveFirst() {
+        stack.clear();
+        current = null;
+        started = false;
+    }
+
+    private BigDecimal amountOrZero(BigDecimal amount) {
+        return amount != null ? amount : BigDecimal.ZERO;
+    }
+
+    private String generateIndentation(int level) {
+        if (!config.isIndentHierarchy() || level <= 1) {
+            return "";
+        }
+        return " ".repeat((level - 1) * config.getIndentSize());
+    }
+
+    private static final class Frame {
+        private final BudgetHierarchyNode node;
+        private int nextChild;
+
+        private Frame(BudgetHierarchyNode node) {
+            this.node = node;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package pl.lib.automation.converter;
+
+import pl.lib.config.ChartConfig;
+import pl.lib.model.ChartType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Redukcja danych wykresu przed zbudowaniem źródła danych.
+ * Serie czasowe (LINE, AREA) są próbkowane algorytmem Largest-Triangle-Three-Buckets,
+ * a wykresy kategorii (PIE, BAR, STACKED_BAR) ograniczane do N największych pozycji z sumą reszty w "Pozostałe".
+ * Limit punktów nigdy nie przekracza szerokości wykresu w pikselach.
+ */
+public class ChartDataReducer {
+
+    public static final String OTHER_CATEGORY = "Pozostałe";
+
+    private static final int MIN_LTTB_POINTS = 3;
+
+    public ChartSeries reduce(ChartSeries series, ChartConfig config, int chartWidth) {
+        if (config == null || !config.isDataReduction() || config.getType() == null) {
+            return series;
+        }
+
+        int pixelLimit = Math.max(1, chartWidth);
+        if (isTimeSeries(config.getType())) {
+            int limit = config.getMaxDataPoints() > 0 ? Math.min(config.getMaxDataPoints(), pixelLimit) : pixelLimit;
+            return largestTriangleThreeBuckets(series, limit);
+        }
+
+        int limit = config.getMaxCategories() > 0 ? Math.min(config.getMaxCategories(), pixelLimit) : pixelLimit;
+        return topCategories(series, limit);
+    }
+
+    private boolean isTimeSeries(ChartType type) {
+        return type == ChartType.LINE || type == ChartType.AREA;
+    }
+
+    /**
+     * LTTB: pierwszy i ostatni punkt zostają, a z każdego kubełka wybierany jest punkt tworzący
+     * największy trójkąt z poprzednio wybranym punktem i średnią następnego kubełka. Oś X to numer punktu.
+     */
+    public ChartSeries largestTriangleThreeBuckets(ChartSeries series, int threshold) {
+        int size = series.size();
+        if (threshold >= size || threshold < MIN_LTTB_POINTS) {
+            return series;
+        }
+
+        double[] values = series.getValues();
+        int[] selected = new int[threshold];
+        int count = 0;
+        selected[count++] = 0;
+
+        double bucketSize = (double) (size - 2) / (threshold - 2);
+        int previous = 0;
+
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            int averageStart = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+            int averageEnd = Math.min((int) Math.floor((bucket + 2) * bucketSize) + 1, size);
+            double averageX = 0;
+            double averageY = 0;
+            for (int i = averageStart; i < averageEnd; i++) {
+                averageX += i;
+                averageY += values[i];
+            }
+            int averageLength = averageEnd - averageStart;
+            averageX /= averageLength;
+            averageY /= averageLength;
+
+            int rangeStart = (int) Math.floor(bucket * bucketSize) + 1;
+            int rangeEnd = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+            double maxArea = -1;
+            int chosen = rangeStart;
+            for (int i = rangeStart; i < rangeEnd; i++) {
+                double area = Math.abs((previous - averageX) * (values[i] - values[previous])
+                        - (previous - i) * (averageY - values[previous]));
+                if (area > maxArea) {
+                    maxArea = area;
+                    chosen = i;
+                }
+            }
+
+            selected[count++] = chosen;
+            previous = chosen;
+        }
+
+        selected[count++] = size - 1;
+        return series.select(selected, count);
+    }
+
+    /**
+     * Zostawia {@code limit - 1} największych kategorii w oryginalnej kolejności, a pozostałe sumuje w jednej pozycji.
+     */
+    public ChartSeries topCategories(ChartSeries series, int limit) {
+        int size = series.size();
+        if (size <= limit || limit < 2) {
+            return series;
+        }
+
+        double[] values = series.getValues();
+        Integer[] byValue = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            byValue[i] = i;
+        }
+        Arrays.sort(byValue, Comparator.comparingDouble((Integer i) -> values[i]).reversed());
+
+        int kept = limit - 1;
+        boolean[] keep = new boolean[size];
+        double other = 0;
+        for (int rank = 0; rank < size; rank++) {
+            if (rank < kept) {
+                keep[byValue[rank]] = true;
+            } else {
+                other += values[byValue[rank]];
+            }
+        }
+
+        List<String> categories = new ArrayList<>(limit);
+        double[] reduced = new double[limit];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (keep[i]) {
+                categories.add(series.getCategory(i));
+                reduced[count++] = values[i];
+            }
+        }
+        categories.add(OTHER_CATEGORY);
+        reduced[count] = other;
+
+        return new ChartSeries(categories.toArray(new String[0]), reduced);
+    }
+
+    /**
+     * Kategorie i wartości wykresu w tablicach równoległych.
+     */
+    public static final class ChartSeries {
+        private final String[] categories;
+        private final double[] values;
+
+        public ChartSeries(String[] categories, double[] values) {
+            if (categories.length != values.length) {
+                throw new IllegalArgumentException("Categories and values must have the same length");
+            }
+            this.categories = categories;
+            this.values = values;
+        }
+
+        public int size() {
+            return values.length;
+        }
+
+        public String getCategory(int index) {
+            return categories[index];
+        }
+
+        public double getValue(int index) {
+            return values[index];
+        }
+
+        double[] getValues() {
+            return values;
+        }
+
+        private ChartSeries select(int[] indices, int count) {
+            String[] selectedCategories = new String[count];
+            double[] selectedValues = new double[count];
+            for (int i = 0; i < count; i++) {
+                selectedCategories[i] = categories[indices[i]];
+                selectedValues[i] = values[indices[i]];
+            }
+            return new ChartSeries(selectedCategories, selectedValues);
+        }
+    }
+}
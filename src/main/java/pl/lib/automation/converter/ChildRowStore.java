@@ -0,0 +1,132 @@
+package pl.lib.automation.converter;
+
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.JRRewindableDataSource;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Wiersze podrzędne jednego zagnieżdżonego pola dla wszystkich wierszy nadrzędnych, zapisane w jednej liście.
+ * Wiersze jednego rodzica leżą obok siebie, a rodzic przechowuje tylko zakres (przesunięcie, długość)
+ * spakowany w {@code long}, zamiast własnej listy i {@code JRMapCollectionDataSource}.
+ * Same wiersze podrzędne są budowane od razu; leniwe jest tylko źródło danych podraportu ({@link Row}).
+ */
+public final class ChildRowStore {
+
+    private final List<Map<String, ?>> rows = new ArrayList<>();
+
+    /**
+     * Początek wycinka dla następnych dodanych wierszy.
+     */
+    public int mark() {
+        return rows.size();
+    }
+
+    public void add(Map<String, ?> row) {
+        rows.add(row);
+    }
+
+    /**
+     * Zakres wierszy dodanych od {@code offset}, który rozpoczął {@link #mark()}: przesunięcie w starszych 32 bitach,
+     * długość w młodszych.
+     */
+    public long span(int offset) {
+        return ((long) offset << 32) | (rows.size() - offset);
+    }
+
+    public Slice slice(long span) {
+        return new Slice(rows, (int) (span >>> 32), (int) span);
+    }
+
+    /**
+     * Wycinek wierszy dodanych od {@code offset}, który rozpoczął {@link #mark()}.
+     */
+    public Slice sliceFrom(int offset) {
+        return slice(span(offset));
+    }
+
+    public int size() {
+        return rows.size();
+    }
+
+    /**
+     * Wiersz z zagnieżdżonymi tablicami zapisanymi jako zakres ({@link #span(int)}) w magazynie pola.
+     * {@link #get(Object)} zamienia zakres na nowy {@link Slice} dopiero przy odczycie, np. przez podraport.
+     * Magazyny są wyszukiwane po ścieżce {@code scope + pole + "/"}, jak przy ich zapisie.
+     */
+    public static final class Row extends LinkedHashMap<String, Object> {
+        private static final long serialVersionUID = 1L;
+
+        private final String scope;
+        private final transient Map<String, ChildRowStore> childRows;
+
+        public Row(String scope, Map<String, ChildRowStore> childRows) {
+            this.scope = scope;
+            this.childRows = childRows;
+        }
+
+        @Override
+        public Object get(Object key) {
+            return resolve(key, super.get(key));
+        }
+
+        @Override
+        public Object getOrDefault(Object key, Object defaultValue) {
+            return containsKey(key) ? get(key) : defaultValue;
+        }
+
+        private Object resolve(Object key, Object value) {
+            if (value instanceof Long && childRows != null) {
+                ChildRowStore store = childRows.get(scope + key + "/");
+                if (store != null) {
+                    return store.slice((Long) value);
+                }
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Źródło danych podraportu nad wycinkiem wspólnej listy; pola czytane z map jak w {@code JRMapCollectionDataSource}.
+     * Można je przewinąć ({@link #moveFirst()}) i wypełnić ponownie.
+     */
+    public static final class Slice implements JRRewindableDataSource {
+        private final List<Map<String, ?>> rows;
+        private final int offset;
+        private final int length;
+        private int index = -1;
+
+        private Slice(List<Map<String, ?>> rows, int offset, int length) {
+            this.rows = rows;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        public int size() {
+            return length;
+        }
+
+        @Override
+        public boolean next() {
+            if (index + 1 >= length) {
+                index = length;
+                return false;
+            }
+            index++;
+            return true;
+        }
+
+        @Override
+        public Object getFieldValue(JRField field) {
+            return index >= 0 && index < length ? rows.get(offset + index).get(field.getName()) : null;
+        }
+
+        @Override
+        public void moveFirst() {
+            index = -1;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package pl.lib.automation.converter;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRField;
+import net.sf.jasperreports.engine.JRRewindableDataSource;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Źródło danych nad {@link ColumnarRowBuffer}: wartość pola jest dekodowana z bufora przy każdym odczycie,
+ * bez tworzenia obiektów wierszy. Pola bez kolumny w buforze mają wartość null, tak jak w źródle z map.
+ */
+public class ColumnarDataSource implements JRRewindableDataSource {
+
+    private final ColumnarRowBuffer buffer;
+    private final int[] order;
+    private final Map<String, Integer> columns = new HashMap<>();
+    private int position = -1;
+
+    public ColumnarDataSource(ColumnarRowBuffer buffer) {
+        this(buffer, null);
+    }
+
+    /**
+     * @param order numery wierszy w kolejności wypełniania (np. z {@link ColumnarRowBuffer#sortedOrder}); null to kolejność zapisu
+     */
+    public ColumnarDataSource(ColumnarRowBuffer buffer, int[] order) {
+        this.buffer = buffer;
+        this.order = order;
+    }
+
+    @Override
+    public boolean next() {
+        int size = order != null ? order.length : buffer.getRowCount();
+        if (position + 1 >= size) {
+            position = size;
+            return false;
+        }
+        position++;
+        return true;
+    }
+
+    @Override
+    public Object getFieldValue(JRField field) throws JRException {
+        if (position < 0 || position >= (order != null ? order.length : buffer.getRowCount())) {
+            throw new JRException("Brak bieżącego wiersza dla pola: " + field.getName());
+        }
+        int column = columns.computeIfAbsent(field.getName(), buffer::getColumnIndex);
+        return buffer.get(order != null ? order[position] : position, column);
+    }
+
+    @Override
+    public void moveFirst() {
+        position = -1;
+    }
+}
@@ -0,0 +1,530 @@
+package pl.lib.automation.converter;
+
+import pl.lib.model.DataType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Wiersze raportu przechowywane kolumnami poza stertą (pamięć bezpośrednia albo plik mapowany w pamięć).
+ * Każda kolumna to ciąg segmentów ze stałej szerokości komórkami: znacznik typu i 9 bajtów wartości.
+ * Segmenty rosną geometrycznie od {@link #FIRST_CHUNK_SLOTS} do {@link #CHUNK_SLOTS} komórek, więc małe raporty
+ * nie rezerwują pełnych segmentów dla każdej kolumny.
+ * Teksty trafiają do osobnego obszaru słownika jako UTF-8, a komórka przechowuje tylko ich numer.
+ * Wartości są dekodowane dopiero przy odczycie, więc na stercie zostają tylko nazwy kolumn i mały słownik
+ * ostatnio zapisanych tekstów (LRU).
+ * Zapis jest jednowątkowy; po zakończeniu zapisu bufor można czytać z wielu wątków.
+ */
+public final class ColumnarRowBuffer implements Closeable {
+
+    static final int FIRST_CHUNK_SLOTS = 1 << 10;
+    static final int CHUNK_SLOTS = 1 << 16;
+    static final int STRING_CHUNK_BYTES = 1 << 20;
+    static final int DICTIONARY_CACHE_LIMIT = 10_000;
+
+    private static final int CELL_BYTES = 10;
+    private static final int STRING_REF_BYTES = 12;
+    private static final int GROWING_CHUNKS = Integer.numberOfTrailingZeros(CHUNK_SLOTS / FIRST_CHUNK_SLOTS) + 1;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte DECIMAL = 2;
+    private static final byte DECIMAL_TEXT = 3;
+    private static final byte BOOLEAN = 4;
+    private static final byte DATE = 5;
+    private static final byte INTEGER = 6;
+
+    private final Allocator allocator;
+    private final List<String> columnNames = new ArrayList<>();
+    private final Map<String, Integer> columnIndexes = new HashMap<>();
+    private final List<DataType> columnTypes = new ArrayList<>();
+    private final List<Segment> columns = new ArrayList<>();
+    private final Segment stringRefs;
+    private final List<ByteBuffer> stringChunks = new ArrayList<>();
+    private final Map<String, Integer> dictionary = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+            return size() > DICTIONARY_CACHE_LIMIT;
+        }
+    };
+    private int stringCount;
+    private int stringPosition = STRING_CHUNK_BYTES;
+    private int rowCount;
+
+    private ColumnarRowBuffer(Allocator allocator) {
+        this.allocator = allocator;
+        this.stringRefs = new Segment(STRING_REF_BYTES);
+    }
+
+    /**
+     * Bufor w pamięci bezpośredniej (poza stertą, zwalniany przez GC po zamknięciu).
+     */
+    public static ColumnarRowBuffer direct() {
+        return new ColumnarRowBuffer(new Allocator() {
+            @Override
+            public ByteBuffer allocate(int capacity) {
+                return ByteBuffer.allocateDirect(capacity);
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+    }
+
+    /**
+     * Bufor w pliku tymczasowym w podanym katalogu, mapowanym w pamięć; plik jest usuwany przy zamknięciu.
+     */
+    public static ColumnarRowBuffer mapped(Path directory) throws IOException {
+        Path file = Files.createTempFile(directory, "rows", ".col");
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.DELETE_ON_CLOSE);
+        return new ColumnarRowBuffer(new Allocator() {
+            private long position;
+
+            @Override
+            public ByteBuffer allocate(int capacity) throws IOException {
+                ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, position, capacity);
+                position += capacity;
+                return buffer;
+            }
+
+            @Override
+            public void close() throws IOException {
+                channel.close();
+            }
+        });
+    }
+
+    /**
+     * Tworzy nowy bufor dla każdego raportu, np. {@code ColumnarRowBuffer::direct}.
+     */
+    @FunctionalInterface
+    public interface Factory {
+        ColumnarRowBuffer create() throws IOException;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getColumnCount() {
+        return columnNames.size();
+    }
+
+    int getStringCount() {
+        return stringCount;
+    }
+
+    public List<String> getColumnNames() {
+        return Collections.unmodifiableList(columnNames);
+    }
+
+    /**
+     * Typ pierwszej niepustej wartości kolumny; {@link DataType#STRING} dla kolumn bez wartości.
+     */
+    public DataType getColumnType(int column) {
+        DataType type = columnTypes.get(column);
+        return type != null ? type : DataType.STRING;
+    }
+
+    /**
+     * Indeks kolumny albo -1, gdy jej nie ma.
+     */
+    public int getColumnIndex(String name) {
+        Integer index = columnIndexes.get(name);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Indeks kolumny, dodawanej gdy jej jeszcze nie ma; wcześniejsze wiersze mają w niej wartości puste.
+     */
+    public int addColumn(String name) {
+        Integer index = columnIndexes.get(name);
+        if (index != null) {
+            return index;
+        }
+        int column = columnNames.size();
+        columnNames.add(name);
+        columnIndexes.put(name, column);
+        columnTypes.add(null);
+        columns.add(new Segment(CELL_BYTES));
+        return column;
+    }
+
+    /**
+     * Dodaje pusty wiersz i zwraca jego numer.
+     */
+    public int appendRow() {
+        return rowCount++;
+    }
+
+    /**
+     * Zapisuje wartość tak, jak zamienia ją {@code JsonReportGenerator}: tekst, {@link BigDecimal}, {@link Boolean},
+     * {@link Date} albo {@link Integer}; pozostałe typy są zapisywane jako tekst.
+     */
+    public void put(int row, int column, Object value) {
+        if (value == null) {
+            cell(row, column, true).put(columns.get(column).position(row), NULL);
+        } else if (value instanceof BigDecimal) {
+            putDecimal(row, column, (BigDecimal) value);
+        } else if (value instanceof Boolean) {
+            putBoolean(row, column, (Boolean) value);
+        } else if (value instanceof Date) {
+            putDate(row, column, (Date) value);
+        } else if (value instanceof Integer) {
+            putInteger(row, column, (Integer) value);
+        } else {
+            putString(row, column, value.toString());
+        }
+    }
+
+    public void putString(int row, int column, String value) {
+        if (value == null) {
+            put(row, column, null);
+            return;
+        }
+        writeCell(row, column, STRING, internString(value), (byte) 0, DataType.STRING);
+    }
+
+    public void putDecimal(int row, int column, BigDecimal value) {
+        if (value == null) {
+            put(row, column, null);
+            return;
+        }
+        BigInteger unscaled = value.unscaledValue();
+        if (unscaled.bitLength() < 64 && value.scale() >= Byte.MIN_VALUE && value.scale() <= Byte.MAX_VALUE) {
+            writeCell(row, column, DECIMAL, unscaled.longValue(), (byte) value.scale(), DataType.BIG_DECIMAL);
+        } else {
+            writeCell(row, column, DECIMAL_TEXT, internString(value.toString()), (byte) 0, DataType.BIG_DECIMAL);
+        }
+    }
+
+    public void putBoolean(int row, int column, boolean value) {
+        writeCell(row, column, BOOLEAN, value ? 1 : 0, (byte) 0, DataType.BOOLEAN);
+    }
+
+    public void putDate(int row, int column, Date value) {
+        if (value == null) {
+            put(row, column, null);
+            return;
+        }
+        writeCell(row, column, DATE, value.getTime(), (byte) 0, DataType.DATE);
+    }
+
+    public void putInteger(int row, int column, int value) {
+        writeCell(row, column, INTEGER, value, (byte) 0, DataType.INTEGER);
+    }
+
+    /**
+     * Wartość komórki dekodowana przy każdym wywołaniu.
+     */
+    public Object get(int row, int column) {
+        if (column < 0 || column >= columns.size()) {
+            return null;
+        }
+        ByteBuffer chunk = cell(row, column, false);
+        if (chunk == null) {
+            return null;
+        }
+        int position = columns.get(column).position(row);
+        byte tag = chunk.get(position);
+        long payload = chunk.getLong(position + 1);
+        switch (tag) {
+            case STRING:
+                return readString((int) payload);
+            case DECIMAL:
+                return BigDecimal.valueOf(payload, chunk.get(position + 9));
+            case DECIMAL_TEXT:
+                return new BigDecimal(readString((int) payload));
+            case BOOLEAN:
+                return payload != 0;
+            case DATE:
+                return new Date(payload);
+            case INTEGER:
+                return (int) payload;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Widok wiersza jako mapy tylko do odczytu; wartości są dekodowane przy {@code get}.
+     */
+    public Map<String, Object> row(int row) {
+        return new RowView(row);
+    }
+
+    /**
+     * Wiersze w podanej kolejności (albo w kolejności zapisu dla {@code null}) jako lista widoków.
+     */
+    public List<Map<String, Object>> rows(int[] order) {
+        return new AbstractList<Map<String, Object>>() {
+            @Override
+            public Map<String, Object> get(int index) {
+                return row(order != null ? order[index] : index);
+            }
+
+            @Override
+            public int size() {
+                return order != null ? order.length : rowCount;
+            }
+        };
+    }
+
+    /**
+     * Numery wierszy posortowane stabilnie, bez przestawiania samych danych.
+     */
+    public int[] sortedOrder(Comparator<? super Map<String, Object>> comparator) {
+        int[] order = new int[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            order[i] = i;
+        }
+        mergeSort(order, new int[rowCount], 0, rowCount, comparator);
+        return order;
+    }
+
+    @Override
+    public void close() throws IOException {
+        columns.clear();
+        stringChunks.clear();
+        stringRefs.chunks.clear();
+        dictionary.clear();
+        allocator.close();
+    }
+
+    private void writeCell(int row, int column, byte tag, long payload, byte extra, DataType type) {
+        if (columnTypes.get(column) == null) {
+            columnTypes.set(column, type);
+        }
+        ByteBuffer chunk = cell(row, column, true);
+        int position = columns.get(column).position(row);
+        chunk.put(position, tag);
+        chunk.putLong(position + 1, payload);
+        chunk.put(position + 9, extra);
+    }
+
+    private ByteBuffer cell(int row, int column, boolean create) {
+        if (row < 0 || row >= rowCount) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + rowCount);
+        }
+        return columns.get(column).chunk(row, create);
+    }
+
+    /**
+     * Numer segmentu komórki: pierwsze dwa mają {@link #FIRST_CHUNK_SLOTS} komórek, każdy następny dwa razy więcej
+     * (zaczyna się tam, gdzie kończy się suma poprzednich), aż do {@link #CHUNK_SLOTS}.
+     */
+    static int chunkIndex(int slot) {
+        if (slot < FIRST_CHUNK_SLOTS) {
+            return 0;
+        }
+        if (slot < CHUNK_SLOTS) {
+            return 32 - Integer.numberOfLeadingZeros(slot / FIRST_CHUNK_SLOTS);
+        }
+        return GROWING_CHUNKS - 1 + slot / CHUNK_SLOTS;
+    }
+
+    static int chunkStart(int index) {
+        if (index == 0) {
+            return 0;
+        }
+        if (index < GROWING_CHUNKS) {
+            return FIRST_CHUNK_SLOTS << (index - 1);
+        }
+        return (index - GROWING_CHUNKS + 1) * CHUNK_SLOTS;
+    }
+
+    static int chunkSlots(int index) {
+        if (index == 0) {
+            return FIRST_CHUNK_SLOTS;
+        }
+        return index < GROWING_CHUNKS ? FIRST_CHUNK_SLOTS << (index - 1) : CHUNK_SLOTS;
+    }
+
+    private int internString(String value) {
+        Integer cached = dictionary.get(value);
+        if (cached != null) {
+            return cached;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer chunk;
+        if (bytes.length > STRING_CHUNK_BYTES) {
+            chunk = allocate(bytes.length);
+            stringChunks.add(chunk);
+            chunk.put(0, bytes);
+            writeStringRef(stringChunks.size() - 1, 0, bytes.length);
+            // bieżący fragment zostaje niedostępny dla kolejnych tekstów
+            stringPosition = STRING_CHUNK_BYTES;
+        } else {
+            if (stringPosition + bytes.length > STRING_CHUNK_BYTES) {
+                stringChunks.add(allocate(STRING_CHUNK_BYTES));
+                stringPosition = 0;
+            }
+            chunk = stringChunks.get(stringChunks.size() - 1);
+            chunk.put(stringPosition, bytes);
+            writeStringRef(stringChunks.size() - 1, stringPosition, bytes.length);
+            stringPosition += bytes.length;
+        }
+        int id = stringCount++;
+        dictionary.put(value, id);
+        return id;
+    }
+
+    private void writeStringRef(int chunkIndex, int offset, int length) {
+        ByteBuffer refs = stringRefs.chunk(stringCount, true);
+        int position = stringRefs.position(stringCount);
+        refs.putInt(position, chunkIndex);
+        refs.putInt(position + 4, offset);
+        refs.putInt(position + 8, length);
+    }
+
+    private String readString(int id) {
+        ByteBuffer refs = stringRefs.chunk(id, false);
+        int position = stringRefs.position(id);
+        byte[] bytes = new byte[refs.getInt(position + 8)];
+        stringChunks.get(refs.getInt(position)).get(refs.getInt(position + 4), bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private ByteBuffer allocate(int capacity) {
+        try {
+            return allocator.allocate(capacity);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void mergeSort(int[] order, int[] buffer, int from, int to, Comparator<? super Map<String, Object>> comparator) {
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSort(order, buffer, from, middle, comparator);
+        mergeSort(order, buffer, middle, to, comparator);
+        if (comparator.compare(row(order[middle - 1]), row(order[middle])) <= 0) {
+            return;
+        }
+        System.arraycopy(order, from, buffer, from, to - from);
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < middle && comparator.compare(row(buffer[left]), row(buffer[right])) <= 0)) {
+                order[i] = buffer[left++];
+            } else {
+                order[i] = buffer[right++];
+            }
+        }
+    }
+
+    private interface Allocator {
+        ByteBuffer allocate(int capacity) throws IOException;
+
+        void close() throws IOException;
+    }
+
+    private final class Segment {
+        private final int slotBytes;
+        private final List<ByteBuffer> chunks = new ArrayList<>();
+
+        private Segment(int slotBytes) {
+            this.slotBytes = slotBytes;
+        }
+
+        ByteBuffer chunk(int slot, boolean create) {
+            int index = chunkIndex(slot);
+            if (index < chunks.size()) {
+                return chunks.get(index);
+            }
+            if (!create) {
+                return null;
+            }
+            while (chunks.size() <= index) {
+                ByteBuffer chunk = allocate(chunkSlots(chunks.size()) * slotBytes);
+                // rozszerzony plik mapowany nie musi być wyzerowany
+                for (int position = 0; position < chunk.capacity(); position += slotBytes) {
+                    chunk.put(position, NULL);
+                }
+                chunks.add(chunk);
+            }
+            return chunks.get(index);
+        }
+
+        int position(int slot) {
+            return (slot - chunkStart(chunkIndex(slot))) * slotBytes;
+        }
+    }
+
+    private final class RowView extends AbstractMap<String, Object> {
+        private final int row;
+
+        private RowView(int row) {
+            this.row = row;
+        }
+
+        @Override
+        public Object get(Object key) {
+            Integer column = columnIndexes.get(key);
+            return column != null ? ColumnarRowBuffer.this.get(row, column) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return columnIndexes.containsKey(key);
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<Entry<String, Object>>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new Iterator<Entry<String, Object>>() {
+                        private int column;
+
+                        @Override
+                        public boolean hasNext() {
+                            return column < columnNames.size();
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            int current = column++;
+                            return new SimpleImmutableEntry<>(columnNames.get(current), ColumnarRowBuffer.this.get(row, current));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return columnNames.size();
+                }
+            };
+        }
+    }
+}
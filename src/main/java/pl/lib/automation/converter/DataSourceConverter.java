@@ -3,11 +3,30 @@ import com.fasterxml.jackson.databind.JsonNode;
 import net.sf.jasperreports.engine.JRDataSource;
 import net.sf.jasperreports.engine.data.JRMapCollectionDataSource;
 import pl.lib.automation.analyzer.ReportElement;
+import pl.lib.config.BudgetTableConfig;
+import pl.lib.config.ChartConfig;
+import pl.lib.model.BudgetHierarchyNode;
 import java.util.*;
+import java.util.regex.Pattern;
 public class DataSourceConverter {
+    private static final Pattern BULLET_LIST = Pattern.compile("(?s).*[\\n\\r]\\s*[-*\\u2022]\\s+.*");
+    private static final Pattern LEADING_BULLET = Pattern.compile("\\s*[-*\\u2022]\\s+");
+    private static final Pattern BULLET_ITEM = Pattern.compile("(?m)^\\s*[-*\\u2022]\\s+(.+)$");
+    private static final String BULLET_REPLACEMENT = "&nbsp;&nbsp;&nbsp;&#8226; $1";
+    private static final String KEY_PREFIX = "<b style='color: #1C3A57;'>";
+
+    private final ChartDataReducer chartDataReducer = new ChartDataReducer();
+
     public JRDataSource createMainDataSource(List<ReportElement> elements) {
-        List<Map<String, ?>> dataSourceList = new ArrayList<>();
-        for (int i = 0; i < elements.size(); i++) {
+        return createMainDataSource(elements, 0, elements.size());
+    }
+
+    /**
+     * Źródło danych dla elementów z zakresu [from, to); {@code elementIndex} pozostaje indeksem w całym dokumencie.
+     */
+    public JRDataSource createMainDataSource(List<ReportElement> elements, int from, int to) {
+        List<Map<String, ?>> dataSourceList = new ArrayList<>(Math.max(0, to - from));
+        for (int i = from; i < to; i++) {
             ReportElement el = elements.get(i);
             Map<String, Object> map = new HashMap<>();
             map.put("type", el.getType());
@@ -15,10 +34,40 @@ public class DataSourceConverter {
             map.put("value", el.getValue());
             map.put("level", el.getLevel());
             map.put("elementIndex", i);
+            if ("HEADER".equals(el.getType())) {
+                map.put("headerText", headerText(el.getText(), el.getLevel()));
+            } else if ("KEY_VALUE".equals(el.getType())) {
+                map.put("valueHtml", keyValueHtml(el.getText(), el.getValue(), el.getLevel()));
+            }
             dataSourceList.add(map);
         }
         return new JRMapCollectionDataSource(dataSourceList);
     }
+    /**
+     * Tekst nagłówka z wcięciem poziomu, gotowy do wyświetlenia.
+     */
+    public static String headerText(String text, int level) {
+        return "   ".repeat(Math.max(0, level - 1)) + text;
+    }
+
+    /**
+     * HTML wiersza klucz-wartość: wcięcie, pogrubiony klucz (gdy jest) i wartość z punktorami zamienionymi na "•".
+     * Fragment kontynuacji (bez klucza) zaczynający się od punktora też jest listą, bo przed nim był podział tekstu.
+     */
+    public static String keyValueHtml(String key, String value, int level) {
+        StringBuilder html = new StringBuilder();
+        html.append("&nbsp;".repeat(Math.max(0, level - 1) * 4 + 2));
+        if (key != null) {
+            html.append(KEY_PREFIX).append(key).append(":</b> ");
+        }
+        if (value != null && (BULLET_LIST.matcher(value).matches() || (key == null && LEADING_BULLET.matcher(value).lookingAt()))) {
+            html.append(BULLET_ITEM.matcher(value).replaceAll(BULLET_REPLACEMENT));
+        } else {
+            html.append(value);
+        }
+        return html.toString();
+    }
+
     public JRDataSource createTableDataSource(JsonNode tableData) {
         List<Map<String, ?>> rows = new ArrayList<>();
         if (tableData.isArray() && !tableData.isEmpty()) {
@@ -57,6 +106,47 @@ public class DataSourceConverter {
         return new JRMapCollectionDataSource(rows);
     }
 
+    public JRDataSource createBudgetDataSource(BudgetHierarchyNode budgetTree, BudgetTableConfig config) {
+        return new BudgetTreeDataSource(budgetTree, config);
+    }
+
+    /**
+     * Źródło danych wykresu po opcjonalnej redukcji punktów (zob. {@link ChartDataReducer}).
+     */
+    public JRDataSource createChartDataSource(JsonNode chartData, ChartConfig config, int chartWidth) {
+        if (config == null || !config.isDataReduction() || chartData == null || !chartData.isObject()) {
+            return createChartDataSource(chartData);
+        }
+
+        ChartDataReducer.ChartSeries reduced = createChartSeries(chartData, config, chartWidth);
+        List<Map<String, ?>> dataPoints = new ArrayList<>(reduced.size());
+        for (int i = 0; i < reduced.size(); i++) {
+            Map<String, Object> point = new HashMap<>();
+            point.put("category", reduced.getCategory(i));
+            point.put("value", reduced.getValue(i));
+            dataPoints.add(point);
+        }
+        return new JRMapCollectionDataSource(dataPoints);
+    }
+
+    /**
+     * Punkty wykresu jako tablice równoległe, po redukcji zgodnej z konfiguracją.
+     */
+    public ChartDataReducer.ChartSeries createChartSeries(JsonNode chartData, ChartConfig config, int chartWidth) {
+        int size = chartData != null && chartData.isObject() ? chartData.size() : 0;
+        String[] categories = new String[size];
+        double[] values = new double[size];
+        if (size > 0) {
+            int index = 0;
+            for (Iterator<Map.Entry<String, JsonNode>> it = chartData.fields(); it.hasNext(); index++) {
+                Map.Entry<String, JsonNode> entry = it.next();
+                categories[index] = entry.getKey();
+                values[index] = entry.getValue().asDouble(0.0);
+            }
+        }
+        return chartDataReducer.reduce(new ChartDataReducer.ChartSeries(categories, values), config, chartWidth);
+    }
+
     public JRDataSource createChartDataSource(JsonNode chartData) {
         List<Map<String, ?>> dataPoints = new ArrayList<>();
         if (chartData != null && chartData.isObject()) {
@@ -0,0 +1,161 @@
+package pl.lib.automation.converter;
+
+import pl.lib.api.ReportBuilder;
+import pl.lib.config.HighlightRule;
+import pl.lib.model.Column;
+import pl.lib.model.DataType;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ocenia reguły wyróżnień po stronie danych, raz na wiersz, zamiast w wyrażeniach stylów warunkowych.
+ * Wynik (indeks reguły) trafia do pola {@link ReportBuilder#HIGHLIGHT_RULE_FIELD}, a style warunkowe porównują tylko liczbę.
+ * Semantyka operatorów jest taka sama jak w wyrażeniach generowanych przez {@link ReportBuilder}.
+ */
+public class HighlightRuleEvaluator {
+
+    public static final int NO_RULE = -1;
+
+    private final List<CompiledRule> rules;
+
+    public HighlightRuleEvaluator(List<HighlightRule> rules, List<Column> columns) {
+        if (rules == null || rules.isEmpty()) {
+            this.rules = Collections.emptyList();
+            return;
+        }
+        List<CompiledRule> compiled = new ArrayList<>(rules.size());
+        for (HighlightRule rule : rules) {
+            compiled.add(CompiledRule.of(rule, fieldType(rule.getField(), columns)));
+        }
+        this.rules = compiled;
+    }
+
+    public boolean isEmpty() {
+        return rules.isEmpty();
+    }
+
+    /**
+     * Indeks reguły, której kolor obowiązuje w wierszu, albo {@link #NO_RULE}.
+     * Jasper nakłada wszystkie spełnione style warunkowe po kolei, więc wygrywa ostatnia pasująca reguła.
+     */
+    public int evaluate(Map<String, ?> row) {
+        for (int i = rules.size() - 1; i >= 0; i--) {
+            if (rules.get(i).matches(row)) {
+                return i;
+            }
+        }
+        return NO_RULE;
+    }
+
+    /**
+     * Zapisuje indeks reguły w każdym wierszu pod kluczem {@link ReportBuilder#HIGHLIGHT_RULE_FIELD}.
+     */
+    public void apply(List<? extends Map<String, Object>> rows) {
+        if (rules.isEmpty()) {
+            return;
+        }
+        for (Map<String, Object> row : rows) {
+            row.put(ReportBuilder.HIGHLIGHT_RULE_FIELD, evaluate(row));
+        }
+    }
+
+    private static DataType fieldType(String field, List<Column> columns) {
+        if (columns != null) {
+            for (Column column : columns) {
+                if (column.getFieldName().equals(field)) {
+                    return column.getDataType();
+                }
+            }
+        }
+        return DataType.STRING;
+    }
+
+    private static final class CompiledRule {
+        private static final CompiledRule NEVER = new CompiledRule(null, null, null, null);
+
+        private final String field;
+        private final String operator;
+        private final BigDecimal number;
+        private final String text;
+
+        private CompiledRule(String field, String operator, BigDecimal number, String text) {
+            this.field = field;
+            this.operator = operator;
+            this.number = number;
+            this.text = text;
+        }
+
+        static CompiledRule of(HighlightRule rule, DataType fieldType) {
+            if (rule.getField() == null || rule.getOperator() == null || rule.getValue() == null) {
+                return NEVER;
+            }
+            String field = rule.getField().replace('.', '_');
+            String operator = rule.getOperator();
+            if (fieldType.isNumeric()) {
+                BigDecimal number;
+                try {
+                    number = new BigDecimal(rule.getValue());
+                } catch (NumberFormatException e) {
+                    return NEVER;
+                }
+                switch (operator) {
+                    case "EQUALS":
+                    case "NOT_EQUALS":
+                    case "GREATER_THAN":
+                    case "LESS_THAN":
+                        return new CompiledRule(field, operator, number, null);
+                    default:
+                        return NEVER;
+                }
+            }
+            switch (operator) {
+                case "EQUALS":
+                case "NOT_EQUALS":
+                    return new CompiledRule(field, operator, null, rule.getValue());
+                case "CONTAINS":
+                    return fieldType == DataType.STRING ? new CompiledRule(field, operator, null, rule.getValue()) : NEVER;
+                default:
+                    return NEVER;
+            }
+        }
+
+        boolean matches(Map<String, ?> row) {
+            if (field == null) {
+                return false;
+            }
+            Object value = row.get(field);
+            if (value == null) {
+                return false;
+            }
+            if (number != null) {
+                switch (operator) {
+                    case "EQUALS":
+                        return value.equals(number);
+                    case "NOT_EQUALS":
+                        return !value.equals(number);
+                    case "GREATER_THAN":
+                        return compare(value) > 0;
+                    default:
+                        return compare(value) < 0;
+                }
+            }
+            switch (operator) {
+                case "EQUALS":
+                    return value.toString().equals(text);
+                case "NOT_EQUALS":
+                    return !value.toString().equals(text);
+                default:
+                    return value.toString().contains(text);
+            }
+        }
+
+        private int compare(Object value) {
+            BigDecimal decimal = value instanceof BigDecimal ? (BigDecimal) value : new BigDecimal(value.toString());
+            return decimal.compareTo(number);
+        }
+    }
+}
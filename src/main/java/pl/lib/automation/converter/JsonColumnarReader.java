@@ -0,0 +1,99 @@
+package pl.lib.automation.converter;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+
+/**
+ * Strumieniowy odczyt tablicy obiektów JSON prosto do {@link ColumnarRowBuffer}, bez budowania drzewa węzłów.
+ * Zagnieżdżone obiekty są spłaszczane do kolumn {@code rodzic_pole}, a wartości zamieniane tak jak
+ * w {@code JsonReportGenerator}: liczby na BigDecimal, teksty w formacie ISO-8601 na Date.
+ * Zagnieżdżone tablice (dane podraportów) są pomijane.
+ */
+public class JsonColumnarReader {
+
+    private final JsonFactory jsonFactory;
+
+    public JsonColumnarReader() {
+        this(new JsonFactory());
+    }
+
+    public JsonColumnarReader(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    public void read(String json, ColumnarRowBuffer buffer) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            read(parser, buffer);
+        }
+    }
+
+    public void read(InputStream json, ColumnarRowBuffer buffer) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(json)) {
+            read(parser, buffer);
+        }
+    }
+
+    private void read(JsonParser parser, ColumnarRowBuffer buffer) throws IOException {
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new IllegalArgumentException("JSON content must be an array");
+        }
+        try {
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+                if (token == JsonToken.START_OBJECT) {
+                    readObject(parser, "", buffer.appendRow(), buffer);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void readObject(JsonParser parser, String prefix, int row, ColumnarRowBuffer buffer) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String path = prefix + parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            switch (token) {
+                case START_OBJECT:
+                    readObject(parser, path + "_", row, buffer);
+                    break;
+                case START_ARRAY:
+                    parser.skipChildren();
+                    break;
+                case VALUE_STRING:
+                    buffer.put(row, buffer.addColumn(path), textValue(parser.getText()));
+                    break;
+                case VALUE_NUMBER_INT:
+                case VALUE_NUMBER_FLOAT:
+                    buffer.putDecimal(row, buffer.addColumn(path), new BigDecimal(parser.getText()));
+                    break;
+                case VALUE_TRUE:
+                case VALUE_FALSE:
+                    buffer.putBoolean(row, buffer.addColumn(path), token == JsonToken.VALUE_TRUE);
+                    break;
+                default:
+                    buffer.put(row, buffer.addColumn(path), null);
+                    break;
+            }
+        }
+    }
+
+    private static Object textValue(String text) {
+        try {
+            return Date.from(Instant.parse(text));
+        } catch (DateTimeParseException e) {
+            return text;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package pl.lib.automation.export;
+
+import net.sf.jasperreports.engine.export.HtmlExporter;
+import net.sf.jasperreports.engine.export.JRCsvExporter;
+import net.sf.jasperreports.engine.export.JRPdfExporter;
+import net.sf.jasperreports.engine.export.ooxml.JRDocxExporter;
+import net.sf.jasperreports.engine.export.ooxml.JRXlsxExporter;
+import net.sf.jasperreports.export.Exporter;
+import net.sf.jasperreports.export.ExporterOutput;
+import net.sf.jasperreports.export.SimpleHtmlExporterOutput;
+import net.sf.jasperreports.export.SimpleOutputStreamExporterOutput;
+import net.sf.jasperreports.export.SimpleWriterExporterOutput;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Formaty eksportu wypełnionego raportu; każdy tworzy nowy eksporter JasperReports i jego wyjście.
+ */
+public enum ExportFormat {
+    PDF {
+        @Override
+        public Exporter<?, ?, ?, ?> createExporter() {
+            return new JRPdfExporter();
+        }
+    },
+    XLSX {
+        @Override
+        public Exporter<?, ?, ?, ?> createExporter() {
+            return new JRXlsxExporter();
+        }
+    },
+    DOCX {
+        @Override
+        public Exporter<?, ?, ?, ?> createExporter() {
+            return new JRDocxExporter();
+        }
+    },
+    HTML {
+        @Override
+        public Exporter<?, ?, ?, ?> createExporter() {
+            return new HtmlExporter();
+        }
+
+        @Override
+        public ExporterOutput createOutput(OutputStream out) {
+            return new SimpleHtmlExporterOutput(out, StandardCharsets.UTF_8.name());
+        }
+    },
+    CSV {
+        @Override
+        public Exporter<?, ?, ?, ?> createExporter() {
+            return new JRCsvExporter();
+        }
+
+        @Override
+        public ExporterOutput createOutput(OutputStream out) {
+            return new SimpleWriterExporterOutput(out, StandardCharsets.UTF_8.name());
+        }
+    };
+
+    public abstract Exporter<?, ?, ?, ?> createExporter();
+
+    public ExporterOutput createOutput(OutputStream out) {
+        return new SimpleOutputStreamExporterOutput(out);
+    }
+}
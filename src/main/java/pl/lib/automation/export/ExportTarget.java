@@ -0,0 +1,53 @@
+package pl.lib.automation.export;
+
+import net.sf.jasperreports.export.ExporterConfiguration;
+import net.sf.jasperreports.export.ReportExportConfiguration;
+
+import java.io.OutputStream;
+
+/**
+ * Jeden format eksportu z własnym strumieniem wyjściowym i opcjonalną konfiguracją eksportera.
+ * Konfiguracje muszą pasować do eksportera formatu, np. {@code SimplePdfExporterConfiguration} dla PDF.
+ */
+public final class ExportTarget {
+
+    private final ExportFormat format;
+    private final OutputStream output;
+    private ReportExportConfiguration reportConfiguration;
+    private ExporterConfiguration exporterConfiguration;
+
+    public ExportTarget(ExportFormat format, OutputStream output) {
+        this.format = format;
+        this.output = output;
+    }
+
+    public static ExportTarget of(ExportFormat format, OutputStream output) {
+        return new ExportTarget(format, output);
+    }
+
+    public ExportTarget withReportConfiguration(ReportExportConfiguration configuration) {
+        this.reportConfiguration = configuration;
+        return this;
+    }
+
+    public ExportTarget withExporterConfiguration(ExporterConfiguration configuration) {
+        this.exporterConfiguration = configuration;
+        return this;
+    }
+
+    public ExportFormat getFormat() {
+        return format;
+    }
+
+    public OutputStream getOutput() {
+        return output;
+    }
+
+    public ReportExportConfiguration getReportConfiguration() {
+        return reportConfiguration;
+    }
+
+    public ExporterConfiguration getExporterConfiguration() {
+        return exporterConfiguration;
+    }
+}
@@ -0,0 +1,100 @@
+package pl.lib.automation.export;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.export.Exporter;
+import net.sf.jasperreports.export.SimpleExporterInput;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Eksport jednego wypełnionego raportu do wielu formatów naraz.
+ * Każdy format ma własny eksporter i strumień, a {@link JasperPrint} jest tylko czytany, więc eksporty biegną równolegle.
+ * Raport nie może używać wirtualizatora, którego strony nie są bezpieczne przy dostępie z wielu wątków.
+ */
+public class MultiFormatExporter {
+
+    private final Executor executor;
+
+    public MultiFormatExporter() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public MultiFormatExporter(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Czeka na wszystkie eksporty; błędy pozostałych formatów są dołączone do pierwszego jako suppressed.
+     */
+    public void exportAll(JasperPrint print, Collection<ExportTarget> targets) throws JRException {
+        List<CompletableFuture<Void>> exports = new ArrayList<>(targets.size());
+        for (ExportTarget target : targets) {
+            exports.add(CompletableFuture.runAsync(() -> exportUnchecked(print, target), executor));
+        }
+
+        JRException failure = null;
+        for (int i = 0; i < exports.size(); i++) {
+            try {
+                exports.get(i).join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                if (failure == null) {
+                    failure = cause instanceof JRException ? (JRException) cause : new JRException("Export failed", cause);
+                } else {
+                    failure.addSuppressed(cause);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    public Map<ExportFormat, byte[]> exportAll(JasperPrint print, ExportFormat... formats) throws JRException {
+        Map<ExportFormat, ByteArrayOutputStream> outputs = new EnumMap<>(ExportFormat.class);
+        List<ExportTarget> targets = new ArrayList<>(formats.length);
+        for (ExportFormat format : formats) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            outputs.put(format, out);
+            targets.add(ExportTarget.of(format, out));
+        }
+
+        exportAll(print, targets);
+
+        Map<ExportFormat, byte[]> result = new EnumMap<>(ExportFormat.class);
+        outputs.forEach((format, out) -> result.put(format, out.toByteArray()));
+        return result;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void export(JasperPrint print, ExportTarget target) throws JRException {
+        Exporter exporter = target.getFormat().createExporter();
+        exporter.setExporterInput(new SimpleExporterInput(print));
+        exporter.setExporterOutput(target.getFormat().createOutput(target.getOutput()));
+        if (target.getReportConfiguration() != null) {
+            exporter.setConfiguration(target.getReportConfiguration());
+        }
+        if (target.getExporterConfiguration() != null) {
+            exporter.setConfiguration(target.getExporterConfiguration());
+        }
+        exporter.exportReport();
+    }
+
+    private void exportUnchecked(JasperPrint print, ExportTarget target) {
+        try {
+            export(print, target);
+        } catch (JRException e) {
+            throw new CompletionException(e);
+        }
+    }
+}
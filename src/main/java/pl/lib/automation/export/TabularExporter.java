@@ -0,0 +1,279 @@
+package pl.lib.automation.export;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import pl.lib.config.ColumnDefinition;
+import pl.lib.config.ReportConfig;
+import pl.lib.model.DataType;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.Format;
+import java.text.SimpleDateFormat;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Eksport tablicy JSON bezpośrednio do CSV/TSV, bez kompilacji i wypełniania raportu.
+ * Kolumny, nagłówki, widoczność, kolejność i wzorce formatu pochodzą z {@link ReportConfig#getColumns()},
+ * tak jak w {@code JsonReportGenerator.generateTableReportFromJson}. Wiersze są czytane strumieniowo, po jednym,
+ * więc pamięć nie zależy od liczby wierszy.
+ */
+public class TabularExporter {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Locale locale;
+
+    public TabularExporter() {
+        this(Locale.getDefault());
+    }
+
+    public TabularExporter(Locale locale) {
+        this.locale = locale;
+    }
+
+    public String export(String jsonContent, ReportConfig config, TabularFormat format) throws IOException {
+        StringWriter writer = new StringWriter();
+        export(new StringReader(jsonContent), config, format, writer);
+        return writer.toString();
+    }
+
+    public long export(InputStream json, ReportConfig config, TabularFormat format, OutputStream out) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        long rows = export(new InputStreamReader(json, StandardCharsets.UTF_8), config, format, writer);
+        writer.flush();
+        return rows;
+    }
+
+    /**
+     * @return liczba wyeksportowanych wierszy (bez nagłówka)
+     */
+    public long export(Reader json, ReportConfig config, TabularFormat format, Writer out) throws IOException {
+        BufferedWriter writer = out instanceof BufferedWriter ? (BufferedWriter) out : new BufferedWriter(out, 64 * 1024);
+        try (JsonParser parser = objectMapper.getFactory().createParser(json)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("JSON content must be an array");
+            }
+
+            List<ExportColumn> columns = configuredColumns(config);
+            Map<String, JsonNode> values = new LinkedHashMap<>();
+            StringBuilder line = new StringBuilder(256);
+            long rows = 0;
+
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY && token != null) {
+                if (token != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    continue;
+                }
+                JsonNode row = objectMapper.readTree(parser);
+                values.clear();
+                flatten("", row, values);
+
+                if (columns == null) {
+                    columns = inferredColumns(values);
+                }
+                if (rows == 0) {
+                    writeHeader(columns, format, line, writer);
+                }
+
+                line.setLength(0);
+                for (int i = 0; i < columns.size(); i++) {
+                    if (i > 0) {
+                        line.append(format.getDelimiter());
+                    }
+                    appendValue(line, columns.get(i).format(values.get(columns.get(i).field)), format);
+                }
+                writer.append(line).append("\r\n");
+                rows++;
+            }
+
+            if (rows == 0 && columns != null) {
+                writeHeader(columns, format, line, writer);
+            }
+            writer.flush();
+            return rows;
+        }
+    }
+
+    private List<ExportColumn> configuredColumns(ReportConfig config) {
+        if (config == null || config.getColumns() == null || config.getColumns().isEmpty()) {
+            return null;
+        }
+        List<ExportColumn> columns = new ArrayList<>();
+        for (ColumnDefinition colDef : config.getColumns()) {
+            if (colDef.getVisible() != null && !colDef.getVisible()) continue;
+            if (config.getSubreportConfigs() != null && config.getSubreportConfigs().containsKey(colDef.getField())) {
+                continue;
+            }
+            String header = colDef.getHeader() != null ? colDef.getHeader() : colDef.getField();
+            columns.add(new ExportColumn(colDef.getField(), header, colDef.getFormat(), locale));
+        }
+        return columns;
+    }
+
+    private List<ExportColumn> inferredColumns(Map<String, JsonNode> firstRow) {
+        List<ExportColumn> columns = new ArrayList<>();
+        for (Map.Entry<String, JsonNode> entry : firstRow.entrySet()) {
+            if (!entry.getValue().isArray()) {
+                columns.add(new ExportColumn(entry.getKey(), entry.getKey(), null, locale));
+            }
+        }
+        return columns;
+    }
+
+    private void writeHeader(List<ExportColumn> columns, TabularFormat format, StringBuilder line, Writer writer) throws IOException {
+        line.setLength(0);
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                line.append(format.getDelimiter());
+            }
+            appendValue(line, columns.get(i).header, format);
+        }
+        writer.append(line).append("\r\n");
+    }
+
+    /**
+     * Te same nazwy pól co przy wypełnianiu raportu: zagnieżdżone obiekty są spłaszczane z separatorem "_".
+     */
+    private void flatten(String currentPath, JsonNode node, Map<String, JsonNode> values) {
+        if (node.isObject()) {
+            String prefix = currentPath.isEmpty() ? "" : currentPath + "_";
+            node.fields().forEachRemaining(entry -> flatten(prefix + entry.getKey(), entry.getValue(), values));
+        } else {
+            values.put(currentPath, node);
+        }
+    }
+
+    static void appendValue(StringBuilder line, String value, TabularFormat format) {
+        if (value == null || value.isEmpty()) {
+            return;
+        }
+        if (format == TabularFormat.TSV) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                line.append(c == '\t' || c == '\n' || c == '\r' ? ' ' : c);
+            }
+            return;
+        }
+
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == format.getDelimiter() || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            line.append(value);
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                line.append('"');
+            }
+            line.append(c);
+        }
+        line.append('"');
+    }
+
+    private static final class ExportColumn {
+        private final String field;
+        private final String header;
+        private final String pattern;
+        private final Locale locale;
+        private DataType type;
+        private Format format;
+
+        private ExportColumn(String field, String header, String pattern, Locale locale) {
+            this.field = field;
+            this.header = header;
+            this.pattern = pattern != null && !pattern.isEmpty() ? pattern : null;
+            this.locale = locale;
+        }
+
+        /**
+         * Typ kolumny ustalany z pierwszej niepustej wartości, tak jak typ pola w raporcie;
+         * wzorzec jest stosowany jako format liczby albo daty zależnie od typu.
+         */
+        private void resolveType(JsonNode value) {
+            type = dataType(value);
+            if (pattern == null) {
+                return;
+            }
+            try {
+                if (type.isNumeric()) {
+                    format = new DecimalFormat(pattern, DecimalFormatSymbols.getInstance(locale));
+                } else if (type == DataType.DATE) {
+                    format = new SimpleDateFormat(pattern, locale);
+                }
+            } catch (IllegalArgumentException e) {
+                // wzorzec niepasujący do typu kolumny - wartości bez formatowania
+            }
+        }
+
+        /**
+         * Liczby i daty ISO-8601 formatowane wzorcem kolumny, bez wzorca wypisywane bez zmian.
+         */
+        private String format(JsonNode value) {
+            if (value == null || value.isNull() || value.isContainerNode()) {
+                return null;
+            }
+            if (type == null) {
+                resolveType(value);
+            }
+            if (value.isNumber()) {
+                return format instanceof DecimalFormat ? format.format(value.decimalValue()) : value.decimalValue().toPlainString();
+            }
+            if (value.isTextual() && format instanceof SimpleDateFormat) {
+                String text = value.asText();
+                try {
+                    return format.format(Date.from(Instant.parse(text)));
+                } catch (DateTimeParseException e) {
+                    return text;
+                }
+            }
+            return value.asText();
+        }
+
+        /**
+         * Te same reguły co {@code JsonReportGenerator} przy ustalaniu typów pól.
+         */
+        private static DataType dataType(JsonNode value) {
+            if (value.isNumber()) {
+                return DataType.BIG_DECIMAL;
+            }
+            if (value.isBoolean()) {
+                return DataType.BOOLEAN;
+            }
+            if (value.isTextual()) {
+                try {
+                    Instant.parse(value.asText());
+                    return DataType.DATE;
+                } catch (DateTimeParseException e) {
+                    return DataType.STRING;
+                }
+            }
+            return DataType.STRING;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package pl.lib.automation.export;
+
+/**
+ * Format eksportu tabelarycznego bez układu stron.
+ */
+public enum TabularFormat {
+    /**
+     * RFC 4180: pola z separatorem, cudzysłowem lub końcem linii są ujmowane w cudzysłów.
+     */
+    CSV(','),
+    /**
+     * Wartości rozdzielone tabulatorem; tabulatory i końce linii w wartościach są zamieniane na spację.
+     */
+    TSV('\t');
+
+    private final char delimiter;
+
+    TabularFormat(char delimiter) {
+        this.delimiter = delimiter;
+    }
+
+    public char getDelimiter() {
+        return delimiter;
+    }
+}
@@ -0,0 +1,224 @@
+package pl.lib.automation.fill;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRPrintPage;
+import net.sf.jasperreports.engine.JRPrintText;
+import net.sf.jasperreports.engine.JRVariable;
+import net.sf.jasperreports.engine.JasperFillManager;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.data.JRMapCollectionDataSource;
+import pl.lib.api.ReportBuilder;
+
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Równoległe wypełnianie dużych raportów tabelarycznych zbudowanych przez {@link ReportBuilder}.
+ * Wiersze są dzielone na ciągłe części (na granicach grup), każda część jest wypełniana osobno,
+ * a strony są łączone w kolejności. Na końcu przepisywane są numery stron i sumy w podsumowaniu,
+ * które w ostatniej części obejmowałyby tylko jej wiersze.
+ * Każda część dostaje numer swojego pierwszego wiersza ({@link ReportBuilder#PARAM_ROW_OFFSET}), więc paski zebry
+ * nie zależą od granic części.
+ * Każda część zaczyna się od nowej strony, więc raport może mieć o kilka niepełnych stron więcej.
+ */
+public class PartitionedReportFiller {
+
+    public static final int DEFAULT_MIN_ROWS_PER_PARTITION = 50_000;
+
+    private final Executor executor;
+    private final int maxPartitions;
+    private int minRowsPerPartition = DEFAULT_MIN_ROWS_PER_PARTITION;
+
+    public PartitionedReportFiller() {
+        this(ForkJoinPool.commonPool(), Runtime.getRuntime().availableProcessors());
+    }
+
+    public PartitionedReportFiller(Executor executor, int maxPartitions) {
+        this.executor = executor;
+        this.maxPartitions = Math.max(1, maxPartitions);
+    }
+
+    /**
+     * Mniejsze zbiory są wypełniane w całości jednym wątkiem.
+     */
+    public PartitionedReportFiller withMinRowsPerPartition(int minRowsPerPartition) {
+        this.minRowsPerPartition = Math.max(1, minRowsPerPartition);
+        return this;
+    }
+
+    /**
+     * @param rows        wiersze już posortowane po polach grup
+     * @param groupFields pola grup; części nie przecinają grup
+     */
+    public JasperPrint fill(JasperReport report, Map<String, Object> parameters,
+                            List<? extends Map<String, ?>> rows, List<String> groupFields) throws JRException {
+        List<int[]> partitions = partition(rows, groupFields);
+        if (partitions.size() < 2) {
+            return JasperFillManager.fillReport(report, new HashMap<>(parameters), dataSource(rows));
+        }
+
+        List<CompletableFuture<JasperPrint>> fills = new ArrayList<>(partitions.size());
+        for (int i = 0; i < partitions.size(); i++) {
+            int[] range = partitions.get(i);
+            Map<String, Object> partParameters = new HashMap<>(parameters);
+            partParameters.put(ReportBuilder.PARAM_ROW_OFFSET, range[0]);
+            if (i > 0) {
+                partParameters.put(ReportBuilder.PARAM_SHOW_TITLE, Boolean.FALSE);
+            }
+            if (i < partitions.size() - 1) {
+                partParameters.put(ReportBuilder.PARAM_SHOW_SUMMARY, Boolean.FALSE);
+            }
+            List<? extends Map<String, ?>> part = rows.subList(range[0], range[1]);
+            fills.add(CompletableFuture.supplyAsync(() -> fillUnchecked(report, partParameters, part), executor));
+        }
+
+        List<JasperPrint> prints = new ArrayList<>(fills.size());
+        JRException failure = null;
+        for (CompletableFuture<JasperPrint> fill : fills) {
+            try {
+                prints.add(fill.join());
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                if (failure == null) {
+                    failure = cause instanceof JRException ? (JRException) cause : new JRException("Partition fill failed", cause);
+                } else {
+                    failure.addSuppressed(cause);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+
+        JasperPrint merged = PrintMerger.merge(prints);
+        PrintMerger.renumberPages(merged);
+        rewriteTotals(merged, report, rows);
+        return merged;
+    }
+
+    /**
+     * Zakresy [od, do) wierszy; granica jest przesuwana do zmiany wartości pól grup.
+     */
+    List<int[]> partition(List<? extends Map<String, ?>> rows, List<String> groupFields) {
+        int size = rows.size();
+        int count = Math.min(maxPartitions, size / minRowsPerPartition);
+        List<int[]> partitions = new ArrayList<>();
+        if (count < 2) {
+            partitions.add(new int[]{0, size});
+            return partitions;
+        }
+
+        int target = (size + count - 1) / count;
+        int start = 0;
+        while (start < size) {
+            int end = Math.min(size, start + target);
+            if (end < size && groupFields != null && !groupFields.isEmpty()) {
+                while (end < size && sameGroup(rows.get(end - 1), rows.get(end), groupFields)) {
+                    end++;
+                }
+            }
+            partitions.add(new int[]{start, Math.min(end, size)});
+            start = Math.min(end, size);
+        }
+        return partitions;
+    }
+
+    private static boolean sameGroup(Map<String, ?> previous, Map<String, ?> next, List<String> groupFields) {
+        for (String field : groupFields) {
+            if (!Objects.equals(previous.get(field), next.get(field))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Sumy raportu liczone po stronie danych dla zmiennych {@code *_REPORT_SUM} i wpisywane w podsumowanie ostatniej części.
+     */
+    private static void rewriteTotals(JasperPrint print, JasperReport report, List<? extends Map<String, ?>> rows) {
+        Map<String, Class<?>> summed = new LinkedHashMap<>();
+        for (JRVariable variable : report.getVariables()) {
+            if (variable.getName().endsWith(ReportBuilder.REPORT_SUM_SUFFIX)) {
+                String field = variable.getName().substring(0, variable.getName().length() - ReportBuilder.REPORT_SUM_SUFFIX.length());
+                summed.put(field, variable.getValueClass());
+            }
+        }
+        if (summed.isEmpty() || print.getPages().isEmpty()) {
+            return;
+        }
+
+        Locale locale = print.getLocaleCode() != null ? Locale.forLanguageTag(print.getLocaleCode().replace('_', '-')) : Locale.getDefault();
+        List<JRPrintPage> pages = print.getPages();
+        for (Map.Entry<String, Class<?>> entry : summed.entrySet()) {
+            BigDecimal total = BigDecimal.ZERO;
+            boolean any = false;
+            for (Map<String, ?> row : rows) {
+                Object value = row.get(entry.getKey());
+                if (value instanceof Number) {
+                    total = total.add(value instanceof BigDecimal ? (BigDecimal) value : new BigDecimal(value.toString()));
+                    any = true;
+                }
+            }
+            Object typedTotal = any ? convert(total, entry.getValue()) : null;
+
+            String key = ReportBuilder.SUMMARY_KEY_PREFIX + entry.getKey();
+            // podsumowanie jest na ostatnich stronach
+            for (int i = pages.size() - 1; i >= 0; i--) {
+                List<JRPrintText> texts = PrintMerger.findTexts(pages.get(i).getElements(), key);
+                if (!texts.isEmpty()) {
+                    for (JRPrintText text : texts) {
+                        PrintMerger.setText(text, format(typedTotal, text.getPattern(), locale), typedTotal);
+                    }
+                    break;
+                }
+            }
+        }
+    }
+
+    private static Object convert(BigDecimal total, Class<?> valueClass) {
+        if (Integer.class.equals(valueClass)) return total.intValue();
+        if (Long.class.equals(valueClass)) return total.longValue();
+        if (Double.class.equals(valueClass)) return total.doubleValue();
+        if (Float.class.equals(valueClass)) return total.floatValue();
+        if (Short.class.equals(valueClass)) return total.shortValue();
+        return total;
+    }
+
+    private static String format(Object value, String pattern, Locale locale) {
+        if (value == null) {
+            return "";
+        }
+        if (pattern == null || pattern.isEmpty()) {
+            return value instanceof BigDecimal ? ((BigDecimal) value).toPlainString() : value.toString();
+        }
+        return new DecimalFormat(pattern, DecimalFormatSymbols.getInstance(locale)).format(value);
+    }
+
+    private static JasperPrint fillUnchecked(JasperReport report, Map<String, Object> parameters,
+                                             List<? extends Map<String, ?>> rows) {
+        try {
+            return JasperFillManager.fillReport(report, parameters, dataSource(rows));
+        } catch (JRException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static JRMapCollectionDataSource dataSource(List<? extends Map<String, ?>> rows) {
+        return new JRMapCollectionDataSource((Collection<Map<String, ?>>) (Collection<?>) rows);
+    }
+}
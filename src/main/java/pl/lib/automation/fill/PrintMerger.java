@@ -0,0 +1,75 @@
+package pl.lib.automation.fill;
+
+import net.sf.jasperreports.engine.JROrigin;
+import net.sf.jasperreports.engine.JRPrintElement;
+import net.sf.jasperreports.engine.JRPrintFrame;
+import net.sf.jasperreports.engine.JRPrintPage;
+import net.sf.jasperreports.engine.JRPrintText;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.fill.JRTemplatePrintText;
+import pl.lib.api.ReportBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Łączenie wydruków wypełnianych osobno w jeden dokument i poprawki elementów zależnych od całości.
+ */
+final class PrintMerger {
+
+    private PrintMerger() {
+    }
+
+    /**
+     * Dokleja strony kolejnych wydruków do pierwszego; właściwości i nazwa pochodzą z pierwszego wydruku.
+     */
+    static JasperPrint merge(List<JasperPrint> prints) {
+        JasperPrint merged = prints.get(0);
+        for (int i = 1; i < prints.size(); i++) {
+            JasperPrint part = prints.get(i);
+            for (JROrigin origin : part.getOrigins()) {
+                merged.addOrigin(origin);
+            }
+            for (JRPrintPage page : part.getPages()) {
+                merged.addPage(page);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Numeruje strony w całym dokumencie (pola z kluczem {@link ReportBuilder#PAGE_NUMBER_KEY}).
+     */
+    static void renumberPages(JasperPrint print) {
+        List<JRPrintPage> pages = print.getPages();
+        for (int i = 0; i < pages.size(); i++) {
+            String text = ReportBuilder.PAGE_NUMBER_PREFIX + (i + 1);
+            for (JRPrintText element : findTexts(pages.get(i).getElements(), ReportBuilder.PAGE_NUMBER_KEY)) {
+                setText(element, text, text);
+            }
+        }
+    }
+
+    static void setText(JRPrintText element, String text, Object value) {
+        element.setText(text);
+        if (element instanceof JRTemplatePrintText) {
+            ((JRTemplatePrintText) element).setValue(value);
+        }
+    }
+
+    static List<JRPrintText> findTexts(List<JRPrintElement> elements, String key) {
+        List<JRPrintText> found = new ArrayList<>();
+        collectTexts(elements, key, found);
+        return found;
+    }
+
+    private static void collectTexts(List<JRPrintElement> elements, String key, List<JRPrintText> found) {
+        for (JRPrintElement element : elements) {
+            if (element instanceof JRPrintText && key.equals(element.getKey())) {
+                found.add((JRPrintText) element);
+            } else if (element instanceof JRPrintFrame) {
+                collectTexts(((JRPrintFrame) element).getElements(), key, found);
+            }
+        }
+    }
+}
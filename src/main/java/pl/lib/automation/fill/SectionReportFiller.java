@@ -0,0 +1,164 @@
+package pl.lib.automation.fill;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperPrint;
+import pl.lib.automation.analyzer.ReportElement;
+import pl.lib.automation.assembler.ReportAssembler;
+import pl.lib.automation.converter.DataSourceConverter;
+import pl.lib.automation.pipeline.CompiledDocument;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Równoległe wypełnianie dokumentów zbiorczych ({@link CompiledDocument}) sekcjami.
+ * Lista elementów jest dzielona na nagłówkach najwyższego poziomu, sąsiednie sekcje są łączone w części o zbliżonym
+ * rozmiarze, a każda część jest wypełniana osobno. Strony są łączone w kolejności i numerowane od nowa; zakładki
+ * i spis treści korzystają z kotwic {@code elementIndex}, które zostają globalne.
+ * Każda część zaczyna się od nowej strony.
+ */
+public class SectionReportFiller {
+
+    public static final int DEFAULT_MIN_WEIGHT_PER_SECTION = 2_000;
+
+    private final Executor executor;
+    private final int maxSections;
+    private final ReportAssembler reportAssembler = new ReportAssembler();
+    private final DataSourceConverter dataSourceConverter = new DataSourceConverter();
+    private int minWeightPerSection = DEFAULT_MIN_WEIGHT_PER_SECTION;
+
+    public SectionReportFiller() {
+        this(ForkJoinPool.commonPool(), Runtime.getRuntime().availableProcessors());
+    }
+
+    public SectionReportFiller(Executor executor, int maxSections) {
+        this.executor = executor;
+        this.maxSections = Math.max(1, maxSections);
+    }
+
+    /**
+     * Waga części to liczba elementów plus wiersze tabel; mniejsze dokumenty są wypełniane w całości jednym wątkiem.
+     */
+    public SectionReportFiller withMinWeightPerSection(int minWeightPerSection) {
+        this.minWeightPerSection = Math.max(1, minWeightPerSection);
+        return this;
+    }
+
+    /**
+     * @param parameters parametry wspólne (stopka, strona tytułowa); podraporty są dodawane dla każdej części
+     */
+    public JasperPrint fill(CompiledDocument document, Map<String, Object> parameters) throws JRException {
+        List<ReportElement> elements = document.getAnalysis().getElements();
+        boolean includeTitlePage = document.isIncludeTitlePage();
+        List<int[]> sections = sections(elements);
+        if (sections.size() < 2) {
+            Map<String, Object> fillParameters = new HashMap<>(parameters);
+            fillParameters.putAll(document.createFillParameters());
+            return reportAssembler.assemble(includeTitlePage, dataSourceConverter.createMainDataSource(elements), fillParameters);
+        }
+
+        List<CompletableFuture<JasperPrint>> fills = new ArrayList<>(sections.size());
+        for (int i = 0; i < sections.size(); i++) {
+            int[] range = sections.get(i);
+            boolean first = i == 0;
+            Map<String, Object> sectionParameters = new HashMap<>(parameters);
+            sectionParameters.putAll(document.createFillParameters(range[0], range[1]));
+            if (!first) {
+                // stopka także na pierwszej stronie części
+                sectionParameters.put("IS_TOC_PAGE", Boolean.FALSE);
+            }
+            fills.add(CompletableFuture.supplyAsync(() -> fillUnchecked(first && includeTitlePage, elements, range, sectionParameters), executor));
+        }
+
+        List<JasperPrint> prints = new ArrayList<>(fills.size());
+        JRException failure = null;
+        for (CompletableFuture<JasperPrint> fill : fills) {
+            try {
+                prints.add(fill.join());
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                if (failure == null) {
+                    failure = cause instanceof JRException ? (JRException) cause : new JRException("Section fill failed", cause);
+                } else {
+                    failure.addSuppressed(cause);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+
+        JasperPrint merged = PrintMerger.merge(prints);
+        PrintMerger.renumberPages(merged);
+        return merged;
+    }
+
+    /**
+     * Zakresy [od, do) elementów; granice leżą tylko przed nagłówkami najwyższego poziomu.
+     */
+    List<int[]> sections(List<ReportElement> elements) {
+        int size = elements.size();
+        long[] weights = new long[size];
+        long total = 0;
+        int topLevel = Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            ReportElement element = elements.get(i);
+            weights[i] = weight(element);
+            total += weights[i];
+            if (isHeader(element)) {
+                topLevel = Math.min(topLevel, element.getLevel());
+            }
+        }
+
+        List<int[]> sections = new ArrayList<>();
+        int count = (int) Math.min(maxSections, total / minWeightPerSection);
+        if (count < 2 || topLevel == Integer.MAX_VALUE) {
+            sections.add(new int[]{0, size});
+            return sections;
+        }
+
+        long target = (total + count - 1) / count;
+        int start = 0;
+        long accumulated = 0;
+        for (int i = 0; i < size; i++) {
+            ReportElement element = elements.get(i);
+            if (i > start && accumulated >= target && isHeader(element) && element.getLevel() == topLevel) {
+                sections.add(new int[]{start, i});
+                start = i;
+                accumulated = 0;
+            }
+            accumulated += weights[i];
+        }
+        sections.add(new int[]{start, size});
+        return sections;
+    }
+
+    private static boolean isHeader(ReportElement element) {
+        return "HEADER".equals(element.getType());
+    }
+
+    private static long weight(ReportElement element) {
+        JsonNode tableData = element.getRawTableData();
+        if ("TABLE".equals(element.getType()) && tableData != null && tableData.isArray()) {
+            return 1 + tableData.size();
+        }
+        return 1;
+    }
+
+    private JasperPrint fillUnchecked(boolean includeTitlePage, List<ReportElement> elements, int[] range,
+                                      Map<String, Object> parameters) {
+        try {
+            return reportAssembler.assemble(includeTitlePage,
+                    dataSourceConverter.createMainDataSource(elements, range[0], range[1]), parameters);
+        } catch (JRException e) {
+            throw new CompletionException(e);
+        }
+    }
+}
@@ -1,15 +1,49 @@
 package pl.lib.automation.page;
 
+import net.sf.jasperreports.engine.JRException;
 import net.sf.jasperreports.engine.design.*;
 import net.sf.jasperreports.engine.type.*;
 import pl.lib.model.ReportStyles;
 
 import java.awt.Color;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
 
 public class TitlePageGenerator {
+
+    public static final String PARAM_TITLE = "TITLE_PAGE_TITLE";
+    public static final String PARAM_FOOTER = "TITLE_PAGE_FOOTER";
+
+    private static final DateTimeFormatter FOOTER_DATE_FORMAT = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+
     public void addTitlePage(JasperDesign design, String reportTitle, String city) {
+        addTitleBand(design,
+                new JRDesignExpression("\"" + escapeQuotes(reportTitle) + "\""),
+                new JRDesignExpression("\"" + escapeQuotes(createFooterText(city)) + "\""));
+    }
+
+    /**
+     * Strona tytułowa czytająca tytuł i stopkę z parametrów {@link #PARAM_TITLE} i {@link #PARAM_FOOTER},
+     * dzięki czemu projekt raportu nie zależy od treści dokumentu.
+     */
+    public void addParameterizedTitlePage(JasperDesign design) throws JRException {
+        for (String name : new String[]{PARAM_TITLE, PARAM_FOOTER}) {
+            JRDesignParameter parameter = new JRDesignParameter();
+            parameter.setName(name);
+            parameter.setValueClass(String.class);
+            design.addParameter(parameter);
+        }
+        addTitleBand(design,
+                new JRDesignExpression("$P{" + PARAM_TITLE + "}"),
+                new JRDesignExpression("$P{" + PARAM_FOOTER + "}"));
+    }
+
+    public String createFooterText(String city) {
+        String dateStr = LocalDate.now().format(FOOTER_DATE_FORMAT);
+        return city + " • " + dateStr;
+    }
+
+    private void addTitleBand(JasperDesign design, JRDesignExpression titleExpression, JRDesignExpression footerExpression) {
         int availableWidth = design.getColumnWidth();
         int pageHeight = design.getPageHeight() - design.getTopMargin() - design.getBottomMargin();
         JRDesignBand titleBand = new JRDesignBand();
@@ -46,7 +80,7 @@ public class TitlePageGenerator {
         titleField.setY(currentY);
         titleField.setWidth(availableWidth - 60);
         titleField.setHeight(80);
-        titleField.setExpression(new JRDesignExpression("\"" + escapeQuotes(reportTitle) + "\""));
+        titleField.setExpression(titleExpression);
         titleField.setFontName(ReportStyles.FONT_DEJAVU_SANS_CONDENSED);
         titleField.setFontSize(24f);
         titleField.setBold(true);
@@ -66,15 +100,12 @@ public class TitlePageGenerator {
         separatorLine.setForecolor(Color.decode("#BDC3C7"));
         titleBand.addElement(separatorLine);
 
-        String dateStr = new SimpleDateFormat("dd.MM.yyyy").format(new Date());
-        String footerText = city + " • " + dateStr;
-
-        JRDesignStaticText footerField = new JRDesignStaticText();
+        JRDesignTextField footerField = new JRDesignTextField();
         footerField.setX(0);
         footerField.setY(footerY + 10);
         footerField.setWidth(availableWidth);
         footerField.setHeight(25);
-        footerField.setText(footerText);
+        footerField.setExpression(footerExpression);
         footerField.setFontName(ReportStyles.FONT_DEJAVU_SANS_CONDENSED);
         footerField.setFontSize(12f);
         footerField.setBold(false);
@@ -88,6 +119,6 @@ public class TitlePageGenerator {
 
     private String escapeQuotes(String text) {
         if (text == null) return "";
-        return text.replace("\"", "\\\"");
+        return text.replace("\\", "\\\\").replace("\"", "\\\"");
     }
 }
@@ -0,0 +1,57 @@
+package pl.lib.automation.page;
+
+import net.sf.jasperreports.engine.JRPrintAnchor;
+import net.sf.jasperreports.engine.JRPrintElement;
+import net.sf.jasperreports.engine.JRPrintFrame;
+import net.sf.jasperreports.engine.JRPrintPage;
+import net.sf.jasperreports.engine.JasperPrint;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Uzupełnia numery stron w spisie treści na podstawie kotwic nagłówków w wypełnionej treści.
+ * Numer strony treści jest tym samym numerem, który treść drukuje w stopce ("Strona N").
+ */
+public class TocPageResolver {
+
+    public static final String UNRESOLVED_PAGE = "...";
+
+    /**
+     * Numer strony (od 1) każdej kotwicy w raporcie; przy powtórzonej kotwicy liczy się pierwsze wystąpienie.
+     */
+    public Map<String, Integer> collectAnchorPages(JasperPrint print) {
+        Map<String, Integer> anchorPages = new HashMap<>();
+        List<JRPrintPage> pages = print.getPages();
+        for (int pageIndex = 0; pageIndex < pages.size(); pageIndex++) {
+            collectAnchors(pages.get(pageIndex).getElements(), pageIndex + 1, anchorPages);
+        }
+        return anchorPages;
+    }
+
+    /**
+     * Ustawia {@code pageIndex} pozycji spisu według kotwic, przesuwając numery o {@code pageOffset};
+     * przesunięcie różne od zera ma sens tylko wtedy, gdy stopka treści jest przesunięta tak samo.
+     */
+    public void resolve(List<Map<String, Object>> tocEntries, Map<String, Integer> anchorPages, int pageOffset) {
+        for (Map<String, Object> entry : tocEntries) {
+            Integer page = anchorPages.get((String) entry.get("anchor"));
+            entry.put("pageIndex", page != null ? String.valueOf(page + pageOffset) : UNRESOLVED_PAGE);
+        }
+    }
+
+    private void collectAnchors(List<JRPrintElement> elements, int pageNumber, Map<String, Integer> anchorPages) {
+        for (JRPrintElement element : elements) {
+            if (element instanceof JRPrintAnchor) {
+                String anchorName = ((JRPrintAnchor) element).getAnchorName();
+                if (anchorName != null) {
+                    anchorPages.putIfAbsent(anchorName, pageNumber);
+                }
+            }
+            if (element instanceof JRPrintFrame) {
+                collectAnchors(((JRPrintFrame) element).getElements(), pageNumber, anchorPages);
+            }
+        }
+    }
+}
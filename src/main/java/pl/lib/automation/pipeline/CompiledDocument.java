@@ -0,0 +1,97 @@
+package pl.lib.automation.pipeline;
+
+import net.sf.jasperreports.engine.JRDataSource;
+import net.sf.jasperreports.engine.JasperReport;
+import pl.lib.automation.assembler.ReportAssembler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Wynik etapu kompilacji: skompilowany raport zbiorczy i podraporty elementów dokumentu.
+ * Źródła danych są tworzone od nowa przy każdym wypełnianiu, więc ten sam obiekt można wypełniać wielokrotnie.
+ */
+public final class CompiledDocument {
+
+    private final DocumentAnalysis analysis;
+    private final boolean includeTitlePage;
+    private final JasperReport compositeReport;
+    private final List<CompiledSubreport> subreports;
+
+    public CompiledDocument(DocumentAnalysis analysis, boolean includeTitlePage, JasperReport compositeReport,
+                            List<CompiledSubreport> subreports) {
+        this.analysis = analysis;
+        this.includeTitlePage = includeTitlePage;
+        this.compositeReport = compositeReport;
+        this.subreports = Collections.unmodifiableList(new ArrayList<>(subreports));
+    }
+
+    public DocumentAnalysis getAnalysis() {
+        return analysis;
+    }
+
+    public boolean isIncludeTitlePage() {
+        return includeTitlePage;
+    }
+
+    public JasperReport getCompositeReport() {
+        return compositeReport;
+    }
+
+    public List<CompiledSubreport> getSubreports() {
+        return subreports;
+    }
+
+    /**
+     * Parametry dyspozytora podraportów dla jednego wypełnienia, ze świeżymi źródłami danych.
+     */
+    public Map<String, Object> createFillParameters() {
+        return createFillParameters(0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Jak {@link #createFillParameters()}, ale tylko dla elementów z zakresu [from, to).
+     */
+    public Map<String, Object> createFillParameters(int from, int to) {
+        Map<String, Object> parameters = new HashMap<>();
+        for (CompiledSubreport subreport : subreports) {
+            if (subreport.elementIndex < from || subreport.elementIndex >= to) {
+                continue;
+            }
+            Map<String, Object> subreportParameters = subreport.parameters != null ? new HashMap<>(subreport.parameters) : null;
+            ReportAssembler.putSubreport(parameters, subreport.elementIndex, subreport.report,
+                    subreport.dataSource.get(), subreportParameters);
+        }
+        return parameters;
+    }
+
+    /**
+     * Podraport elementu o indeksie {@code elementIndex} z fabryką źródła danych i stałymi parametrami.
+     */
+    public static final class CompiledSubreport {
+        private final int elementIndex;
+        private final JasperReport report;
+        private final Supplier<JRDataSource> dataSource;
+        private final Map<String, Object> parameters;
+
+        public CompiledSubreport(int elementIndex, JasperReport report, Supplier<JRDataSource> dataSource,
+                                 Map<String, Object> parameters) {
+            this.elementIndex = elementIndex;
+            this.report = report;
+            this.dataSource = dataSource;
+            this.parameters = parameters;
+        }
+
+        public int getElementIndex() {
+            return elementIndex;
+        }
+
+        public JasperReport getReport() {
+            return report;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package pl.lib.automation.pipeline;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import pl.lib.automation.analyzer.ReportElement;
+import pl.lib.automation.assembler.ReportAssembler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Wynik etapu analizy: sparsowany dokument JSON i spłaszczona lista elementów raportu.
+ * Ta sama analiza służy do budowy spisu treści i do kompilacji treści, więc JSON jest parsowany raz.
+ */
+public final class DocumentAnalysis {
+
+    private final JsonNode root;
+    private final List<ReportElement> elements;
+
+    public DocumentAnalysis(JsonNode root, List<ReportElement> elements) {
+        this.root = root;
+        this.elements = Collections.unmodifiableList(new ArrayList<>(elements));
+    }
+
+    public JsonNode getRoot() {
+        return root;
+    }
+
+    public List<ReportElement> getElements() {
+        return elements;
+    }
+
+    /**
+     * Pozycje spisu treści (nagłówki dokumentu); przy każdym wywołaniu tworzona jest nowa lista.
+     * Numer strony ({@code pageIndex}) uzupełnia {@link pl.lib.automation.page.TocPageResolver} po wypełnieniu treści.
+     */
+    public List<Map<String, Object>> getTocEntries() {
+        List<Map<String, Object>> tocEntries = new ArrayList<>();
+        for (int i = 0; i < elements.size(); i++) {
+            ReportElement element = elements.get(i);
+            if ("HEADER".equals(element.getType())) {
+                Map<String, Object> entry = new HashMap<>();
+                entry.put("label", element.getText());
+                entry.put("level", element.getLevel());
+                entry.put("anchor", ReportAssembler.ANCHOR_PREFIX + i);
+                entry.put("pageIndex", "...");
+                tocEntries.add(entry);
+            }
+        }
+        return tocEntries;
+    }
+}
@@ -0,0 +1,9 @@
+package pl.lib.automation.scheduler;
+
+/**
+ * Pas kolejki etapu: zadania interaktywne wyprzedzają wsadowe, ale nie głodzą ich całkowicie.
+ */
+public enum JobPriority {
+    INTERACTIVE,
+    BATCH
+}
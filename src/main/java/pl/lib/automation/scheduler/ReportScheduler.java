@@ -0,0 +1,76 @@
+package pl.lib.automation.scheduler;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Harmonogram generowania raportów z trzema niezależnymi etapami: kompilacją, wypełnianiem i eksportem.
+ * Każdy etap ma własną pulę wątków, kolejkę i limit współbieżności, więc seria kompilacji zimnych szablonów
+ * nie zajmuje miejsc tanich wypełnień.
+ */
+public class ReportScheduler implements AutoCloseable {
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 256;
+
+    private final ExecutorService compileExecutor;
+    private final ExecutorService fillExecutor;
+    private final ExecutorService exportExecutor;
+    private final ReportStage compileStage;
+    private final ReportStage fillStage;
+    private final ReportStage exportStage;
+
+    /**
+     * Domyślne limity: kompilacja na połowie rdzeni, wypełnianie na wszystkich, eksport na połowie.
+     */
+    public ReportScheduler() {
+        this(Math.max(1, Runtime.getRuntime().availableProcessors() / 2),
+                Runtime.getRuntime().availableProcessors(),
+                Math.max(1, Runtime.getRuntime().availableProcessors() / 2),
+                DEFAULT_QUEUE_CAPACITY);
+    }
+
+    public ReportScheduler(int compileConcurrency, int fillConcurrency, int exportConcurrency, int queueCapacity) {
+        this.compileExecutor = Executors.newFixedThreadPool(compileConcurrency, daemonThreads("report-compile"));
+        // wątki wypełniania tylko uruchamiają AsynchronousFillHandle, więc wystarczy jeden
+        this.fillExecutor = Executors.newSingleThreadExecutor(daemonThreads("report-fill"));
+        this.exportExecutor = Executors.newFixedThreadPool(exportConcurrency, daemonThreads("report-export"));
+        this.compileStage = new ReportStage("compile", compileConcurrency, queueCapacity, compileExecutor);
+        this.fillStage = new ReportStage("fill", fillConcurrency, queueCapacity, fillExecutor);
+        this.exportStage = new ReportStage("export", exportConcurrency, queueCapacity, exportExecutor);
+    }
+
+    public ReportStage getCompileStage() {
+        return compileStage;
+    }
+
+    public ReportStage getFillStage() {
+        return fillStage;
+    }
+
+    public ReportStage getExportStage() {
+        return exportStage;
+    }
+
+    public List<StageMetrics> getMetrics() {
+        return List.of(compileStage.metrics(), fillStage.metrics(), exportStage.metrics());
+    }
+
+    @Override
+    public void close() {
+        compileExecutor.shutdown();
+        fillExecutor.shutdown();
+        exportExecutor.shutdown();
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
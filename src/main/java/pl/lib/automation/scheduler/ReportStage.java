@@ -0,0 +1,156 @@
+package pl.lib.automation.scheduler;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Etap harmonogramu z własną kolejką, limitem współbieżności i dwoma pasami priorytetu.
+ * Miejsce w limicie jest zajęte do zakończenia przyszłości zwróconej przez zadanie, a nie do powrotu z wątku,
+ * więc zadanie asynchroniczne (np. wypełnianie na {@code AsynchronousFillHandle}) nie blokuje wątku etapu.
+ */
+public class ReportStage {
+
+    /**
+     * Po tylu kolejnych zadaniach interaktywnych czekające zadanie wsadowe dostaje swoją kolej.
+     */
+    static final int INTERACTIVE_BURST = 4;
+
+    private final String name;
+    private final int maxConcurrency;
+    private final int queueCapacity;
+    private final Executor executor;
+
+    private final Deque<Job<?>> interactive = new ArrayDeque<>();
+    private final Deque<Job<?>> batch = new ArrayDeque<>();
+    private int running;
+    private int interactiveStreak;
+    private long completed;
+    private long rejected;
+
+    public ReportStage(String name, int maxConcurrency, int queueCapacity, Executor executor) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be positive: " + maxConcurrency);
+        }
+        this.name = name;
+        this.maxConcurrency = maxConcurrency;
+        this.queueCapacity = Math.max(0, queueCapacity);
+        this.executor = executor;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Zadanie synchroniczne, wykonywane na wątku etapu.
+     */
+    public <T> CompletableFuture<T> submit(JobPriority priority, Supplier<T> task) {
+        return submitAsync(priority, () -> CompletableFuture.completedFuture(task.get()));
+    }
+
+    /**
+     * Zadanie asynchroniczne: wątek etapu tylko je uruchamia, a miejsce zwalnia się po zakończeniu zwróconej przyszłości.
+     * Gdy kolejka pasa jest pełna, zwracana przyszłość kończy się od razu wyjątkiem {@link RejectedExecutionException}.
+     */
+    public <T> CompletableFuture<T> submitAsync(JobPriority priority, Supplier<CompletableFuture<T>> task) {
+        Job<T> job = new Job<>(task);
+        synchronized (this) {
+            if (running < maxConcurrency) {
+                running++;
+            } else if (interactive.size() + batch.size() < queueCapacity) {
+                (priority == JobPriority.INTERACTIVE ? interactive : batch).addLast(job);
+                return job.result;
+            } else {
+                rejected++;
+                return CompletableFuture.failedFuture(
+                        new RejectedExecutionException("Stage " + name + " is saturated: " + metrics()));
+            }
+        }
+        start(job);
+        return job.result;
+    }
+
+    public synchronized StageMetrics metrics() {
+        return new StageMetrics(name, maxConcurrency, queueCapacity, running, interactive.size(), batch.size(), completed, rejected);
+    }
+
+    private <T> void start(Job<T> job) {
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            Job<?> next = release();
+            job.result.completeExceptionally(e);
+            startNext(next);
+        }
+    }
+
+    private <T> void run(Job<T> job) {
+        CompletableFuture<T> future;
+        if (job.result.isDone()) {
+            // anulowane w kolejce
+            future = CompletableFuture.completedFuture(null);
+        } else {
+            try {
+                future = job.task.get();
+            } catch (Throwable t) {
+                future = CompletableFuture.failedFuture(t);
+            }
+        }
+        future.whenComplete((value, error) -> {
+            // metryki i kolejka przed zakończeniem wyniku, żeby oczekujący na wynik widział już zakończony etap
+            Job<?> next = release();
+            if (error != null) {
+                job.result.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error);
+            } else {
+                job.result.complete(value);
+            }
+            startNext(next);
+        });
+    }
+
+    /**
+     * Zalicza zakończone zadanie i zwraca następne z kolejki, które przejmuje jego miejsce, albo null.
+     */
+    private synchronized Job<?> release() {
+        completed++;
+        Job<?> next = poll();
+        if (next == null) {
+            running--;
+        }
+        return next;
+    }
+
+    private void startNext(Job<?> next) {
+        if (next != null) {
+            start(next);
+        }
+    }
+
+    private Job<?> poll() {
+        boolean batchTurn = !batch.isEmpty() && (interactive.isEmpty() || interactiveStreak >= INTERACTIVE_BURST);
+        if (batchTurn) {
+            interactiveStreak = 0;
+            return batch.pollFirst();
+        }
+        Job<?> next = interactive.pollFirst();
+        if (next != null) {
+            interactiveStreak++;
+        }
+        return next;
+    }
+
+    private static final class Job<T> {
+        private final Supplier<CompletableFuture<T>> task;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private Job(Supplier<CompletableFuture<T>> task) {
+            this.task = task;
+        }
+    }
+}
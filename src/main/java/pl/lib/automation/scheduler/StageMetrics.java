@@ -0,0 +1,84 @@
+package pl.lib.automation.scheduler;
+
+/**
+ * Migawka obciążenia etapu {@link ReportStage}.
+ */
+public final class StageMetrics {
+
+    private final String name;
+    private final int maxConcurrency;
+    private final int queueCapacity;
+    private final int running;
+    private final int queuedInteractive;
+    private final int queuedBatch;
+    private final long completed;
+    private final long rejected;
+
+    public StageMetrics(String name, int maxConcurrency, int queueCapacity, int running,
+                        int queuedInteractive, int queuedBatch, long completed, long rejected) {
+        this.name = name;
+        this.maxConcurrency = maxConcurrency;
+        this.queueCapacity = queueCapacity;
+        this.running = running;
+        this.queuedInteractive = queuedInteractive;
+        this.queuedBatch = queuedBatch;
+        this.completed = completed;
+        this.rejected = rejected;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public int getRunning() {
+        return running;
+    }
+
+    public int getQueuedInteractive() {
+        return queuedInteractive;
+    }
+
+    public int getQueuedBatch() {
+        return queuedBatch;
+    }
+
+    public int getQueued() {
+        return queuedInteractive + queuedBatch;
+    }
+
+    public long getCompleted() {
+        return completed;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Wykorzystanie limitu współbieżności (0..1).
+     */
+    public double getSaturation() {
+        return (double) running / maxConcurrency;
+    }
+
+    /**
+     * Zapełnienie kolejki (0..1).
+     */
+    public double getQueueUtilization() {
+        return queueCapacity > 0 ? (double) getQueued() / queueCapacity : 0;
+    }
+
+    @Override
+    public String toString() {
+        return name + "[running=" + running + "/" + maxConcurrency + ", queued=" + queuedInteractive + "+" + queuedBatch
+                + "/" + queueCapacity + ", completed=" + completed + ", rejected=" + rejected + "]";
+    }
+}
@@ -0,0 +1,223 @@
+package pl.lib.automation.util;
+
+import pl.lib.config.BudgetTableConfig;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+/**
+ * Niezmienny, bezpieczny wątkowo formater kwot i procentów.
+ * Daje ten sam wynik co wzorce DecimalFormat "#,##0.00" i "0.00" używane wcześniej przez {@link CurrencyFormatter},
+ * ale grupowanie cyfr i stałą liczbę miejsc po przecinku wykonuje ręcznie, dopisując znaki do przekazanego bufora.
+ */
+public final class AmountFormatter {
+
+    public static final AmountFormatter PLN = new AmountFormatter("zł", ' ', ',', 2);
+
+    private static final BigDecimal HUNDRED = BigDecimal.valueOf(100);
+    private static final int PERCENT_SCALE = 2;
+    private static final int GROUPING_SIZE = 3;
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L,
+            10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L, 10_000_000_000_000L, 100_000_000_000_000L,
+            1_000_000_000_000_000L, 10_000_000_000_000_000L, 100_000_000_000_000_000L, 1_000_000_000_000_000_000L
+    };
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(32));
+
+    private final String currencySymbol;
+    private final char thousandsSeparator;
+    private final char decimalSeparator;
+    private final int decimalPlaces;
+    private final boolean grouping;
+    private final String negativePrefix;
+    private final char zeroDigit;
+
+    public AmountFormatter(String currencySymbol, char thousandsSeparator, char decimalSeparator, int decimalPlaces) {
+        this(currencySymbol, thousandsSeparator, decimalSeparator, decimalPlaces, Locale.getDefault());
+    }
+
+    public AmountFormatter(String currencySymbol, char thousandsSeparator, char decimalSeparator, int decimalPlaces, Locale locale) {
+        this(currencySymbol, thousandsSeparator, decimalSeparator, decimalPlaces, true, locale);
+    }
+
+    public AmountFormatter(String currencySymbol, char thousandsSeparator, char decimalSeparator, int decimalPlaces,
+                           boolean grouping, Locale locale) {
+        this.currencySymbol = currencySymbol;
+        this.thousandsSeparator = thousandsSeparator;
+        this.decimalSeparator = decimalSeparator;
+        this.decimalPlaces = Math.max(0, decimalPlaces);
+        this.grouping = grouping;
+
+        DecimalFormatSymbols symbols = new DecimalFormatSymbols(locale);
+        this.zeroDigit = symbols.getZeroDigit();
+        this.negativePrefix = new DecimalFormat("0", symbols).getNegativePrefix();
+    }
+
+    /**
+     * Formater zgodny z wzorcami trybu liczbowego tabeli budżetu ({@link BudgetTableConfig#getAmountPattern()}).
+     */
+    public static AmountFormatter forBudget(BudgetTableConfig config) {
+        return new AmountFormatter(config.getCurrencySymbol(), config.getThousandsSeparator(), config.getDecimalSeparator(),
+                config.getDecimalPlaces(), config.isUseThousandsSeparator(), Locale.getDefault());
+    }
+
+    public String formatAmount(BigDecimal amount) {
+        StringBuilder buffer = buffer();
+        appendAmount(buffer, amount);
+        return buffer.toString();
+    }
+
+    public String formatAmountWithoutCurrency(BigDecimal amount) {
+        StringBuilder buffer = buffer();
+        appendAmountWithoutCurrency(buffer, amount);
+        return buffer.toString();
+    }
+
+    public String formatPercent(BigDecimal value) {
+        StringBuilder buffer = buffer();
+        appendPercentDirect(buffer, value != null ? value.multiply(HUNDRED) : BigDecimal.ZERO);
+        return buffer.toString();
+    }
+
+    public String formatPercentDirect(BigDecimal percentValue) {
+        StringBuilder buffer = buffer();
+        appendPercentDirect(buffer, percentValue != null ? percentValue : BigDecimal.ZERO);
+        return buffer.toString();
+    }
+
+    public String calculateAndFormatExecutionPercent(BigDecimal planned, BigDecimal actual) {
+        BigDecimal percent = planned == null || planned.compareTo(BigDecimal.ZERO) == 0 || actual == null
+                ? BigDecimal.ZERO
+                : actual.divide(planned, 4, RoundingMode.HALF_UP).multiply(HUNDRED);
+        StringBuilder buffer = buffer();
+        appendPercentDirect(buffer, percent);
+        return buffer.toString();
+    }
+
+    public String formatDifference(BigDecimal difference) {
+        StringBuilder buffer = buffer();
+        appendDifference(buffer, difference);
+        return buffer.toString();
+    }
+
+    public String formatDifferenceWithoutCurrency(BigDecimal difference) {
+        StringBuilder buffer = buffer();
+        appendDifferenceWithoutCurrency(buffer, difference);
+        return buffer.toString();
+    }
+
+    public StringBuilder appendAmount(StringBuilder target, BigDecimal amount) {
+        appendAmountWithoutCurrency(target, amount);
+        return target.append(' ').append(currencySymbol);
+    }
+
+    public StringBuilder appendAmountWithoutCurrency(StringBuilder target, BigDecimal amount) {
+        return appendNumber(target, amount != null ? amount : BigDecimal.ZERO, decimalPlaces, grouping);
+    }
+
+    public StringBuilder appendPercentDirect(StringBuilder target, BigDecimal percentValue) {
+        BigDecimal rounded = percentValue.setScale(PERCENT_SCALE, RoundingMode.HALF_UP);
+        return appendNumber(target, rounded, PERCENT_SCALE, false).append('%');
+    }
+
+    public StringBuilder appendDifference(StringBuilder target, BigDecimal difference) {
+        if (difference == null) {
+            return appendAmount(target, BigDecimal.ZERO);
+        }
+        if (difference.signum() >= 0) {
+            target.append('+');
+        }
+        return appendAmount(target, difference);
+    }
+
+    public StringBuilder appendDifferenceWithoutCurrency(StringBuilder target, BigDecimal difference) {
+        if (difference == null) {
+            return appendAmountWithoutCurrency(target, BigDecimal.ZERO);
+        }
+        if (difference.signum() >= 0) {
+            target.append('+');
+        }
+        return appendAmountWithoutCurrency(target, difference);
+    }
+
+    private StringBuilder appendNumber(StringBuilder target, BigDecimal value, int scale, boolean grouping) {
+        if (value.signum() < 0) {
+            target.append(negativePrefix);
+        }
+
+        BigDecimal rounded = value.abs().setScale(scale, RoundingMode.HALF_EVEN);
+        if (rounded.precision() < POWERS_OF_TEN.length) {
+            return appendDigits(target, rounded.scaleByPowerOfTen(scale).longValue(), scale, grouping);
+        }
+        return appendDigits(target, rounded.unscaledValue().toString(), scale, grouping);
+    }
+
+    /**
+     * Szybka ścieżka dla wartości mieszczących się w long: cyfry są zapisywane bez pośredniego Stringa.
+     */
+    private StringBuilder appendDigits(StringBuilder target, long unscaled, int scale, boolean grouping) {
+        int digitCount = 1;
+        while (digitCount < POWERS_OF_TEN.length && unscaled >= POWERS_OF_TEN[digitCount]) {
+            digitCount++;
+        }
+        int length = Math.max(digitCount, scale + 1);
+        for (int position = length - 1; position >= 0; position--) {
+            appendSeparator(target, position, length, scale, grouping);
+            int digit = (int) ((unscaled / POWERS_OF_TEN[position]) % 10);
+            target.append((char) (zeroDigit + digit));
+        }
+        return target;
+    }
+
+    private StringBuilder appendDigits(StringBuilder target, String digits, int scale, boolean grouping) {
+        int length = Math.max(digits.length(), scale + 1);
+        int padding = length - digits.length();
+        for (int position = length - 1; position >= 0; position--) {
+            appendSeparator(target, position, length, scale, grouping);
+            int index = length - 1 - position - padding;
+            int digit = index >= 0 ? digits.charAt(index) - '0' : 0;
+            target.append((char) (zeroDigit + digit));
+        }
+        return target;
+    }
+
+    private void appendSeparator(StringBuilder target, int position, int length, int scale, boolean grouping) {
+        if (scale > 0 && position == scale - 1) {
+            target.append(decimalSeparator);
+            return;
+        }
+        int integerPosition = position - scale;
+        if (grouping && position < length - 1 && integerPosition >= 0 && (integerPosition + 1) % GROUPING_SIZE == 0) {
+            target.append(thousandsSeparator);
+        }
+    }
+
+    private static StringBuilder buffer() {
+        StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        return buffer;
+    }
+
+    public String getCurrencySymbol() {
+        return currencySymbol;
+    }
+
+    public char getThousandsSeparator() {
+        return thousandsSeparator;
+    }
+
+    public char getDecimalSeparator() {
+        return decimalSeparator;
+    }
+
+    public int getDecimalPlaces() {
+        return decimalPlaces;
+    }
+
+    public boolean isGrouping() {
+        return grouping;
+    }
+}
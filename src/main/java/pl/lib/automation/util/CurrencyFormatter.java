@@ -1,19 +1,18 @@
 package pl.lib.automation.util;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
-import java.util.Locale;
 
+/**
+ * Konfigurowalny formater kwot. Samo formatowanie deleguje do niezmiennego {@link AmountFormatter},
+ * który jest odtwarzany przy każdej zmianie ustawień.
+ */
 public class CurrencyFormatter {
 
     private String currencySymbol;
     private char thousandsSeparator;
     private char decimalSeparator;
     private int decimalPlaces;
-    private DecimalFormat amountFormat;
-    private DecimalFormat percentFormat;
+    private AmountFormatter delegate;
 
     public CurrencyFormatter() {
         this("zł", ' ', ',', 2);
@@ -28,86 +27,44 @@ public class CurrencyFormatter {
     }
 
     private void initializeFormatters() {
-        DecimalFormatSymbols symbols = new DecimalFormatSymbols(Locale.getDefault());
-        symbols.setGroupingSeparator(thousandsSeparator);
-        symbols.setDecimalSeparator(decimalSeparator);
-
-        StringBuilder pattern = new StringBuilder("#,##0");
-        if (decimalPlaces > 0) {
-            pattern.append(".");
-            for (int i = 0; i < decimalPlaces; i++) {
-                pattern.append("0");
-            }
-        }
-        amountFormat = new DecimalFormat(pattern.toString(), symbols);
-
-        DecimalFormatSymbols percentSymbols = new DecimalFormatSymbols(Locale.getDefault());
-        percentSymbols.setDecimalSeparator(decimalSeparator);
-        percentFormat = new DecimalFormat("0.00", percentSymbols);
+        delegate = new AmountFormatter(currencySymbol, thousandsSeparator, decimalSeparator, decimalPlaces);
     }
 
     public String formatAmount(BigDecimal amount) {
-        if (amount == null) {
-            return formatAmount(BigDecimal.ZERO);
-        }
-        return amountFormat.format(amount) + " " + currencySymbol;
+        return delegate.formatAmount(amount);
     }
 
     public String formatAmountWithoutCurrency(BigDecimal amount) {
-        if (amount == null) {
-            return amountFormat.format(BigDecimal.ZERO);
-        }
-        return amountFormat.format(amount);
+        return delegate.formatAmountWithoutCurrency(amount);
     }
 
     public String formatPercent(BigDecimal value) {
-        if (value == null) {
-            return "0,00%";
-        }
-        BigDecimal percentValue = value.multiply(new BigDecimal("100"))
-                                       .setScale(2, RoundingMode.HALF_UP);
-        return percentFormat.format(percentValue) + "%";
+        return delegate.formatPercent(value);
     }
 
     public String formatPercentDirect(BigDecimal percentValue) {
-        if (percentValue == null) {
-            return "0,00%";
-        }
-        BigDecimal rounded = percentValue.setScale(2, RoundingMode.HALF_UP);
-        return percentFormat.format(rounded) + "%";
+        return delegate.formatPercentDirect(percentValue);
     }
 
     public String calculateAndFormatExecutionPercent(BigDecimal planned, BigDecimal actual) {
-        if (planned == null || planned.compareTo(BigDecimal.ZERO) == 0) {
-            return "0,00%";
-        }
-        if (actual == null) {
-            return "0,00%";
-        }
-        BigDecimal percent = actual.divide(planned, 4, RoundingMode.HALF_UP)
-                                  .multiply(new BigDecimal("100"))
-                                  .setScale(2, RoundingMode.HALF_UP);
-        return percentFormat.format(percent) + "%";
+        return delegate.calculateAndFormatExecutionPercent(planned, actual);
     }
 
     public String formatDifference(BigDecimal difference) {
-        if (difference == null) {
-            return formatAmount(BigDecimal.ZERO);
-        }
-        String sign = difference.compareTo(BigDecimal.ZERO) >= 0 ? "+" : "";
-        return sign + formatAmount(difference);
+        return delegate.formatDifference(difference);
     }
 
     public String formatDifferenceWithoutCurrency(BigDecimal difference) {
-        if (difference == null) {
-            return amountFormat.format(BigDecimal.ZERO);
-        }
-        String sign = difference.compareTo(BigDecimal.ZERO) >= 0 ? "+" : "";
-        return sign + amountFormat.format(difference);
+        return delegate.formatDifferenceWithoutCurrency(difference);
+    }
+
+    public AmountFormatter toAmountFormatter() {
+        return delegate;
     }
 
     public void setCurrencySymbol(String currencySymbol) {
         this.currencySymbol = currencySymbol;
+        initializeFormatters();
     }
 
     public void setThousandsSeparator(char thousandsSeparator) {
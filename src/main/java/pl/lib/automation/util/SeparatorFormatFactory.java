@@ -0,0 +1,62 @@
+package pl.lib.automation.util;
+
+import net.sf.jasperreports.engine.util.DefaultFormatFactory;
+import pl.lib.config.BudgetTableConfig;
+
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Fabryka formatów JasperReports podstawiająca własne separatory tysięcy i części dziesiętnej
+ * do formatów liczbowych, niezależnie od REPORT_LOCALE. Tryb zaokrąglenia jest przypisany do wzorca;
+ * wzorce spoza mapy zaokrąglane są trybem domyślnym.
+ */
+public class SeparatorFormatFactory extends DefaultFormatFactory {
+
+    private final char thousandsSeparator;
+    private final char decimalSeparator;
+    private final RoundingMode defaultRoundingMode;
+    private final Map<String, RoundingMode> patternRoundingModes;
+
+    public SeparatorFormatFactory(char thousandsSeparator, char decimalSeparator) {
+        this(thousandsSeparator, decimalSeparator, RoundingMode.HALF_EVEN, Map.of());
+    }
+
+    public SeparatorFormatFactory(char thousandsSeparator, char decimalSeparator,
+                                  RoundingMode defaultRoundingMode, Map<String, RoundingMode> patternRoundingModes) {
+        this.thousandsSeparator = thousandsSeparator;
+        this.decimalSeparator = decimalSeparator;
+        this.defaultRoundingMode = defaultRoundingMode;
+        this.patternRoundingModes = Map.copyOf(patternRoundingModes);
+    }
+
+    /**
+     * Kwoty i różnice zaokrąglane {@link BudgetTableConfig#getAmountRoundingMode()},
+     * wzorzec procentów {@link BudgetTableConfig#getPercentRoundingMode()}.
+     */
+    public static SeparatorFormatFactory forBudget(BudgetTableConfig config) {
+        return new SeparatorFormatFactory(config.getThousandsSeparator(), config.getDecimalSeparator(),
+                config.getAmountRoundingMode(), Map.of(config.getPercentPattern(), config.getPercentRoundingMode()));
+    }
+
+    @Override
+    public NumberFormat createNumberFormat(String pattern, Locale locale) {
+        NumberFormat format = super.createNumberFormat(pattern, locale);
+        if (format instanceof DecimalFormat) {
+            DecimalFormat decimalFormat = (DecimalFormat) format;
+            DecimalFormatSymbols symbols = decimalFormat.getDecimalFormatSymbols();
+            symbols.setGroupingSeparator(thousandsSeparator);
+            symbols.setDecimalSeparator(decimalSeparator);
+            symbols.setMonetaryDecimalSeparator(decimalSeparator);
+            decimalFormat.setDecimalFormatSymbols(symbols);
+            decimalFormat.setRoundingMode(pattern != null
+                    ? patternRoundingModes.getOrDefault(pattern, defaultRoundingMode)
+                    : defaultRoundingMode);
+        }
+        return format;
+    }
+}
@@ -0,0 +1,66 @@
+package pl.lib.automation.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Dzieli długi tekst na fragmenty wielkości akapitu.
+ * Granica jest szukana w drugiej połowie okna: najpierw koniec linii, potem koniec zdania, potem spacja.
+ * Wynik ma zawsze co najmniej jeden element.
+ */
+public final class TextChunker {
+
+    private TextChunker() {
+    }
+
+    public static List<String> split(String text, int maxLength) {
+        if (text == null || maxLength <= 0 || text.length() <= maxLength) {
+            return Collections.singletonList(text);
+        }
+
+        List<String> chunks = new ArrayList<>(text.length() / maxLength + 1);
+        int position = 0;
+        int length = text.length();
+        while (position < length) {
+            int end;
+            if (length - position <= maxLength) {
+                end = length;
+            } else {
+                end = findBreak(text, position, position + maxLength);
+            }
+            String chunk = text.substring(position, end).strip();
+            if (!chunk.isEmpty()) {
+                chunks.add(chunk);
+            }
+            position = end;
+        }
+        if (chunks.isEmpty()) {
+            // same białe znaki: jeden pusty fragment, żeby wartość nie znikała
+            chunks.add(text.strip());
+        }
+        return chunks;
+    }
+
+    private static int findBreak(String text, int start, int limit) {
+        int from = start + (limit - start) / 2;
+
+        int lineBreak = text.lastIndexOf('\n', limit - 1);
+        if (lineBreak >= from) {
+            return lineBreak + 1;
+        }
+
+        for (int i = limit - 1; i > from; i--) {
+            char c = text.charAt(i - 1);
+            if ((c == '.' || c == '!' || c == '?' || c == ';') && Character.isWhitespace(text.charAt(i))) {
+                return i + 1;
+            }
+        }
+
+        int space = text.lastIndexOf(' ', limit - 1);
+        if (space >= from) {
+            return space + 1;
+        }
+        return limit;
+    }
+}
@@ -1,5 +1,7 @@
 package pl.lib.config;
 
+import java.math.RoundingMode;
+
 public class BudgetTableConfig {
 
     private boolean showCode = true;
@@ -11,6 +13,9 @@ public class BudgetTableConfig {
     private String currencySymbol = "zł";
     private boolean useThousandsSeparator = true;
     private int decimalPlaces = 2;
+    private char thousandsSeparator = ' ';
+    private char decimalSeparator = ',';
+    private boolean numericAmounts = false;
 
     public BudgetTableConfig() {
     }
@@ -87,6 +92,67 @@ public class BudgetTableConfig {
         this.decimalPlaces = decimalPlaces;
     }
 
+    public char getThousandsSeparator() {
+        return thousandsSeparator;
+    }
+
+    public void setThousandsSeparator(char thousandsSeparator) {
+        this.thousandsSeparator = thousandsSeparator;
+    }
+
+    public char getDecimalSeparator() {
+        return decimalSeparator;
+    }
+
+    public void setDecimalSeparator(char decimalSeparator) {
+        this.decimalSeparator = decimalSeparator;
+    }
+
+    /**
+     * Gdy włączone, kwoty i procenty trafiają do raportu jako BigDecimal i są formatowane
+     * wzorcami pól tekstowych dopiero przy renderowaniu (eksport XLSX/CSV dostaje liczby).
+     */
+    public boolean isNumericAmounts() {
+        return numericAmounts;
+    }
+
+    public void setNumericAmounts(boolean numericAmounts) {
+        this.numericAmounts = numericAmounts;
+    }
+
+    /**
+     * Wzorzec kwoty dla trybu liczbowego, np. "#,##0.00".
+     * Jak w trybie tekstowym komórki nie zawierają symbolu waluty.
+     * Znaki separatorów we wzorcu są zawsze ',' i '.', a właściwe znaki podstawia fabryka formatów raportu.
+     */
+    public String getAmountPattern() {
+        StringBuilder pattern = new StringBuilder(useThousandsSeparator ? "#,##0" : "0");
+        if (decimalPlaces > 0) {
+            pattern.append('.').append("0".repeat(decimalPlaces));
+        }
+        return pattern.toString();
+    }
+
+    public String getDifferencePattern() {
+        String amountPattern = getAmountPattern();
+        return "+" + amountPattern + ";-" + amountPattern;
+    }
+
+    public String getPercentPattern() {
+        return "0.00'%'";
+    }
+
+    /**
+     * Zaokrąglenie kwot i różnic w trybie liczbowym, takie jak w trybie tekstowym.
+     */
+    public RoundingMode getAmountRoundingMode() {
+        return RoundingMode.HALF_EVEN;
+    }
+
+    public RoundingMode getPercentRoundingMode() {
+        return RoundingMode.HALF_UP;
+    }
+
     public static BudgetTableConfig defaultConfig() {
         return new BudgetTableConfig();
     }
@@ -16,6 +16,9 @@ public class ChartConfig {
     private boolean show3D = false;
     private String categoryAxisLabel;
     private String valueAxisLabel;
+    private boolean dataReduction = false;
+    private int maxDataPoints = 0;
+    private int maxCategories = 10;
 
     public ChartConfig() {
     }
@@ -83,6 +86,24 @@ public class ChartConfig {
             return this;
         }
 
+        /**
+         * Włącza redukcję danych przed budową źródła danych: LTTB dla LINE/AREA, top-N + "Pozostałe" dla PIE/BAR.
+         */
+        public Builder dataReduction(boolean enabled) {
+            config.dataReduction = enabled;
+            return this;
+        }
+
+        public Builder maxDataPoints(int maxDataPoints) {
+            config.maxDataPoints = maxDataPoints;
+            return this;
+        }
+
+        public Builder maxCategories(int maxCategories) {
+            config.maxCategories = maxCategories;
+            return this;
+        }
+
         public ChartConfig build() {
             return config;
         }
@@ -167,5 +188,31 @@ public class ChartConfig {
     public void setValueAxisLabel(String valueAxisLabel) {
         this.valueAxisLabel = valueAxisLabel;
     }
-}
 
+    public boolean isDataReduction() {
+        return dataReduction;
+    }
+
+    public void setDataReduction(boolean dataReduction) {
+        this.dataReduction = dataReduction;
+    }
+
+    /**
+     * Maksymalna liczba punktów serii czasowej po redukcji; 0 oznacza szerokość wykresu w pikselach.
+     */
+    public int getMaxDataPoints() {
+        return maxDataPoints;
+    }
+
+    public void setMaxDataPoints(int maxDataPoints) {
+        this.maxDataPoints = maxDataPoints;
+    }
+
+    public int getMaxCategories() {
+        return maxCategories;
+    }
+
+    public void setMaxCategories(int maxCategories) {
+        this.maxCategories = maxCategories;
+    }
+}
@@ -0,0 +1,75 @@
+package pl.lib.automation;
+
+import net.sf.jasperreports.engine.JRException;
+import org.junit.jupiter.api.Test;
+import pl.lib.automation.scheduler.JobPriority;
+import pl.lib.automation.scheduler.ReportScheduler;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AsyncReportServiceTest {
+
+    @Test
+    void shouldGenerateReportAsynchronously() throws Exception {
+        ReportResult result = new AsyncReportService()
+                .generatePdf("{ \"Sekcja\": { \"opis\": \"Tekst\" } }", "Raport", "Chełm", false)
+                .get(60, TimeUnit.SECONDS);
+
+        assertThat(result.getPageCount()).isPositive();
+        assertThat(result.getJasperPrint().getName()).isEqualTo("Raport");
+        assertThat(result.getPdf()).startsWith(0x25, 0x50, 0x44, 0x46);
+        assertThat(result.getDuration()).isPositive();
+    }
+
+    @Test
+    void shouldRunStagesOnScheduler() throws Exception {
+        try (ReportScheduler scheduler = new ReportScheduler(1, 2, 1, 8)) {
+            ReportResult result = new AsyncReportService()
+                    .withScheduler(scheduler)
+                    .generatePdf("{ \"Sekcja\": { \"opis\": \"Tekst\" } }", "Raport", "Chełm", false, JobPriority.BATCH)
+                    .get(60, TimeUnit.SECONDS);
+
+            assertThat(result.getPdf()).isNotEmpty();
+            assertThat(scheduler.getMetrics())
+                    .allSatisfy(metrics -> assertThat(metrics.getCompleted()).isEqualTo(1));
+        }
+    }
+
+    @Test
+    void shouldStopFillWhenPageLimitIsExceeded() {
+        CompletableFuture<ReportResult> future = new AsyncReportService()
+                .withMaxPages(1)
+                .generateReport(manySections(400), "Raport", "Chełm", false);
+
+        assertThatThrownBy(() -> future.get(60, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(JRException.class)
+                .hasMessageContaining("page limit");
+    }
+
+    @Test
+    void shouldFailWithTimeoutAfterDeadline() {
+        CompletableFuture<ReportResult> future = new AsyncReportService()
+                .withDeadline(Duration.ofMillis(1))
+                .generateReport(manySections(2000), "Raport", "Chełm", false);
+
+        assertThatThrownBy(() -> future.get(60, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(TimeoutException.class);
+    }
+
+    private static String manySections(int count) {
+        StringBuilder json = new StringBuilder("{");
+        for (int i = 0; i < count; i++) {
+            json.append(i > 0 ? "," : "").append("\"sekcja_").append(i).append("\": { \"opis\": \"Tekst sekcji ").append(i).append("\" }");
+        }
+        return json.append("}").toString();
+    }
+}
@@ -1,7 +1,14 @@
 package pl.lib.automation;
 import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRPrintElement;
+import net.sf.jasperreports.engine.JRPrintPage;
+import net.sf.jasperreports.engine.JRPrintText;
+import net.sf.jasperreports.engine.JasperPrint;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
+import pl.lib.api.ReportBuilder;
+import pl.lib.automation.page.TocPageResolver;
+import pl.lib.automation.pipeline.DocumentAnalysis;
 import pl.lib.config.ReportConfig;
 import pl.lib.model.ColorSettings;
 import pl.lib.model.CompanyInfo;
@@ -9,6 +16,8 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
 import static org.junit.jupiter.api.Assertions.*;
 class AutomatedReportFacadeTest {
     @Test
@@ -345,4 +354,63 @@ class AutomatedReportFacadeTest {
         }
         System.out.println("PDF wygenerowany: " + outputFile.getAbsolutePath());
     }
+    @Test
+    void createCompositePrints_tocPageNumbersShouldMatchContentFooter() throws JRException, IOException {
+        StringBuilder jsonBuilder = new StringBuilder("{");
+        for (int section = 0; section < 30; section++) {
+            if (section > 0) jsonBuilder.append(",");
+            jsonBuilder.append("\"Sekcja ").append(section).append("\": {");
+            for (int key = 0; key < 8; key++) {
+                if (key > 0) jsonBuilder.append(",");
+                jsonBuilder.append("\"pole").append(key).append("\": \"wartość ").append(section * 8 + key).append("\"");
+            }
+            jsonBuilder.append("}");
+        }
+        jsonBuilder.append("}");
+        DocumentAnalysis analysis = new JsonReportGenerator().analyze(jsonBuilder.toString());
+        ReportConfig config = new ReportConfig.Builder()
+                .title("Raport ze Spisem")
+                .pageFormat("A4")
+                .build();
+        List<JasperPrint> prints = new AutomatedReportFacade().createCompositePrints(analysis, config);
+        JasperPrint content = prints.get(prints.size() - 1);
+        Map<String, Integer> anchorPages = new TocPageResolver().collectAnchorPages(content);
+        assertTrue(content.getPages().size() > 1, "Treść powinna mieć kilka stron");
+        int lastPage = 0;
+        for (Map<String, Object> entry : analysis.getTocEntries()) {
+            int page = anchorPages.get((String) entry.get("anchor"));
+            assertEquals(ReportBuilder.PAGE_NUMBER_PREFIX + entry.get("pageIndex"), footerText(content.getPages().get(page - 1)));
+            lastPage = Math.max(lastPage, page);
+        }
+        assertTrue(lastPage > 1, "Spis powinien wskazywać także dalsze strony");
+    }
+    private static String footerText(JRPrintPage page) {
+        for (JRPrintElement element : page.getElements()) {
+            if (element instanceof JRPrintText && ReportBuilder.PAGE_NUMBER_KEY.equals(element.getKey())) {
+                return ((JRPrintText) element).getFullText();
+            }
+        }
+        return null;
+    }
+    @Test
+    void generateCompositeReport_shouldFillTitleOnExecutor() throws JRException, IOException {
+        java.util.concurrent.atomic.AtomicInteger tasks = new java.util.concurrent.atomic.AtomicInteger();
+        java.util.concurrent.ExecutorService pool = java.util.concurrent.Executors.newFixedThreadPool(2);
+        try {
+            AutomatedReportFacade facade = new AutomatedReportFacade().withExecutor(task -> {
+                tasks.incrementAndGet();
+                pool.execute(task);
+            });
+            String jsonContent = "{ \"sekcja\": { \"pole\": \"wartość\" }, \"druga\": { \"pole\": 1 } }";
+            ReportConfig config = new ReportConfig.Builder()
+                    .title("Raport Równoległy")
+                    .pageFormat("A4")
+                    .build();
+            byte[] pdfBytes = facade.generateCompositeReport(jsonContent, config);
+            assertTrue(pdfBytes.length > 0);
+            assertEquals(1, tasks.get(), "Strona tytułowa powinna trafić do wykonawcy");
+        } finally {
+            pool.shutdown();
+        }
+    }
 }
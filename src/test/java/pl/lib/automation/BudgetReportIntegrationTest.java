@@ -3,8 +3,14 @@ package pl.lib.automation;
 import net.sf.jasperreports.engine.JRException;
 import net.sf.jasperreports.engine.JasperExportManager;
 import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JRPrintElement;
+import net.sf.jasperreports.engine.JRPrintFrame;
+import net.sf.jasperreports.engine.JRPrintPage;
+import net.sf.jasperreports.engine.JRPrintText;
 import org.junit.jupiter.api.Test;
+import pl.lib.automation.util.AmountFormatter;
 import pl.lib.automation.util.CurrencyFormatter;
+import pl.lib.automation.util.SeparatorFormatFactory;
 import pl.lib.config.BudgetTableConfig;
 import pl.lib.model.BudgetHierarchyNode;
 import pl.lib.model.BudgetNodeType;
@@ -12,6 +18,10 @@ import pl.lib.model.BudgetNodeType;
 import java.io.File;
 import java.io.IOException;
 import java.math.BigDecimal;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -221,6 +231,101 @@ class BudgetReportIntegrationTest {
         System.out.println("✓ Prosty raport budżetowy: " + outputFile.getAbsolutePath());
     }
 
+    @Test
+    void shouldRenderNumericBudgetAmountsWithConfiguredPatterns() throws JRException, IOException {
+        String simpleBudget = """
+            {
+              "budzet_2024": {
+                "struktura": [
+                  {"kod": "750", "nazwa": "Administracja publiczna", "plan": 9000000.00, "wykonanie": 8750000.00}
+                ]
+              }
+            }
+            """;
+
+        BudgetTableConfig config = BudgetTableConfig.defaultConfig();
+        config.setNumericAmounts(true);
+
+        JasperPrint print = new JsonReportGenerator()
+                .withBudgetTableConfig(config)
+                .generateReport(simpleBudget, "Tabela liczbowa", "Warszawa", false);
+
+        List<String> texts = new ArrayList<>();
+        for (JRPrintPage page : print.getPages()) {
+            collectTexts(page.getElements(), texts);
+        }
+
+        assertTrue(texts.contains("9 000 000,00"), texts.toString());
+        assertTrue(texts.contains("97,22%"), texts.toString());
+        assertTrue(texts.contains("+250 000,00"), texts.toString());
+    }
+
+    @Test
+    void shouldRenderSameTextsInNumericAndStringModes() throws JRException, IOException {
+        String budget = """
+            {
+              "budzet_2024": {
+                "struktura": [
+                  {"kod": "750", "nazwa": "Administracja", "level": 1, "plan": 8000.00, "wykonanie": 987.60,
+                   "dzieci": [{"kod": "75011", "nazwa": "Urzędy", "level": 2, "plan": 1000.005, "wykonanie": 1000.015}]},
+                  {"kod": "801", "nazwa": "Oświata", "level": 1, "plan": 3.00, "wykonanie": 4.125}
+                ]
+              }
+            }
+            """;
+
+        List<String> stringTexts = renderBudgetTexts(budget, BudgetTableConfig.defaultConfig(), false);
+        List<String> numericTexts = renderBudgetTexts(budget, BudgetTableConfig.defaultConfig(), true);
+
+        assertTrue(stringTexts.contains("12,35%"), stringTexts.toString());
+        assertEquals(stringTexts, numericTexts);
+
+        BudgetTableConfig custom = BudgetTableConfig.defaultConfig();
+        custom.setDecimalPlaces(1);
+        custom.setDecimalSeparator('.');
+        custom.setUseThousandsSeparator(false);
+        List<String> customStringTexts = renderBudgetTexts(budget, custom, false);
+
+        assertTrue(customStringTexts.contains("8000.0"), customStringTexts.toString());
+        assertTrue(customStringTexts.contains("12.35%"), customStringTexts.toString());
+        assertEquals(customStringTexts, renderBudgetTexts(budget, custom, true));
+    }
+
+    @Test
+    void shouldRoundPercentPatternLikeAmountFormatter() {
+        BudgetTableConfig config = BudgetTableConfig.defaultConfig();
+        NumberFormat percent = SeparatorFormatFactory.forBudget(config).createNumberFormat(config.getPercentPattern(), Locale.ROOT);
+        NumberFormat amount = SeparatorFormatFactory.forBudget(config).createNumberFormat(config.getAmountPattern(), Locale.ROOT);
+
+        AmountFormatter formatter = AmountFormatter.forBudget(config);
+
+        assertEquals(formatter.formatPercentDirect(new BigDecimal("12.345")), percent.format(new BigDecimal("12.345")));
+        assertEquals(formatter.formatAmountWithoutCurrency(new BigDecimal("1000.005")), amount.format(new BigDecimal("1000.005")));
+    }
+
+    private List<String> renderBudgetTexts(String budget, BudgetTableConfig config, boolean numericAmounts)
+            throws JRException, IOException {
+        config.setNumericAmounts(numericAmounts);
+        JasperPrint print = new JsonReportGenerator()
+                .withBudgetTableConfig(config)
+                .generateReport(budget, "Tabela", "Warszawa", false);
+        List<String> texts = new ArrayList<>();
+        for (JRPrintPage page : print.getPages()) {
+            collectTexts(page.getElements(), texts);
+        }
+        return texts;
+    }
+
+    private void collectTexts(List<JRPrintElement> elements, List<String> texts) {
+        for (JRPrintElement element : elements) {
+            if (element instanceof JRPrintText) {
+                texts.add(((JRPrintText) element).getFullText());
+            } else if (element instanceof JRPrintFrame) {
+                collectTexts(((JRPrintFrame) element).getElements(), texts);
+            }
+        }
+    }
+
     @Test
     void shouldHandleDeepHierarchy() {
         BudgetHierarchyNode section = new BudgetHierarchyNode("750", "Administracja publiczna", BudgetNodeType.SECTION, 1);
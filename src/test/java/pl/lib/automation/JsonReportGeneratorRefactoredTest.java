@@ -2,6 +2,7 @@ package pl.lib.automation;
 import net.sf.jasperreports.engine.JasperExportManager;
 import net.sf.jasperreports.engine.JasperPrint;
 import org.junit.jupiter.api.Test;
+import pl.lib.automation.analyzer.JsonStructureAnalyzer;
 import java.io.File;
 import static org.assertj.core.api.Assertions.assertThat;
 class JsonReportGeneratorRefactoredTest {
@@ -57,4 +58,16 @@ class JsonReportGeneratorRefactoredTest {
         System.out.println("📄 Rozmiar pliku: " + pdfFile.length() + " bajtów");
         System.out.println("📊 Liczba stron: " + jasperPrint.getPages().size());
     }
+
+    @Test
+    void shouldAnalyzeWithInjectedStructureAnalyzer() throws Exception {
+        String json = "{\"opis\": \"" + "Zdanie opisu. ".repeat(100) + "\"}";
+        JsonStructureAnalyzer analyzer = new JsonStructureAnalyzer();
+        analyzer.setMaxValueChunkLength(0);
+
+        JsonReportGenerator generator = new JsonReportGenerator().withStructureAnalyzer(analyzer);
+
+        assertThat(generator.analyze(json).getElements()).hasSize(1);
+        assertThat(new JsonReportGenerator().analyze(json).getElements()).hasSizeGreaterThan(1);
+    }
 }
@@ -0,0 +1,20 @@
+package pl.lib.automation;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReportWarmUpTest {
+
+    @Test
+    void shouldRunEveryPathAndReportTimings() throws Exception {
+        ReportWarmUp.Result result = new ReportWarmUp().run();
+
+        assertThat(result.getSteps()).containsOnlyKeys("fonts", "table", "grouped", "budget", "chart", "composite", "export");
+        Duration sum = result.getSteps().values().stream().reduce(Duration.ZERO, Duration::plus);
+        assertThat(result.getTotal()).isGreaterThanOrEqualTo(sum);
+        assertThat(result.toString()).startsWith("Warm-up took ");
+    }
+}
@@ -0,0 +1,176 @@
+package pl.lib.automation.analyzer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+import pl.lib.model.BudgetHierarchyNode;
+import pl.lib.model.BudgetNodeType;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BudgetStructureAnalyzerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BudgetStructureAnalyzer analyzer = new BudgetStructureAnalyzer();
+
+    @Test
+    void shouldBuildTreeInDocumentOrder() throws Exception {
+        JsonNode json = objectMapper.readTree("""
+            {
+              "struktura": [
+                {"kod": "750", "nazwa": "Administracja", "plan": 0, "wykonanie": 0, "dzieci": [
+                  {"kod": "75011", "nazwa": "Urzędy wojewódzkie", "plan": 500, "wykonanie": 450},
+                  {"kod": "75023", "nazwa": "Urzędy gmin", "plan": 300, "wykonanie": 280, "dzieci": [
+                    {"kod": "4010", "nazwa": "Wynagrodzenia", "plan": 200, "wykonanie": 190}
+                  ]}
+                ]},
+                {"kod": "801", "nazwa": "Oświata", "plan": 1000, "wykonanie": 900}
+              ]
+            }
+            """);
+
+        BudgetHierarchyNode root = analyzer.buildBudgetTree(json);
+        List<BudgetHierarchyNode> flat = analyzer.flattenTree(root);
+
+        assertEquals(List.of("750", "75011", "75023", "4010", "801"),
+                flat.stream().map(BudgetHierarchyNode::getCode).toList());
+        assertEquals(3, flat.get(3).getLevel());
+        assertEquals(new BigDecimal("800"), flat.get(0).getPlannedAmount());
+        assertEquals(new BigDecimal("730"), flat.get(0).getActualAmount());
+        assertEquals(new BigDecimal("300"), flat.get(2).getPlannedAmount());
+    }
+
+    @Test
+    void shouldKeepNonZeroParentAmounts() throws Exception {
+        JsonNode json = objectMapper.readTree("""
+            {"struktura": [
+              {"kod": "010", "nazwa": "Rolnictwo", "plan": 999, "wykonanie": 0, "dzieci": [
+                {"kod": "01010", "nazwa": "Wodociągi", "plan": 300, "wykonanie": 285}
+              ]}
+            ]}
+            """);
+
+        BudgetHierarchyNode section = analyzer.buildBudgetTree(json).getChildren().get(0);
+
+        assertEquals(new BigDecimal("999"), section.getPlannedAmount());
+        assertEquals(new BigDecimal("285"), section.getActualAmount());
+    }
+
+    @Test
+    void shouldHandleVeryDeepNestingWithoutStackOverflow() {
+        int depth = 50_000;
+        ObjectNode top = objectMapper.createObjectNode();
+        ObjectNode current = top;
+        for (int i = 1; i < depth; i++) {
+            current.put("kod", String.valueOf(i));
+            current.put("nazwa", "Poziom " + i);
+            ArrayNode children = current.putArray("dzieci");
+            current = children.addObject();
+        }
+        current.put("kod", String.valueOf(depth));
+        current.put("nazwa", "Liść");
+        current.put("plan", 10);
+        current.put("wykonanie", 7);
+
+        ObjectNode budget = objectMapper.createObjectNode();
+        budget.putArray("struktura").add(top);
+
+        BudgetHierarchyNode root = analyzer.buildBudgetTree(budget);
+        List<BudgetHierarchyNode> flat = analyzer.flattenTree(root);
+
+        assertEquals(depth, flat.size());
+        assertEquals(depth, flat.get(depth - 1).getLevel());
+        assertEquals(new BigDecimal("10"), flat.get(0).getPlannedAmount());
+        assertEquals(new BigDecimal("7"), root.getActualAmount());
+    }
+
+    @Test
+    void parallelAggregationShouldMatchSequential() {
+        for (long seed = 1; seed <= 5; seed++) {
+            BudgetHierarchyNode sequentialTree = randomTree(new Random(seed), 20_000);
+            BudgetHierarchyNode parallelTree = copyTree(sequentialTree);
+
+            analyzer.calculateAggregatesSequential(sequentialTree);
+            analyzer.calculateAggregatesParallel(parallelTree, 64);
+
+            List<BudgetHierarchyNode> expected = analyzer.flattenTree(sequentialTree);
+            List<BudgetHierarchyNode> actual = analyzer.flattenTree(parallelTree);
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.get(i).getPlannedAmount(), actual.get(i).getPlannedAmount(), "plan, węzeł " + i);
+                assertEquals(expected.get(i).getActualAmount(), actual.get(i).getActualAmount(), "wykonanie, węzeł " + i);
+            }
+        }
+    }
+
+    @Test
+    void parallelAggregationShouldHandleDeepChain() {
+        BudgetHierarchyNode root = new BudgetHierarchyNode("ROOT", "Budget Root", BudgetNodeType.SECTION, 0);
+        BudgetHierarchyNode current = root;
+        for (int level = 1; level <= 50_000; level++) {
+            BudgetHierarchyNode child = new BudgetHierarchyNode(String.valueOf(level), "Poziom " + level, BudgetNodeType.PARAGRAPH, level);
+            current.addChild(child);
+            current = child;
+        }
+        current.setPlannedAmount(new BigDecimal("12.50"));
+
+        new BudgetStructureAnalyzer().withParallelAggregation(16).calculateAggregates(root);
+
+        assertEquals(new BigDecimal("12.50"), root.getPlannedAmount());
+    }
+
+    private BudgetHierarchyNode randomTree(Random random, int nodeCount) {
+        BudgetHierarchyNode root = new BudgetHierarchyNode("ROOT", "Budget Root", BudgetNodeType.SECTION, 0);
+        List<BudgetHierarchyNode> nodes = new ArrayList<>();
+        nodes.add(root);
+        for (int i = 1; i < nodeCount; i++) {
+            BudgetHierarchyNode parent = nodes.get(random.nextInt(nodes.size()));
+            BudgetHierarchyNode node = new BudgetHierarchyNode("K" + i, "Pozycja " + i, BudgetNodeType.PARAGRAPH, parent.getLevel() + 1);
+            node.setPlannedAmount(randomAmount(random));
+            node.setActualAmount(randomAmount(random));
+            parent.addChild(node);
+            nodes.add(node);
+        }
+        return root;
+    }
+
+    private BigDecimal randomAmount(Random random) {
+        int kind = random.nextInt(4);
+        if (kind == 0) {
+            return BigDecimal.ZERO;
+        }
+        if (kind == 1) {
+            return null;
+        }
+        return BigDecimal.valueOf(random.nextInt(1_000_000), random.nextInt(3));
+    }
+
+    private BudgetHierarchyNode copyTree(BudgetHierarchyNode source) {
+        BudgetHierarchyNode copyRoot = copyNode(source);
+        List<BudgetHierarchyNode[]> stack = new ArrayList<>();
+        stack.add(new BudgetHierarchyNode[]{source, copyRoot});
+        while (!stack.isEmpty()) {
+            BudgetHierarchyNode[] pair = stack.remove(stack.size() - 1);
+            for (BudgetHierarchyNode child : pair[0].getChildren()) {
+                BudgetHierarchyNode childCopy = copyNode(child);
+                pair[1].addChild(childCopy);
+                stack.add(new BudgetHierarchyNode[]{child, childCopy});
+            }
+        }
+        return copyRoot;
+    }
+
+    private BudgetHierarchyNode copyNode(BudgetHierarchyNode node) {
+        BudgetHierarchyNode copy = new BudgetHierarchyNode(node.getCode(), node.getName(), node.getType(), node.getLevel());
+        copy.setPlannedAmount(node.getPlannedAmount());
+        copy.setActualAmount(node.getActualAmount());
+        return copy;
+    }
+}
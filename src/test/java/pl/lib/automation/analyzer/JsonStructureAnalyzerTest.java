@@ -0,0 +1,62 @@
+package pl.lib.automation.analyzer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonStructureAnalyzerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void shouldSplitLongValueIntoRowsWithKeyOnlyOnFirst() {
+        ObjectNode root = objectMapper.createObjectNode();
+        root.put("opis", "Długie zdanie opisu projektu. ".repeat(200));
+
+        JsonStructureAnalyzer analyzer = new JsonStructureAnalyzer();
+        List<ReportElement> elements = analyzer.flattenJson(root);
+
+        assertTrue(elements.size() > 1);
+        assertEquals("opis", elements.get(0).getText());
+        for (ReportElement element : elements) {
+            assertEquals("KEY_VALUE", element.getType());
+            assertEquals(1, element.getLevel());
+            assertTrue(element.getValue().length() <= JsonStructureAnalyzer.DEFAULT_MAX_VALUE_CHUNK_LENGTH);
+        }
+        assertNull(elements.get(1).getText());
+    }
+
+    @Test
+    void shouldKeepLongValueWhenChunkingIsDisabled() {
+        ObjectNode root = objectMapper.createObjectNode();
+        root.put("opis", "x ".repeat(2000));
+
+        JsonStructureAnalyzer analyzer = new JsonStructureAnalyzer();
+        analyzer.setMaxValueChunkLength(0);
+
+        assertEquals(1, analyzer.flattenJson(root).size());
+    }
+
+    @Test
+    void shouldKeepKeyForLongWhitespaceValue() {
+        ObjectNode root = objectMapper.createObjectNode();
+        root.put("opis", " ".repeat(JsonStructureAnalyzer.DEFAULT_MAX_VALUE_CHUNK_LENGTH * 2));
+
+        List<ReportElement> elements = new JsonStructureAnalyzer().flattenJson(root);
+
+        assertEquals(1, elements.size());
+        assertEquals("opis", elements.get(0).getText());
+        assertEquals("", elements.get(0).getValue());
+    }
+
+    @Test
+    void shouldAggregateBudgetsInParallelByDefault() {
+        assertEquals(BudgetStructureAnalyzer.DEFAULT_PARALLEL_THRESHOLD,
+                new JsonStructureAnalyzer().getBudgetAnalyzer().getParallelThreshold());
+        assertEquals(0, new JsonStructureAnalyzer(new BudgetStructureAnalyzer()).getBudgetAnalyzer().getParallelThreshold());
+    }
+}
@@ -0,0 +1,55 @@
+package pl.lib.automation.assembler;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.design.JRDesignBand;
+import net.sf.jasperreports.engine.design.JasperDesign;
+import org.junit.jupiter.api.Test;
+import pl.lib.automation.JsonReportGenerator;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportAssemblerTest {
+
+    private final ReportAssembler assembler = new ReportAssembler();
+
+    @Test
+    void shouldCompileCompositeTemplateOncePerVariant() throws JRException {
+        assertSame(assembler.getCompositeReport(false), new ReportAssembler().getCompositeReport(false));
+        assertNotSame(assembler.getCompositeReport(false), assembler.getCompositeReport(true));
+    }
+
+    @Test
+    void shouldKeepDetailBandIndependentOfDocumentSize() throws JRException, IOException {
+        StringBuilder json = new StringBuilder("{");
+        for (int i = 0; i < 30; i++) {
+            json.append(i > 0 ? "," : "").append("\"tabela_").append(i).append("\": [{\"a\": ").append(i).append(", \"b\": \"x\"}]");
+        }
+        json.append("}");
+
+        JasperPrint print = new JsonReportGenerator().generateReport(json.toString(), "Wiele tabel", "Chełm", false);
+        JasperDesign design = assembler.getCompositeDesign(false);
+        JRDesignBand detail = (JRDesignBand) design.getDetailSection().getBands()[0];
+
+        assertFalse(print.getPages().isEmpty());
+        assertEquals("Wiele tabel", print.getName());
+        assertEquals(3, detail.getElements().length);
+    }
+
+    @Test
+    void shouldNotExposeSharedTemplateAsLastGeneratedDesign() throws JRException, IOException {
+        JsonReportGenerator generator = new JsonReportGenerator();
+        generator.generateReport("{\"Sekcja\": {\"opis\": \"Tekst\"}}", "Raport", "Chełm", false);
+
+        JasperDesign design = generator.getLastGeneratedDesign();
+        int detailElements = ((JRDesignBand) assembler.getCompositeDesign(false).getDetailSection().getBands()[0]).getElements().length;
+        ((JRDesignBand) design.getDetailSection().getBands()[0]).getChildren().clear();
+
+        assertNotSame(assembler.getCompositeDesign(false), design);
+        assertSame(design, generator.getLastGeneratedDesign());
+        assertEquals(detailElements,
+                ((JRDesignBand) assembler.getCompositeDesign(false).getDetailSection().getBands()[0]).getElements().length);
+    }
+}
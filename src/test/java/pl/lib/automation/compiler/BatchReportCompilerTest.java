@@ -0,0 +1,60 @@
+package pl.lib.automation.compiler;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.design.JasperDesign;
+import org.junit.jupiter.api.Test;
+import pl.lib.api.ReportBuilder;
+import pl.lib.config.ReportTheme;
+import pl.lib.model.Calculation;
+import pl.lib.model.Column;
+import pl.lib.model.DataType;
+import pl.lib.model.Group;
+import pl.lib.model.ReportStyles;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BatchReportCompilerTest {
+
+    @Test
+    void shouldCompileSharedDesignOnceAndKeepKeyOrder() throws JRException {
+        JasperDesign shared = tableBuilder("Shared").buildDesign();
+        JasperDesign other = tableBuilder("Other").buildDesign();
+        Map<String, JasperDesign> designs = new LinkedHashMap<>();
+        designs.put("budzet-1", shared);
+        designs.put("tabela", other);
+        designs.put("budzet-2", shared);
+
+        Map<String, JasperReport> reports = new BatchReportCompiler().compileAll(designs);
+
+        assertThat(reports.keySet()).containsExactly("budzet-1", "tabela", "budzet-2");
+        assertThat(reports.get("budzet-2")).isSameAs(reports.get("budzet-1"));
+        assertThat(reports.get("tabela")).isNotSameAs(reports.get("budzet-1"));
+    }
+
+    @Test
+    void shouldUseFullCompilerOnlyForUnsupportedDesigns() throws JRException {
+        ReportBuilder grouped = tableBuilder("Grouped");
+        grouped.addGroup(new Group("name", "$F{name}.substring(0, 1)", ReportStyles.GROUP_STYLE_1, false, true));
+        Map<String, JasperDesign> designs = new LinkedHashMap<>();
+        designs.put("prosty", tableBuilder("Simple").buildDesign());
+        designs.put("grupy", grouped.buildDesign());
+
+        Map<String, JasperReport> reports = new BatchReportCompiler(Runnable::run).compileAll(designs);
+
+        assertThat(reports.get("prosty").getCompilerClass()).isEqualTo(SimpleExpressionCompiler.class.getName());
+        assertThat(reports.get("grupy").getCompilerClass()).isNotEqualTo(SimpleExpressionCompiler.class.getName());
+    }
+
+    private ReportBuilder tableBuilder(String name) {
+        ReportBuilder builder = new ReportBuilder(name)
+                .withTheme(ReportTheme.DEFAULT)
+                .withTitleBand(false);
+        builder.addColumn(new Column("name", "Nazwa", -1, DataType.STRING, null,
+                Calculation.NONE, Calculation.NONE, ReportStyles.DATA_STYLE));
+        return builder;
+    }
+}
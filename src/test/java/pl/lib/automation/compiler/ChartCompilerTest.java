@@ -9,6 +9,8 @@ import org.junit.jupiter.api.Test;
 import pl.lib.config.ChartConfig;
 import pl.lib.model.ChartType;
 
+import java.util.Map;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
@@ -226,5 +228,30 @@ class ChartCompilerTest {
         // Sprawdzenie, czy wykres został utworzony z odpowiednimi polami
         assertThat(chart.getPlot()).isNotNull();
     }
-}
 
+    @Test
+    void shouldReadTitleAndLabelsFromParametersInTemplate() throws JRException {
+        JRDesignChart chart = compiler.compileChartTemplate(ChartType.BAR, 555, 300, true, false);
+
+        assertThat(chart.getTitleExpression().getText()).isEqualTo("$P{CHART_TITLE}");
+        assertThat(chart.getWidth()).isEqualTo(555);
+        assertThat(chart.getHeight()).isEqualTo(300);
+    }
+
+    @Test
+    void shouldBuildTemplateParametersFromConfig() throws JRException {
+        ChartConfig config = new ChartConfig.Builder()
+            .type(ChartType.LINE)
+            .title("Dochody \"bieżące\"")
+            .valueAxisLabel("PLN")
+            .build();
+
+        Map<String, Object> parameters = compiler.createTemplateParameters(config);
+
+        assertThat(parameters)
+            .containsEntry(ChartCompiler.PARAM_TITLE, "Dochody \"bieżące\"")
+            .containsEntry(ChartCompiler.PARAM_VALUE_AXIS_LABEL, "PLN")
+            .containsEntry(ChartCompiler.PARAM_CATEGORY_AXIS_LABEL, null)
+            .containsEntry(ChartCompiler.PARAM_SERIES_NAME, "Trend");
+    }
+}
@@ -0,0 +1,57 @@
+package pl.lib.automation.compiler;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.renderers.Renderable;
+import org.junit.jupiter.api.Test;
+import pl.lib.automation.converter.ChartDataReducer.ChartSeries;
+import pl.lib.config.ChartConfig;
+import pl.lib.model.ChartType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChartImageCacheTest {
+
+    @Test
+    void shouldReuseImageForUnchangedChart() throws JRException {
+        ChartImageCache cache = new ChartImageCache();
+        ChartConfig config = new ChartConfig.Builder().type(ChartType.BAR).title("Dochody").build();
+
+        Renderable first = cache.getImage(config, series(100, 200), 400, 300);
+        Renderable second = cache.getImage(config, series(100, 200), 400, 300);
+
+        assertThat(second).isSameAs(first);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRenderAgainWhenDataOrConfigChanges() throws JRException {
+        ChartImageCache cache = new ChartImageCache();
+        ChartConfig config = new ChartConfig.Builder().type(ChartType.PIE).title("Struktura").build();
+
+        Renderable original = cache.getImage(config, series(100, 200), 400, 300);
+        Renderable changedData = cache.getImage(config, series(100, 201), 400, 300);
+        config.setTitle("Struktura 2024");
+        Renderable changedTitle = cache.getImage(config, series(100, 200), 400, 300);
+
+        assertThat(changedData).isNotSameAs(original);
+        assertThat(changedTitle).isNotSameAs(original);
+        assertThat(cache.getMissCount()).isEqualTo(3);
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedImages() throws JRException {
+        ChartImageCache cache = new ChartImageCache(2);
+        ChartConfig config = new ChartConfig.Builder().type(ChartType.LINE).title("Trend").build();
+
+        for (int i = 0; i < 5; i++) {
+            cache.getImage(config, series(i, i + 1), 200, 100);
+        }
+
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    private ChartSeries series(double first, double second) {
+        return new ChartSeries(new String[]{"A", "B"}, new double[]{first, second});
+    }
+}
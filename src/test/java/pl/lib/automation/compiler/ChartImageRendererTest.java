@@ -0,0 +1,32 @@
+package pl.lib.automation.compiler;
+
+import net.sf.jasperreports.engine.JRException;
+import org.junit.jupiter.api.Test;
+import pl.lib.automation.converter.ChartDataReducer.ChartSeries;
+import pl.lib.config.ChartConfig;
+import pl.lib.model.ChartType;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChartImageRendererTest {
+
+    private final ChartImageRenderer renderer = new ChartImageRenderer();
+    private final ChartSeries series = new ChartSeries(new String[]{"A", "B"}, new double[]{100, 200});
+
+    @Test
+    void shouldDrawAxisLabelsForCategoryCharts() throws JRException {
+        for (ChartType type : List.of(ChartType.BAR, ChartType.LINE, ChartType.AREA, ChartType.STACKED_BAR)) {
+            ChartConfig plain = new ChartConfig.Builder().type(type).title("Wykres").build();
+            ChartConfig labelled = new ChartConfig.Builder().type(type).title("Wykres")
+                    .categoryAxisLabel("Kategoria")
+                    .valueAxisLabel("Wartość (PLN)")
+                    .build();
+
+            assertThat(renderer.renderPng(labelled, series, 400, 300))
+                    .as(type.name())
+                    .isNotEqualTo(renderer.renderPng(plain, series, 400, 300));
+        }
+    }
+}
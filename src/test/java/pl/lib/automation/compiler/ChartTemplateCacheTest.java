@@ -0,0 +1,44 @@
+package pl.lib.automation.compiler;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperReport;
+import org.junit.jupiter.api.Test;
+import pl.lib.config.ChartConfig;
+import pl.lib.model.ChartType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChartTemplateCacheTest {
+
+    @Test
+    void shouldReuseTemplateForChartsDifferingOnlyInTexts() throws JRException {
+        ChartTemplateCache cache = new ChartTemplateCache();
+
+        JasperReport first = cache.getTemplate(barChart("Dochody", "Rok"), 555);
+        JasperReport second = cache.getTemplate(barChart("Wydatki", "Miesiąc"), 555);
+
+        assertThat(second).isSameAs(first);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldCompileSeparateTemplatesForDifferentLayouts() throws JRException {
+        ChartTemplateCache cache = new ChartTemplateCache();
+
+        JasperReport bar = cache.getTemplate(barChart("Dochody", "Rok"), 555);
+        JasperReport narrowBar = cache.getTemplate(barChart("Dochody", "Rok"), 400);
+        JasperReport pie = cache.getTemplate(new ChartConfig.Builder().type(ChartType.PIE).title("Struktura").build(), 555);
+
+        assertThat(narrowBar).isNotSameAs(bar);
+        assertThat(pie).isNotSameAs(bar);
+        assertThat(cache.size()).isEqualTo(3);
+    }
+
+    private ChartConfig barChart(String title, String categoryAxisLabel) {
+        return new ChartConfig.Builder()
+            .type(ChartType.BAR)
+            .title(title)
+            .categoryAxisLabel(categoryAxisLabel)
+            .build();
+    }
+}
@@ -0,0 +1,253 @@
+package pl.lib.automation.compiler;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRPrintElement;
+import net.sf.jasperreports.engine.JRPrintText;
+import net.sf.jasperreports.engine.JasperCompileManager;
+import net.sf.jasperreports.engine.JasperFillManager;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.data.JRMapCollectionDataSource;
+import net.sf.jasperreports.engine.design.JRDesignBand;
+import net.sf.jasperreports.engine.design.JRDesignExpression;
+import net.sf.jasperreports.engine.design.JRDesignField;
+import net.sf.jasperreports.engine.design.JRDesignSection;
+import net.sf.jasperreports.engine.design.JRDesignTextField;
+import net.sf.jasperreports.engine.design.JasperDesign;
+import org.junit.jupiter.api.Test;
+import pl.lib.api.ReportBuilder;
+import pl.lib.config.ReportTheme;
+import pl.lib.model.Calculation;
+import pl.lib.model.Column;
+import pl.lib.model.DataType;
+import pl.lib.model.Group;
+import pl.lib.model.ReportStyles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SimpleExpressionCompilerTest {
+
+    /**
+     * Konstrukcje obsługiwane przez interpreter; każda musi dać ten sam tekst co kod skompilowany przez javac.
+     */
+    private static final List<String> SUPPORTED = List.of(
+            "new java.math.BigDecimal(1.5)",
+            "new java.math.BigDecimal($F{d})",
+            "new java.math.BigDecimal($F{n})",
+            "new java.math.BigDecimal(\"1.50\")",
+            "$F{ns} + $F{ns}",
+            "\"a\" + 1 + 2",
+            "1 + 2 + \"a\"",
+            "7 / 2",
+            "7.0 / 2",
+            "$F{l} * $F{n}",
+            "-$F{n} % 4",
+            "$F{n} == 7L",
+            "$F{ns} == null",
+            "$F{ns} != null ? $F{ns} : \"brak\"",
+            "$F{b} ? 1 : 2",
+            "$F{b} && $F{d} >= 2.5",
+            "Integer.valueOf(\"12\") + Long.valueOf($F{n})",
+            "Double.valueOf($F{n})",
+            "Boolean.valueOf(\"TRUE\")",
+            "new Long(3)",
+            "String.valueOf($F{ns})",
+            "String.valueOf(1.0)",
+            "$F{l}.equals(5)",
+            "$F{s}.compareTo(\"b\")",
+            "$F{amount}.compareTo(new java.math.BigDecimal(\"1.250\"))",
+            "$F{s}.contains(\"b\") && $F{s}.startsWith(\"a\")",
+            "$F{amount}.intValue() + $F{d}.longValue()",
+            "$F{amount}.toString() + \"!\"",
+            "Boolean.TRUE.equals($F{b})",
+            "$F{b} ? $F{n} : null");
+
+    private final Map<String, Object> fields = new HashMap<>();
+    private final Map<String, Object> variables = new HashMap<>();
+    private final Map<String, Class<?>> types = new HashMap<>(Map.of(
+            "amount", BigDecimal.class,
+            "type", String.class,
+            "missing", Object.class,
+            "SHOW_SUMMARY", Boolean.class,
+            "REPORT_COUNT", Integer.class,
+            "PAGE_NUMBER", Integer.class));
+    private final SimpleExpression.Scope scope = new SimpleExpression.Scope() {
+        @Override
+        public Object field(String name) {
+            return fields.get(name);
+        }
+
+        @Override
+        public Object parameter(String name) {
+            return null;
+        }
+
+        @Override
+        public Object variable(String name) {
+            return variables.get(name);
+        }
+    };
+
+    @Test
+    void shouldEvaluateExpressionsGeneratedByLibrary() throws JRException {
+        fields.put("amount", new BigDecimal("150"));
+        fields.put("type", "HEADER");
+        variables.put("REPORT_COUNT", 4);
+        variables.put("PAGE_NUMBER", 2);
+
+        assertThat(eval("$F{amount} != null && $F{amount}.compareTo(new java.math.BigDecimal(\"100\")) > 0")).isEqualTo(true);
+        assertThat(eval("$V{REPORT_COUNT} % 2 == 0")).isEqualTo(true);
+        assertThat(eval("\"Strona \" + $V{PAGE_NUMBER}")).isEqualTo("Strona 2");
+        assertThat(eval("$F{type}.equals(\"HEADER\")")).isEqualTo(true);
+        assertThat(eval("$P{SHOW_SUMMARY} == null ? java.lang.Boolean.TRUE : $P{SHOW_SUMMARY}")).isEqualTo(true);
+        assertThat(eval("Integer.valueOf(0).equals($F{missing})")).isEqualTo(false);
+        assertThat(eval("new java.lang.Integer(1)")).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRejectExpressionsOutsideSubset() {
+        assertThat(SimpleExpression.isSupported("$F{amount}.setScale(2)")).isFalse();
+        assertThat(SimpleExpression.isSupported("(java.lang.Integer) $F{amount}")).isFalse();
+        assertThat(SimpleExpression.isSupported("$R{label}")).isFalse();
+        assertThatThrownBy(() -> SimpleExpression.parse("\"unterminated")).isInstanceOf(JRException.class);
+    }
+
+    @Test
+    void shouldRejectExpressionsDependingOnUnknownStaticType() {
+        types.put("o", Object.class);
+        types.put("l", Long.class);
+        types.put("n", Integer.class);
+
+        assertThatThrownBy(() -> parse("new java.math.BigDecimal($F{o})")).isInstanceOf(JRException.class);
+        assertThatThrownBy(() -> parse("$F{o} + 1")).isInstanceOf(JRException.class);
+        assertThatThrownBy(() -> parse("true ? $F{n} : $F{l}")).isInstanceOf(JRException.class);
+        assertThatThrownBy(() -> parse("Integer.valueOf($F{l})")).isInstanceOf(JRException.class);
+        assertThatThrownBy(() -> parse("$F{undeclared}")).isInstanceOf(JRException.class);
+    }
+
+    @Test
+    void shouldEvaluateLikeJavaCompiler() throws JRException {
+        JasperDesign design = typedDesign();
+        Map<String, Object> row = new HashMap<>();
+        row.put("s", "ab");
+        row.put("ns", null);
+        row.put("n", 7);
+        row.put("l", 5L);
+        row.put("d", 2.5);
+        row.put("b", Boolean.TRUE);
+        row.put("amount", new BigDecimal("1.25"));
+        row.put("o", "x");
+
+        JasperReport interpreted = SimpleExpressionCompiler.tryCompile(design);
+        assertThat(interpreted).isNotNull();
+        JasperReport compiled = JasperCompileManager.compileReport(design);
+
+        Map<String, String> expected = texts(compiled, row);
+        Map<String, String> actual = texts(interpreted, row);
+        assertThat(expected).hasSize(SUPPORTED.size()).containsEntry("e0", "1.5").containsEntry("e4", "nullnull");
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    @Test
+    void shouldCompileAndFillTableWithoutJavaCompiler() throws JRException {
+        ReportBuilder builder = tableBuilder();
+
+        JasperReport report = builder.build();
+        JasperPrint print = JasperFillManager.fillReport(report, builder.getParameters(), rows());
+
+        assertThat(report.getCompilerClass()).isEqualTo(SimpleExpressionCompiler.class.getName());
+        assertThat(print.getPages()).isNotEmpty();
+    }
+
+    @Test
+    void shouldFallBackToJavaCompilerForUnsupportedExpressions() throws JRException {
+        ReportBuilder builder = tableBuilder();
+        builder.addGroup(new Group("name", "$F{name}.substring(0, 1)", ReportStyles.GROUP_STYLE_1, false, true));
+
+        JasperReport report = builder.build();
+
+        assertThat(report.getCompilerClass()).isNotEqualTo(SimpleExpressionCompiler.class.getName());
+    }
+
+    private Object eval(String text) throws JRException {
+        return parse(text).evaluate(scope);
+    }
+
+    private SimpleExpression parse(String text) throws JRException {
+        return SimpleExpression.parse(text, (kind, name) -> types.get(name));
+    }
+
+    private static JasperDesign typedDesign() throws JRException {
+        JasperDesign design = new JasperDesign();
+        design.setName("TypedExpressions");
+        Map<String, Class<?>> fieldTypes = Map.of("s", String.class, "ns", String.class, "n", Integer.class,
+                "l", Long.class, "d", Double.class, "b", Boolean.class, "amount", BigDecimal.class, "o", Object.class);
+        for (Map.Entry<String, Class<?>> entry : fieldTypes.entrySet()) {
+            JRDesignField field = new JRDesignField();
+            field.setName(entry.getKey());
+            field.setValueClass(entry.getValue());
+            design.addField(field);
+        }
+
+        JRDesignBand band = new JRDesignBand();
+        band.setHeight(SUPPORTED.size() * 15);
+        for (int i = 0; i < SUPPORTED.size(); i++) {
+            JRDesignTextField textField = new JRDesignTextField();
+            textField.setKey("e" + i);
+            textField.setY(i * 15);
+            textField.setWidth(300);
+            textField.setHeight(15);
+            textField.setExpression(new JRDesignExpression("\"\" + (" + SUPPORTED.get(i) + ")"));
+            band.addElement(textField);
+        }
+        ((JRDesignSection) design.getDetailSection()).addBand(band);
+        return design;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, String> texts(JasperReport report, Map<String, Object> row) throws JRException {
+        List<Map<String, ?>> rows = new ArrayList<>();
+        rows.add(row);
+        JasperPrint print = JasperFillManager.fillReport(report, new HashMap<>(),
+                new JRMapCollectionDataSource((Collection<Map<String, ?>>) (Collection<?>) rows));
+        Map<String, String> texts = new HashMap<>();
+        for (JRPrintElement element : print.getPages().get(0).getElements()) {
+            if (element instanceof JRPrintText) {
+                texts.put(element.getKey(), ((JRPrintText) element).getFullText());
+            }
+        }
+        return texts;
+    }
+
+    private ReportBuilder tableBuilder() {
+        ReportBuilder builder = new ReportBuilder("SimpleExpressionTable")
+                .withTheme(ReportTheme.DEFAULT)
+                .withTitleBand(false);
+        builder.addColumn(new Column("name", "Nazwa", -1, DataType.STRING, null,
+                Calculation.NONE, Calculation.NONE, ReportStyles.DATA_STYLE));
+        builder.addColumn(new Column("amount", "Kwota", -1, DataType.BIG_DECIMAL, "#,##0.00",
+                Calculation.SUM, Calculation.NONE, ReportStyles.NUMERIC_STYLE));
+        builder.calculateColumnWidths();
+        return builder;
+    }
+
+    @SuppressWarnings("unchecked")
+    private JRMapCollectionDataSource rows() {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("name", "Pozycja " + i);
+            row.put("amount", BigDecimal.valueOf(i));
+            rows.add(row);
+        }
+        return new JRMapCollectionDataSource((Collection<Map<String, ?>>) (Collection<?>) rows);
+    }
+}
@@ -0,0 +1,134 @@
+package pl.lib.automation.converter;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.design.JRDesignField;
+import org.junit.jupiter.api.Test;
+import pl.lib.config.BudgetTableConfig;
+import pl.lib.model.BudgetHierarchyNode;
+import pl.lib.model.BudgetNodeType;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BudgetTreeDataSourceTest {
+
+    @Test
+    void shouldIterateDepthFirstAndSkipRoot() throws JRException {
+        BudgetTreeDataSource dataSource = new BudgetTreeDataSource(sampleTree(), BudgetTableConfig.defaultConfig());
+
+        List<String> codes = new ArrayList<>();
+        while (dataSource.next()) {
+            codes.add((String) dataSource.getFieldValue(field("code")));
+        }
+
+        assertEquals(List.of("750", "75011", "75023", "801"), codes);
+    }
+
+    @Test
+    void shouldComputeRowValuesOnDemand() throws JRException {
+        BudgetTableConfig config = BudgetTableConfig.defaultConfig();
+        config.setIndentSize(2);
+        BudgetTreeDataSource dataSource = new BudgetTreeDataSource(sampleTree(), config);
+
+        assertTrue(dataSource.next());
+        assertEquals("Administracja", dataSource.getFieldValue(field("name")));
+        assertEquals(Boolean.TRUE, dataSource.getFieldValue(field("isBold")));
+        assertEquals("8 500,00", dataSource.getFieldValue(field("planned")));
+
+        assertTrue(dataSource.next());
+        assertEquals("  Urzędy wojewódzkie", dataSource.getFieldValue(field("name")));
+        assertEquals(Boolean.FALSE, dataSource.getFieldValue(field("isBold")));
+        assertEquals("97,00%", dataSource.getFieldValue(field("percent")));
+        assertEquals("+150,00", dataSource.getFieldValue(field("difference")));
+    }
+
+    @Test
+    void shouldReturnNumericValuesInNumericMode() throws JRException {
+        BudgetTableConfig config = BudgetTableConfig.defaultConfig();
+        config.setNumericAmounts(true);
+        BudgetTreeDataSource dataSource = new BudgetTreeDataSource(sampleTree(), config);
+
+        assertTrue(dataSource.next());
+        assertTrue(dataSource.next());
+        assertEquals(new BigDecimal("5000"), dataSource.getFieldValue(field("planned")));
+        assertEquals(new BigDecimal("97.00"), dataSource.getFieldValue(field("percent")));
+        assertEquals(new BigDecimal("150"), dataSource.getFieldValue(field("difference")));
+
+        assertTrue(dataSource.next());
+        assertEquals(BigDecimal.ZERO, dataSource.getFieldValue(field("actual")));
+    }
+
+    @Test
+    void shouldBuildPatternsFromConfig() {
+        BudgetTableConfig config = BudgetTableConfig.defaultConfig();
+        assertEquals("#,##0.00", config.getAmountPattern());
+        assertEquals("+#,##0.00;-#,##0.00", config.getDifferencePattern());
+
+        config.setUseThousandsSeparator(false);
+        config.setDecimalPlaces(0);
+        assertEquals("0", config.getAmountPattern());
+    }
+
+    @Test
+    void shouldRewindToFirstRow() throws JRException {
+        BudgetTreeDataSource dataSource = new BudgetTreeDataSource(sampleTree(), BudgetTableConfig.defaultConfig());
+        while (dataSource.next()) {
+            // przejście do końca
+        }
+
+        dataSource.moveFirst();
+
+        assertTrue(dataSource.next());
+        assertEquals("750", dataSource.getFieldValue(field("code")));
+    }
+
+    @Test
+    void shouldKeepStackBoundedByDepthForWideTree() {
+        BudgetHierarchyNode root = new BudgetHierarchyNode("ROOT", "Budget Root", BudgetNodeType.SECTION, 0);
+        BudgetHierarchyNode section = new BudgetHierarchyNode("750", "Administracja", BudgetNodeType.SECTION, 1);
+        root.addChild(section);
+        for (int i = 0; i < 100_000; i++) {
+            section.addChild(new BudgetHierarchyNode("750" + i, "Pozycja " + i, BudgetNodeType.CHAPTER, 2));
+        }
+        BudgetTreeDataSource dataSource = new BudgetTreeDataSource(root, BudgetTableConfig.defaultConfig());
+
+        int rows = 0;
+        int maxDepth = 0;
+        while (dataSource.next()) {
+            rows++;
+            maxDepth = Math.max(maxDepth, dataSource.depth());
+        }
+
+        assertEquals(100_001, rows);
+        assertEquals(3, maxDepth);
+    }
+
+    private BudgetHierarchyNode sampleTree() {
+        BudgetHierarchyNode root = new BudgetHierarchyNode("ROOT", "Budget Root", BudgetNodeType.SECTION, 0);
+        BudgetHierarchyNode section = new BudgetHierarchyNode("750", "Administracja", BudgetNodeType.SECTION, 1);
+        section.setPlannedAmount(new BigDecimal("8500"));
+        section.setActualAmount(new BigDecimal("8200"));
+
+        BudgetHierarchyNode chapter1 = new BudgetHierarchyNode("75011", "Urzędy wojewódzkie", BudgetNodeType.CHAPTER, 2);
+        chapter1.setPlannedAmount(new BigDecimal("5000"));
+        chapter1.setActualAmount(new BigDecimal("4850"));
+
+        BudgetHierarchyNode chapter2 = new BudgetHierarchyNode("75023", "Urzędy gmin", BudgetNodeType.CHAPTER, 2);
+        BudgetHierarchyNode other = new BudgetHierarchyNode("801", "Oświata", BudgetNodeType.SECTION, 1);
+
+        section.addChild(chapter1);
+        section.addChild(chapter2);
+        root.addChild(section);
+        root.addChild(other);
+        return root;
+    }
+
+    private JRDesignField field(String name) {
+        JRDesignField field = new JRDesignField();
+        field.setName(name);
+        return field;
+    }
+}
@@ -0,0 +1,79 @@
+package pl.lib.automation.converter;
+
+import org.junit.jupiter.api.Test;
+import pl.lib.config.ChartConfig;
+import pl.lib.model.ChartType;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChartDataReducerTest {
+
+    private final ChartDataReducer reducer = new ChartDataReducer();
+
+    @Test
+    void shouldDownsampleTimeSeriesToChartWidthKeepingEndpointsAndPeaks() {
+        int size = 100_000;
+        String[] categories = new String[size];
+        double[] values = new double[size];
+        for (int i = 0; i < size; i++) {
+            categories[i] = "t" + i;
+            values[i] = Math.sin(i / 500.0);
+        }
+        values[54_321] = 50;
+
+        ChartConfig config = new ChartConfig.Builder().type(ChartType.LINE).dataReduction(true).build();
+        ChartDataReducer.ChartSeries reduced = reducer.reduce(new ChartDataReducer.ChartSeries(categories, values), config, 555);
+
+        assertEquals(555, reduced.size());
+        assertEquals("t0", reduced.getCategory(0));
+        assertEquals("t" + (size - 1), reduced.getCategory(reduced.size() - 1));
+        boolean peakKept = false;
+        for (int i = 0; i < reduced.size(); i++) {
+            peakKept |= "t54321".equals(reduced.getCategory(i));
+        }
+        assertTrue(peakKept);
+    }
+
+    @Test
+    void shouldRespectMaxDataPointsBelowPixelWidth() {
+        ChartConfig config = new ChartConfig.Builder().type(ChartType.AREA).dataReduction(true).maxDataPoints(100).build();
+
+        ChartDataReducer.ChartSeries reduced = reducer.reduce(series(5_000), config, 555);
+
+        assertEquals(100, reduced.size());
+    }
+
+    @Test
+    void shouldAggregateSmallCategoriesIntoOther() {
+        ChartDataReducer.ChartSeries series = new ChartDataReducer.ChartSeries(
+                new String[]{"A", "B", "C", "D", "E"},
+                new double[]{5, 40, 1, 30, 2});
+        ChartConfig config = new ChartConfig.Builder().type(ChartType.PIE).dataReduction(true).maxCategories(3).build();
+
+        ChartDataReducer.ChartSeries reduced = reducer.reduce(series, config, 555);
+
+        assertEquals(3, reduced.size());
+        assertEquals("B", reduced.getCategory(0));
+        assertEquals("D", reduced.getCategory(1));
+        assertEquals(ChartDataReducer.OTHER_CATEGORY, reduced.getCategory(2));
+        assertEquals(8.0, reduced.getValue(2));
+    }
+
+    @Test
+    void shouldLeaveDataUntouchedWhenReductionDisabled() {
+        ChartDataReducer.ChartSeries series = series(2_000);
+        ChartConfig config = new ChartConfig.Builder().type(ChartType.LINE).build();
+
+        assertSame(series, reducer.reduce(series, config, 555));
+    }
+
+    private ChartDataReducer.ChartSeries series(int size) {
+        String[] categories = new String[size];
+        double[] values = new double[size];
+        for (int i = 0; i < size; i++) {
+            categories[i] = String.valueOf(i);
+            values[i] = i % 17;
+        }
+        return new ChartDataReducer.ChartSeries(categories, values);
+    }
+}
@@ -0,0 +1,84 @@
+package pl.lib.automation.converter;
+
+import net.sf.jasperreports.engine.design.JRDesignField;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChildRowStoreTest {
+
+    @Test
+    void shouldExposeOnlyRowsOfOneParent() {
+        ChildRowStore store = new ChildRowStore();
+        int first = store.mark();
+        store.add(Map.of("nazwa", "a1"));
+        store.add(Map.of("nazwa", "a2"));
+        ChildRowStore.Slice firstSlice = store.sliceFrom(first);
+        int second = store.mark();
+        store.add(Map.of("nazwa", "b1"));
+        ChildRowStore.Slice secondSlice = store.sliceFrom(second);
+        ChildRowStore.Slice empty = store.sliceFrom(store.mark());
+
+        assertThat(store.size()).isEqualTo(3);
+        assertThat(values(firstSlice)).containsExactly("a1", "a2");
+        assertThat(values(secondSlice)).containsExactly("b1");
+        assertThat(values(empty)).isEmpty();
+    }
+
+    @Test
+    void shouldRewindSlice() {
+        ChildRowStore store = new ChildRowStore();
+        store.add(Map.of("nazwa", "x"));
+        ChildRowStore.Slice slice = store.sliceFrom(0);
+
+        assertThat(values(slice)).containsExactly("x");
+        slice.moveFirst();
+        assertThat(values(slice)).containsExactly("x");
+    }
+
+    @Test
+    void shouldKeepOnlySpanInRowAndCreateSliceOnRead() {
+        Map<String, ChildRowStore> childRows = new HashMap<>();
+        ChildRowStore store = childRows.computeIfAbsent("pozycje/", k -> new ChildRowStore());
+        store.add(Map.of("nazwa", "inny rodzic"));
+        int offset = store.mark();
+        store.add(Map.of("nazwa", "p1"));
+        store.add(Map.of("nazwa", "p2"));
+        ChildRowStore.Row row = new ChildRowStore.Row("", childRows);
+        row.put("pozycje", store.span(offset));
+        row.put("kwota", 5L);
+
+        assertThat(row.values()).containsExactly(store.span(offset), 5L);
+        Object first = row.get("pozycje");
+        assertThat(first).isInstanceOf(ChildRowStore.Slice.class).isNotSameAs(row.get("pozycje"));
+        assertThat(values((ChildRowStore.Slice) first)).containsExactly("p1", "p2");
+        assertThat(row.get("kwota")).isEqualTo(5L);
+    }
+
+    @Test
+    void shouldResolveGrandchildrenInTheirOwnScope() {
+        Map<String, ChildRowStore> childRows = new HashMap<>();
+        ChildRowStore grandchildren = childRows.computeIfAbsent("pozycje/czesci/", k -> new ChildRowStore());
+        grandchildren.add(Map.of("nazwa", "c1"));
+        ChildRowStore.Row child = new ChildRowStore.Row("pozycje/", childRows);
+        child.put("czesci", grandchildren.span(0));
+
+        assertThat(values((ChildRowStore.Slice) child.get("czesci"))).containsExactly("c1");
+        assertThat(new ChildRowStore.Row("", childRows).getOrDefault("czesci", "brak")).isEqualTo("brak");
+    }
+
+    private static List<Object> values(ChildRowStore.Slice slice) {
+        JRDesignField field = new JRDesignField();
+        field.setName("nazwa");
+        List<Object> values = new ArrayList<>();
+        while (slice.next()) {
+            values.add(slice.getFieldValue(field));
+        }
+        return values;
+    }
+}
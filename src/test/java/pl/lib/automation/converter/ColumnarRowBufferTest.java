@@ -0,0 +1,115 @@
+package pl.lib.automation.converter;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.design.JRDesignField;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import pl.lib.model.DataType;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ColumnarRowBufferTest {
+
+    private static final String JSON = "[{\"nazwa\": \"B\", \"kwota\": 10.50, \"adres\": {\"miasto\": \"Chełm\"},"
+            + " \"data\": \"2024-01-31T00:00:00Z\", \"pozycje\": [{\"x\": 1}]},"
+            + " 7,"
+            + " {\"nazwa\": \"A\", \"kwota\": 123456789012345678901234567890.5, \"aktywny\": true}]";
+
+    @Test
+    void shouldReadJsonLikeMapConversion() throws IOException {
+        try (ColumnarRowBuffer buffer = ColumnarRowBuffer.direct()) {
+            new JsonColumnarReader().read(JSON, buffer);
+
+            assertThat(buffer.getRowCount()).isEqualTo(2);
+            assertThat(buffer.getColumnNames()).containsExactly("nazwa", "kwota", "adres_miasto", "data", "aktywny");
+            assertThat(buffer.getColumnType(buffer.getColumnIndex("kwota"))).isEqualTo(DataType.BIG_DECIMAL);
+            assertThat(buffer.getColumnType(buffer.getColumnIndex("data"))).isEqualTo(DataType.DATE);
+
+            Map<String, Object> first = buffer.row(0);
+            assertThat(first.get("kwota")).isEqualTo(new BigDecimal("10.50"));
+            assertThat(first.get("adres_miasto")).isEqualTo("Chełm");
+            assertThat(first.get("data")).isInstanceOf(Date.class);
+            assertThat(first.get("aktywny")).isNull();
+            assertThat(buffer.row(1).get("kwota")).isEqualTo(new BigDecimal("123456789012345678901234567890.5"));
+            assertThat(buffer.row(1).get("aktywny")).isEqualTo(Boolean.TRUE);
+        }
+    }
+
+    @Test
+    void shouldKeepValuesAcrossChunksInMappedFile(@TempDir Path directory) throws IOException {
+        int rows = ColumnarRowBuffer.CHUNK_SLOTS * 2 + 10;
+        try (ColumnarRowBuffer buffer = ColumnarRowBuffer.mapped(directory)) {
+            int name = buffer.addColumn("nazwa");
+            for (int i = 0; i < rows; i++) {
+                int row = buffer.appendRow();
+                buffer.putString(row, name, "wiersz " + i);
+                buffer.putDecimal(row, buffer.addColumn("kwota"), BigDecimal.valueOf(i, 2));
+            }
+
+            assertThat(buffer.get(rows - 1, name)).isEqualTo("wiersz " + (rows - 1));
+            assertThat(buffer.get(ColumnarRowBuffer.CHUNK_SLOTS, 1)).isEqualTo(BigDecimal.valueOf(ColumnarRowBuffer.CHUNK_SLOTS, 2));
+        }
+    }
+
+    @Test
+    void shouldSortStablyAndReadThroughDataSource() throws IOException, JRException {
+        try (ColumnarRowBuffer buffer = ColumnarRowBuffer.direct()) {
+            int group = buffer.addColumn("grupa");
+            int index = buffer.addColumn("lp");
+            String[] groups = {"b", "a", "b", "a"};
+            for (int i = 0; i < groups.length; i++) {
+                int row = buffer.appendRow();
+                buffer.putString(row, group, groups[i]);
+                buffer.putInteger(row, index, i);
+            }
+
+            int[] order = buffer.sortedOrder(Comparator.comparing(row -> (String) row.get("grupa")));
+            ColumnarDataSource dataSource = new ColumnarDataSource(buffer, order);
+            JRDesignField field = new JRDesignField();
+            field.setName("lp");
+
+            StringBuilder seen = new StringBuilder();
+            while (dataSource.next()) {
+                seen.append(dataSource.getFieldValue(field));
+            }
+            assertThat(seen.toString()).isEqualTo("1302");
+        }
+    }
+
+    @Test
+    void shouldGrowChunksGeometrically() {
+        int slot = 0;
+        for (int index = 0; slot < ColumnarRowBuffer.CHUNK_SLOTS * 3; index++) {
+            assertThat(ColumnarRowBuffer.chunkStart(index)).isEqualTo(slot);
+            assertThat(ColumnarRowBuffer.chunkIndex(slot)).isEqualTo(index);
+            slot += ColumnarRowBuffer.chunkSlots(index);
+            assertThat(ColumnarRowBuffer.chunkIndex(slot - 1)).isEqualTo(index);
+        }
+        assertThat(ColumnarRowBuffer.chunkSlots(0)).isEqualTo(ColumnarRowBuffer.FIRST_CHUNK_SLOTS);
+        assertThat(ColumnarRowBuffer.chunkSlots(ColumnarRowBuffer.chunkIndex(ColumnarRowBuffer.CHUNK_SLOTS * 2)))
+                .isEqualTo(ColumnarRowBuffer.CHUNK_SLOTS);
+    }
+
+    @Test
+    void shouldKeepRecentlyRepeatedStringsInDictionary() throws IOException {
+        try (ColumnarRowBuffer buffer = ColumnarRowBuffer.direct()) {
+            int status = buffer.addColumn("status");
+            int description = buffer.addColumn("opis");
+            for (int i = 0; i < ColumnarRowBuffer.DICTIONARY_CACHE_LIMIT * 2; i++) {
+                int row = buffer.appendRow();
+                buffer.putString(row, description, "opis " + i);
+                buffer.putString(row, status, i % 2 == 0 ? "otwarte" : "zamknięte");
+            }
+
+            assertThat(buffer.getStringCount()).isEqualTo(ColumnarRowBuffer.DICTIONARY_CACHE_LIMIT * 2 + 2);
+            assertThat(buffer.get(buffer.getRowCount() - 1, status)).isEqualTo("zamknięte");
+        }
+    }
+}
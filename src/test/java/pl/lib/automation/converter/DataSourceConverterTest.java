@@ -0,0 +1,62 @@
+package pl.lib.automation.converter;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRDataSource;
+import net.sf.jasperreports.engine.design.JRDesignField;
+import org.junit.jupiter.api.Test;
+import pl.lib.automation.analyzer.ReportElement;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DataSourceConverterTest {
+
+    private final DataSourceConverter converter = new DataSourceConverter();
+
+    @Test
+    void shouldPrepareIndentedHeaderText() {
+        assertThat(DataSourceConverter.headerText("Sekcja", 3)).isEqualTo("      Sekcja");
+        assertThat(DataSourceConverter.headerText("Sekcja", 1)).isEqualTo("Sekcja");
+    }
+
+    @Test
+    void shouldPrepareKeyValueHtmlWithBullets() {
+        String html = DataSourceConverter.keyValueHtml("Lista", "Punkty:\n- pierwszy\n* drugi", 1);
+
+        assertThat(html).isEqualTo("&nbsp;&nbsp;<b style='color: #1C3A57;'>Lista:</b> "
+                + "Punkty:\n&nbsp;&nbsp;&nbsp;&#8226; pierwszy\n&nbsp;&nbsp;&nbsp;&#8226; drugi");
+    }
+
+    @Test
+    void shouldOmitKeyForContinuationRows() {
+        assertThat(DataSourceConverter.keyValueHtml(null, "dalszy tekst", 2))
+                .isEqualTo("&nbsp;".repeat(6) + "dalszy tekst");
+    }
+
+    @Test
+    void shouldRenderSingleBulletContinuationAsList() {
+        assertThat(DataSourceConverter.keyValueHtml(null, "- z", 1))
+                .isEqualTo("&nbsp;&nbsp;&nbsp;&nbsp;&nbsp;&#8226; z");
+        assertThat(DataSourceConverter.keyValueHtml("Lista", "- z", 1))
+                .isEqualTo("&nbsp;&nbsp;<b style='color: #1C3A57;'>Lista:</b> - z");
+    }
+
+    @Test
+    void shouldExposePreparedFieldsInMainDataSource() throws JRException {
+        JRDataSource dataSource = converter.createMainDataSource(List.of(
+                ReportElement.createHeader("Sekcja", 2),
+                ReportElement.createKeyValue("opis", "tekst", 2)));
+
+        assertThat(dataSource.next()).isTrue();
+        assertThat(dataSource.getFieldValue(field("headerText"))).isEqualTo("   Sekcja");
+        assertThat(dataSource.next()).isTrue();
+        assertThat((String) dataSource.getFieldValue(field("valueHtml"))).endsWith("opis:</b> tekst");
+    }
+
+    private static JRDesignField field(String name) {
+        JRDesignField field = new JRDesignField();
+        field.setName(name);
+        return field;
+    }
+}
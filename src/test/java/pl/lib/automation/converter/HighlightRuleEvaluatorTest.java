@@ -0,0 +1,84 @@
+package pl.lib.automation.converter;
+
+import org.junit.jupiter.api.Test;
+import pl.lib.api.ReportBuilder;
+import pl.lib.config.HighlightRule;
+import pl.lib.model.Calculation;
+import pl.lib.model.Column;
+import pl.lib.model.DataType;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HighlightRuleEvaluatorTest {
+
+    private final List<Column> columns = Arrays.asList(
+            new Column("amount", "Kwota", -1, DataType.BIG_DECIMAL, null, Calculation.NONE, Calculation.NONE, null),
+            new Column("name", "Nazwa", -1, DataType.STRING, null, Calculation.NONE, Calculation.NONE, null));
+
+    @Test
+    void shouldMatchNumericAndTextOperators() {
+        HighlightRuleEvaluator evaluator = new HighlightRuleEvaluator(Arrays.asList(
+                rule("amount", "GREATER_THAN", "100"),
+                rule("name", "CONTAINS", "pilne")), columns);
+
+        assertEquals(0, evaluator.evaluate(row(new BigDecimal("150.50"), "zwykłe")));
+        assertEquals(1, evaluator.evaluate(row(new BigDecimal("10"), "bardzo pilne")));
+        assertEquals(HighlightRuleEvaluator.NO_RULE, evaluator.evaluate(row(new BigDecimal("10"), "zwykłe")));
+        assertEquals(HighlightRuleEvaluator.NO_RULE, evaluator.evaluate(row(null, null)));
+    }
+
+    @Test
+    void shouldReturnLastMatchingRuleLikeConditionalStyles() {
+        HighlightRuleEvaluator evaluator = new HighlightRuleEvaluator(Arrays.asList(
+                rule("amount", "GREATER_THAN", "0"),
+                rule("amount", "LESS_THAN", "1000")), columns);
+
+        assertEquals(1, evaluator.evaluate(row(new BigDecimal("5"), "x")));
+        assertEquals(0, evaluator.evaluate(row(new BigDecimal("5000"), "x")));
+    }
+
+    @Test
+    void shouldNeverMatchInvalidRules() {
+        HighlightRuleEvaluator evaluator = new HighlightRuleEvaluator(Arrays.asList(
+                rule("amount", "GREATER_THAN", "abc"),
+                rule("amount", "CONTAINS", "1"),
+                rule("name", "LESS_THAN", "b")), columns);
+
+        assertEquals(HighlightRuleEvaluator.NO_RULE, evaluator.evaluate(row(new BigDecimal("1"), "a")));
+    }
+
+    @Test
+    void shouldStoreRuleIndexInEveryRow() {
+        HighlightRuleEvaluator evaluator = new HighlightRuleEvaluator(
+                Arrays.asList(rule("name", "EQUALS", "A")), columns);
+        List<Map<String, Object>> rows = new ArrayList<>(Arrays.asList(row(BigDecimal.ONE, "A"), row(BigDecimal.ONE, "B")));
+
+        evaluator.apply(rows);
+
+        assertEquals(0, rows.get(0).get(ReportBuilder.HIGHLIGHT_RULE_FIELD));
+        assertEquals(HighlightRuleEvaluator.NO_RULE, rows.get(1).get(ReportBuilder.HIGHLIGHT_RULE_FIELD));
+    }
+
+    private static HighlightRule rule(String field, String operator, String value) {
+        HighlightRule rule = new HighlightRule();
+        rule.setField(field);
+        rule.setOperator(operator);
+        rule.setValue(value);
+        rule.setColor("#FF0000");
+        return rule;
+    }
+
+    private static Map<String, Object> row(BigDecimal amount, String name) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("amount", amount);
+        row.put("name", name);
+        return row;
+    }
+}
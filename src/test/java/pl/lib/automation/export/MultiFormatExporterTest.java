@@ -0,0 +1,53 @@
+package pl.lib.automation.export;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.export.SimplePdfExporterConfiguration;
+import org.junit.jupiter.api.Test;
+import pl.lib.automation.JsonReportGenerator;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MultiFormatExporterTest {
+
+    private final MultiFormatExporter exporter = new MultiFormatExporter();
+
+    @Test
+    void shouldExportOneFilledReportToAllFormats() throws JRException, IOException {
+        JasperPrint print = samplePrint();
+
+        Map<ExportFormat, byte[]> outputs = exporter.exportAll(print, ExportFormat.values());
+
+        assertThat(outputs).containsOnlyKeys(ExportFormat.values());
+        assertThat(outputs.get(ExportFormat.PDF)).startsWith(0x25, 0x50, 0x44, 0x46);
+        assertThat(outputs.get(ExportFormat.XLSX)).startsWith(0x50, 0x4B);
+        assertThat(outputs.get(ExportFormat.DOCX)).startsWith(0x50, 0x4B);
+        assertThat(new String(outputs.get(ExportFormat.HTML), StandardCharsets.UTF_8)).contains("<html");
+        assertThat(new String(outputs.get(ExportFormat.CSV), StandardCharsets.UTF_8)).contains("Tekst");
+    }
+
+    @Test
+    void shouldApplyPerFormatConfiguration() throws JRException, IOException {
+        SimplePdfExporterConfiguration pdfConfiguration = new SimplePdfExporterConfiguration();
+        pdfConfiguration.setMetadataTitle("Tytuł z konfiguracji");
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+        ByteArrayOutputStream html = new ByteArrayOutputStream();
+
+        exporter.exportAll(samplePrint(), List.of(
+                ExportTarget.of(ExportFormat.PDF, pdf).withExporterConfiguration(pdfConfiguration),
+                ExportTarget.of(ExportFormat.HTML, html)));
+
+        assertThat(pdf.size()).isPositive();
+        assertThat(html.size()).isPositive();
+    }
+
+    private JasperPrint samplePrint() throws JRException, IOException {
+        return new JsonReportGenerator().generateReport("{ \"Sekcja\": { \"opis\": \"Tekst\" } }", "Raport", "Chełm", false);
+    }
+}
@@ -0,0 +1,86 @@
+package pl.lib.automation.export;
+
+import org.junit.jupiter.api.Test;
+import pl.lib.config.ColumnDefinition;
+import pl.lib.config.ReportConfig;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TabularExporterTest {
+
+    private static final String JSON = "["
+            + "{\"kwota\": 1234.5, \"klient\": {\"nazwa\": \"Firma \\\"A\\\", sp.\"}, \"ukryta\": 1, \"data\": \"2024-03-01T10:00:00Z\"},"
+            + "{\"kwota\": -2, \"klient\": {\"nazwa\": \"B\\tC\"}, \"data\": \"brak\"}"
+            + "]";
+
+    private final TabularExporter exporter = new TabularExporter(Locale.US);
+
+    @Test
+    void shouldUseConfiguredColumnsHeadersAndPatterns() throws IOException {
+        ReportConfig config = new ReportConfig.Builder()
+                .addColumn(ColumnDefinition.builder("kwota").header("Kwota").format("#,##0.00").build())
+                .addColumn(ColumnDefinition.builder("klient_nazwa").header("Klient").build())
+                .addColumn(ColumnDefinition.builder("ukryta").visible(false).build())
+                .addColumn(ColumnDefinition.builder("data").header("Data").format("dd.MM.yyyy").build())
+                .build();
+
+        String csv = exporter.export(JSON, config, TabularFormat.CSV);
+
+        assertThat(csv.split("\r\n")).containsExactly(
+                "Kwota,Klient,Data",
+                "\"1,234.50\",\"Firma \"\"A\"\", sp.\",01.03.2024",
+                "-2.00,B\tC,brak");
+    }
+
+    @Test
+    void shouldInferColumnsFromFirstRowForTsv() throws IOException {
+        String tsv = exporter.export(JSON, null, TabularFormat.TSV);
+
+        assertThat(tsv.split("\r\n")).containsExactly(
+                "kwota\tklient_nazwa\tukryta\tdata",
+                "1234.5\tFirma \"A\", sp.\t1\t2024-03-01T10:00:00Z",
+                "-2\tB C\t\tbrak");
+    }
+
+    @Test
+    void shouldApplyPatternByColumnType() throws IOException {
+        ReportConfig config = new ReportConfig.Builder()
+                .addColumn(ColumnDefinition.builder("numer").format("000").build())
+                .addColumn(ColumnDefinition.builder("termin").format("yyyy").build())
+                .build();
+        String json = "[{\"numer\": 7, \"termin\": \"2024-03-01T10:00:00Z\"},"
+                + "{\"numer\": \"2024-05-01T10:00:00Z\", \"termin\": 12}]";
+
+        assertThat(exporter.export(json, config, TabularFormat.CSV).split("\r\n")).containsExactly(
+                "numer,termin",
+                "007,2024",
+                "2024-05-01T10:00:00Z,12");
+    }
+
+    @Test
+    void shouldStreamManyRows() throws IOException {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 100_000; i++) {
+            json.append(i > 0 ? "," : "").append("{\"id\": ").append(i).append("}");
+        }
+        json.append("]");
+
+        StringWriter out = new StringWriter();
+        long rows = exporter.export(new StringReader(json.toString()), null, TabularFormat.CSV, out);
+
+        assertThat(rows).isEqualTo(100_000);
+        assertThat(out.toString()).startsWith("id\r\n0\r\n1\r\n").endsWith("99999\r\n");
+    }
+
+    @Test
+    void shouldRejectNonArrayJson() {
+        assertThatThrownBy(() -> exporter.export("{\"a\": 1}", null, TabularFormat.CSV))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
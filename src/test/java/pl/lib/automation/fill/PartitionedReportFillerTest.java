@@ -0,0 +1,148 @@
+package pl.lib.automation.fill;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRPrintElement;
+import net.sf.jasperreports.engine.JRPrintPage;
+import net.sf.jasperreports.engine.JRPrintText;
+import net.sf.jasperreports.engine.JasperFillManager;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.data.JRMapCollectionDataSource;
+import net.sf.jasperreports.engine.type.ModeEnum;
+import org.junit.jupiter.api.Test;
+import pl.lib.api.ReportBuilder;
+import pl.lib.config.FormattingOptions;
+import pl.lib.config.ReportTheme;
+import pl.lib.model.Calculation;
+import pl.lib.model.Column;
+import pl.lib.model.DataType;
+import pl.lib.model.Group;
+import pl.lib.model.ReportStyles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PartitionedReportFillerTest {
+
+    @Test
+    void shouldSplitIntoEqualRangesWithoutGroups() {
+        PartitionedReportFiller filler = new PartitionedReportFiller(Runnable::run, 4).withMinRowsPerPartition(2);
+
+        List<int[]> partitions = filler.partition(rows(10, 10), Collections.emptyList());
+
+        assertThat(partitions).extracting(range -> range[0] + "-" + range[1]).containsExactly("0-3", "3-6", "6-9", "9-10");
+    }
+
+    @Test
+    void shouldNotSplitGroups() {
+        PartitionedReportFiller filler = new PartitionedReportFiller(Runnable::run, 4).withMinRowsPerPartition(2);
+
+        List<int[]> partitions = filler.partition(rows(10, 5), Collections.singletonList("group"));
+
+        assertThat(partitions).extracting(range -> range[0] + "-" + range[1]).containsExactly("0-5", "5-10");
+    }
+
+    @Test
+    void shouldMatchSingleFillTotalsAndNumberPagesContinuously() throws JRException {
+        ReportBuilder builder = new ReportBuilder("Partitioned")
+                .withTheme(ReportTheme.DEFAULT)
+                .withSummaryBand(true);
+        builder.addColumn(new Column("name", "Nazwa", -1, DataType.STRING, null,
+                Calculation.NONE, Calculation.NONE, ReportStyles.DATA_STYLE));
+        builder.addColumn(new Column("amount", "Kwota", -1, DataType.BIG_DECIMAL, "#,##0.00",
+                Calculation.NONE, Calculation.NONE, ReportStyles.NUMERIC_STYLE));
+        JasperReport report = builder.build();
+        List<Map<String, Object>> rows = rows(2_000, 2_000);
+
+        JasperPrint single = JasperFillManager.fillReport(report, new HashMap<>(builder.getParameters()), dataSource(rows));
+        JasperPrint partitioned = new PartitionedReportFiller(Runnable::run, 4).withMinRowsPerPartition(400)
+                .fill(report, builder.getParameters(), rows, Collections.emptyList());
+
+        assertThat(texts(partitioned, ReportBuilder.SUMMARY_KEY_PREFIX + "amount"))
+                .isEqualTo(texts(single, ReportBuilder.SUMMARY_KEY_PREFIX + "amount"))
+                .hasSize(1);
+        List<String> pageNumbers = texts(partitioned, ReportBuilder.PAGE_NUMBER_KEY);
+        assertThat(pageNumbers).hasSize(partitioned.getPages().size());
+        for (int i = 0; i < pageNumbers.size(); i++) {
+            assertThat(pageNumbers.get(i)).isEqualTo(ReportBuilder.PAGE_NUMBER_PREFIX + (i + 1));
+        }
+    }
+
+    @Test
+    void shouldKeepZebraStripesOfSingleFillAcrossGroupedParts() throws JRException {
+        FormattingOptions options = new FormattingOptions();
+        options.setZebraStripes(true);
+        ReportBuilder builder = new ReportBuilder("PartitionedZebra")
+                .withTheme(ReportTheme.DEFAULT)
+                .withFormattingOptions(options);
+        builder.addColumn(new Column("group", "Grupa", -1, DataType.STRING, null,
+                Calculation.NONE, Calculation.NONE, ReportStyles.DATA_STYLE));
+        builder.addColumn(new Column("name", "Nazwa", -1, DataType.STRING, null,
+                Calculation.NONE, Calculation.NONE, ReportStyles.DATA_STYLE));
+        builder.addGroup(new Group("group", "$F{group}", ReportStyles.GROUP_STYLE_1, false, true));
+        JasperReport report = builder.build();
+        List<Map<String, Object>> rows = rows(2_001, 5);
+        PartitionedReportFiller filler = new PartitionedReportFiller(Runnable::run, 4).withMinRowsPerPartition(400);
+
+        // części zaczynają się od nieparzystych wierszy, więc REPORT_COUNT sam nie wystarczy
+        assertThat(filler.partition(rows, List.of("group"))).anyMatch(range -> range[0] % 2 == 1);
+        JasperPrint single = JasperFillManager.fillReport(report, new HashMap<>(builder.getParameters()), dataSource(rows));
+        JasperPrint partitioned = filler.fill(report, builder.getParameters(), rows, List.of("group"));
+
+        List<String> stripes = stripes(single);
+        assertThat(stripes).hasSize(rows.size());
+        assertThat(stripes.get(0)).isNotEqualTo(stripes.get(1));
+        assertThat(stripes(partitioned)).isEqualTo(stripes);
+    }
+
+    /**
+     * Tryb i kolor tła komórek z nazwą pozycji, w kolejności wierszy.
+     */
+    private static List<String> stripes(JasperPrint print) {
+        List<String> stripes = new ArrayList<>();
+        for (JRPrintPage page : print.getPages()) {
+            for (JRPrintElement element : page.getElements()) {
+                if (element instanceof JRPrintText && ((JRPrintText) element).getFullText().startsWith("Pozycja ")) {
+                    stripes.add(element.getModeValue() == ModeEnum.OPAQUE ? String.valueOf(element.getBackcolor()) : ModeEnum.TRANSPARENT.getName());
+                }
+            }
+        }
+        return stripes;
+    }
+
+    private static List<Map<String, Object>> rows(int count, int groupSize) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("group", "G" + (i / groupSize));
+            row.put("name", "Pozycja " + i);
+            row.put("amount", new BigDecimal(i).movePointLeft(1));
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static List<String> texts(JasperPrint print, String key) {
+        List<String> texts = new ArrayList<>();
+        for (JRPrintPage page : print.getPages()) {
+            for (JRPrintElement element : page.getElements()) {
+                if (element instanceof JRPrintText && key.equals(element.getKey())) {
+                    texts.add(((JRPrintText) element).getFullText());
+                }
+            }
+        }
+        return texts;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static JRMapCollectionDataSource dataSource(List<Map<String, Object>> rows) {
+        return new JRMapCollectionDataSource((Collection<Map<String, ?>>) (Collection<?>) rows);
+    }
+}
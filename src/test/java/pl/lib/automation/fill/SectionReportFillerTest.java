@@ -0,0 +1,79 @@
+package pl.lib.automation.fill;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRPrintText;
+import net.sf.jasperreports.engine.JasperPrint;
+import org.junit.jupiter.api.Test;
+import pl.lib.api.ReportBuilder;
+import pl.lib.automation.JsonReportGenerator;
+import pl.lib.automation.analyzer.ReportElement;
+import pl.lib.automation.pipeline.CompiledDocument;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SectionReportFillerTest {
+
+    @Test
+    void shouldSplitOnlyBeforeTopLevelHeaders() {
+        SectionReportFiller filler = new SectionReportFiller(Runnable::run, 4).withMinWeightPerSection(2);
+        List<ReportElement> elements = List.of(
+                ReportElement.createHeader("A", 1),
+                ReportElement.createKeyValue("a1", "1", 2),
+                ReportElement.createHeader("A.1", 2),
+                ReportElement.createKeyValue("a2", "2", 3),
+                ReportElement.createHeader("B", 1),
+                ReportElement.createKeyValue("b1", "1", 2),
+                ReportElement.createHeader("C", 1),
+                ReportElement.createKeyValue("c1", "1", 2));
+
+        List<int[]> sections = filler.sections(elements);
+
+        assertThat(sections).extracting(range -> range[0] + "-" + range[1]).containsExactly("0-4", "4-6", "6-8");
+    }
+
+    @Test
+    void shouldFillSmallDocumentInOnePiece() {
+        SectionReportFiller filler = new SectionReportFiller(Runnable::run, 4);
+
+        List<int[]> sections = filler.sections(List.of(ReportElement.createHeader("A", 1), ReportElement.createHeader("B", 1)));
+
+        assertThat(sections).hasSize(1);
+    }
+
+    @Test
+    void shouldNumberPagesContinuouslyAcrossSections() throws IOException, JRException {
+        StringBuilder json = new StringBuilder("{");
+        for (int section = 0; section < 4; section++) {
+            json.append(section > 0 ? "," : "").append("\"Sekcja ").append(section).append("\": {");
+            for (int i = 0; i < 60; i++) {
+                json.append(i > 0 ? "," : "").append("\"pole_").append(i).append("\": \"wartość ").append(i).append("\"");
+            }
+            json.append("}");
+        }
+        json.append("}");
+
+        JsonReportGenerator single = new JsonReportGenerator();
+        JsonReportGenerator sectioned = new JsonReportGenerator()
+                .withSectionFill(new SectionReportFiller(Runnable::run, 4).withMinWeightPerSection(10));
+        CompiledDocument document = sectioned.compile(sectioned.analyze(json.toString()), true);
+
+        JasperPrint reference = single.fill(document, "Raport", "Chełm");
+        JasperPrint print = sectioned.fill(document, "Raport", "Chełm");
+
+        assertThat(print.getName()).isEqualTo("Raport");
+        assertThat(print.getPages().size()).isGreaterThanOrEqualTo(reference.getPages().size());
+        List<String> expected = new ArrayList<>();
+        List<String> actual = new ArrayList<>();
+        for (int i = 0; i < print.getPages().size(); i++) {
+            for (JRPrintText text : PrintMerger.findTexts(print.getPages().get(i).getElements(), ReportBuilder.PAGE_NUMBER_KEY)) {
+                expected.add(ReportBuilder.PAGE_NUMBER_PREFIX + (i + 1));
+                actual.add(text.getFullText());
+            }
+        }
+        assertThat(actual).isNotEmpty().isEqualTo(expected);
+    }
+}
@@ -0,0 +1,81 @@
+package pl.lib.automation.page;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRPrintElement;
+import net.sf.jasperreports.engine.JRPrintPage;
+import net.sf.jasperreports.engine.JRPrintText;
+import net.sf.jasperreports.engine.JasperPrint;
+import net.sf.jasperreports.engine.base.JRBasePrintPage;
+import net.sf.jasperreports.engine.base.JRBasePrintText;
+import org.junit.jupiter.api.Test;
+import pl.lib.api.ReportBuilder;
+import pl.lib.automation.JsonReportGenerator;
+import pl.lib.automation.pipeline.DocumentAnalysis;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TocPageResolverTest {
+
+    private final TocPageResolver resolver = new TocPageResolver();
+
+    @Test
+    void shouldMapAnchorsToFirstPageWithOffset() {
+        JasperPrint print = new JasperPrint();
+        print.addPage(pageWithAnchor(print, "bookmark_0"));
+        print.addPage(pageWithAnchor(print, "bookmark_4"));
+        print.addPage(pageWithAnchor(print, "bookmark_4"));
+
+        Map<String, Integer> anchorPages = resolver.collectAnchorPages(print);
+        List<Map<String, Object>> toc = List.of(entry("bookmark_0"), entry("bookmark_4"), entry("bookmark_9"));
+        resolver.resolve(toc, anchorPages, 2);
+
+        assertEquals("3", toc.get(0).get("pageIndex"));
+        assertEquals("4", toc.get(1).get("pageIndex"));
+        assertEquals(TocPageResolver.UNRESOLVED_PAGE, toc.get(2).get("pageIndex"));
+    }
+
+    @Test
+    void shouldResolveHeadersOfFilledContent() throws IOException, JRException {
+        JsonReportGenerator generator = new JsonReportGenerator();
+        DocumentAnalysis analysis = generator.analyze("{ \"Wstęp\": { \"a\": \"1\" }, \"Podsumowanie\": { \"b\": \"2\" } }");
+        JasperPrint content = generator.fill(generator.compile(analysis, false), "Raport", "Chełm");
+
+        List<Map<String, Object>> toc = analysis.getTocEntries();
+        resolver.resolve(toc, resolver.collectAnchorPages(content), 0);
+
+        assertEquals(2, toc.size());
+        assertEquals("1", toc.get(0).get("pageIndex"));
+        assertEquals("1", toc.get(1).get("pageIndex"));
+        assertEquals(List.of(ReportBuilder.PAGE_NUMBER_PREFIX + "1"), pageNumberTexts(content.getPages().get(0)));
+    }
+
+    private static List<String> pageNumberTexts(JRPrintPage page) {
+        List<String> texts = new ArrayList<>();
+        for (JRPrintElement element : page.getElements()) {
+            if (element instanceof JRPrintText && ReportBuilder.PAGE_NUMBER_KEY.equals(element.getKey())) {
+                texts.add(((JRPrintText) element).getFullText());
+            }
+        }
+        return texts;
+    }
+
+    private static JRBasePrintPage pageWithAnchor(JasperPrint print, String anchor) {
+        JRBasePrintText text = new JRBasePrintText(print.getDefaultStyleProvider());
+        text.setAnchorName(anchor);
+        JRBasePrintPage page = new JRBasePrintPage();
+        page.addElement(text);
+        return page;
+    }
+
+    private static Map<String, Object> entry(String anchor) {
+        Map<String, Object> entry = new HashMap<>();
+        entry.put("anchor", anchor);
+        return entry;
+    }
+}
@@ -0,0 +1,59 @@
+package pl.lib.automation.pipeline;
+
+import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JasperPrint;
+import org.junit.jupiter.api.Test;
+import pl.lib.automation.JsonReportGenerator;
+import pl.lib.automation.assembler.ReportAssembler;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompiledDocumentTest {
+
+    private static final String JSON = "{ \"Sekcja\": { \"opis\": \"Tekst\", "
+            + "\"pozycje\": [{\"nazwa\": \"A\", \"kwota\": 10}, {\"nazwa\": \"B\", \"kwota\": 20}] } }";
+
+    private final JsonReportGenerator generator = new JsonReportGenerator();
+
+    @Test
+    void shouldReuseAnalysisForTocAndContent() throws IOException {
+        DocumentAnalysis analysis = generator.analyze(JSON);
+
+        List<Map<String, Object>> toc = analysis.getTocEntries();
+
+        assertFalse(analysis.getElements().isEmpty());
+        assertEquals("Sekcja", toc.get(0).get("label"));
+        assertNotSame(toc, analysis.getTocEntries());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void shouldCreateFreshDataSourcesForEachFill() throws IOException, JRException {
+        CompiledDocument document = generator.compile(generator.analyze(JSON), false);
+
+        Map<String, Object> first = document.createFillParameters();
+        Map<String, Object> second = document.createFillParameters();
+
+        assertEquals(1, document.getSubreports().size());
+        int index = document.getSubreports().get(0).getElementIndex();
+        assertSame(((Map<Integer, Object>) first.get(ReportAssembler.PARAM_SUBREPORTS)).get(index),
+                ((Map<Integer, Object>) second.get(ReportAssembler.PARAM_SUBREPORTS)).get(index));
+        assertNotSame(((Map<Integer, Object>) first.get(ReportAssembler.PARAM_SUBREPORT_DATA)).get(index),
+                ((Map<Integer, Object>) second.get(ReportAssembler.PARAM_SUBREPORT_DATA)).get(index));
+    }
+
+    @Test
+    void shouldRefillCompiledDocument() throws IOException, JRException {
+        CompiledDocument document = generator.compile(generator.analyze(JSON), true);
+
+        JasperPrint first = generator.fill(document, "Raport", "Chełm");
+        JasperPrint second = generator.fill(document, "Raport", "Chełm");
+
+        assertEquals(first.getPages().size(), second.getPages().size());
+        assertEquals("Raport", second.getName());
+    }
+}
@@ -0,0 +1,89 @@
+package pl.lib.automation.scheduler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ReportStageTest {
+
+    @Test
+    void shouldHoldSlotUntilAsyncTaskCompletes() {
+        ReportStage stage = new ReportStage("fill", 1, 4, Runnable::run);
+        CompletableFuture<String> first = new CompletableFuture<>();
+
+        CompletableFuture<String> firstResult = stage.submitAsync(JobPriority.INTERACTIVE, () -> first);
+        CompletableFuture<String> secondResult = stage.submit(JobPriority.INTERACTIVE, () -> "drugi");
+
+        assertThat(stage.metrics().getRunning()).isEqualTo(1);
+        assertThat(stage.metrics().getQueued()).isEqualTo(1);
+        assertThat(stage.metrics().getSaturation()).isEqualTo(1.0);
+
+        first.complete("pierwszy");
+
+        assertThat(firstResult).isCompletedWithValue("pierwszy");
+        assertThat(secondResult).isCompletedWithValue("drugi");
+        assertThat(stage.metrics().getRunning()).isZero();
+        assertThat(stage.metrics().getCompleted()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldPreferInteractiveJobsWithoutStarvingBatch() {
+        ReportStage stage = new ReportStage("compile", 1, 16, Runnable::run);
+        CompletableFuture<Void> blocker = new CompletableFuture<>();
+        List<String> order = new ArrayList<>();
+
+        stage.submitAsync(JobPriority.INTERACTIVE, () -> blocker);
+        stage.submit(JobPriority.BATCH, () -> order.add("B1"));
+        for (int i = 1; i <= ReportStage.INTERACTIVE_BURST + 1; i++) {
+            String name = "I" + i;
+            stage.submit(JobPriority.INTERACTIVE, () -> order.add(name));
+        }
+        blocker.complete(null);
+
+        assertThat(order).containsExactly("I1", "I2", "I3", "I4", "B1", "I5");
+    }
+
+    @Test
+    void shouldRejectWhenQueueIsFull() {
+        ReportStage stage = new ReportStage("export", 1, 1, Runnable::run);
+        stage.submitAsync(JobPriority.BATCH, CompletableFuture::new);
+        stage.submit(JobPriority.BATCH, () -> "w kolejce");
+
+        CompletableFuture<String> rejected = stage.submit(JobPriority.INTERACTIVE, () -> "odrzucone");
+
+        assertThat(rejected).isCompletedExceptionally();
+        assertThatThrownBy(rejected::join).hasCauseInstanceOf(RejectedExecutionException.class);
+        assertThat(stage.metrics().getRejected()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldPropagateTaskFailure() {
+        ReportStage stage = new ReportStage("compile", 2, 0, Runnable::run);
+
+        CompletableFuture<Object> result = stage.submit(JobPriority.INTERACTIVE, () -> {
+            throw new IllegalStateException("błąd kompilacji");
+        });
+
+        assertThat(result).isCompletedExceptionally();
+        assertThat(stage.metrics().getRunning()).isZero();
+    }
+
+    @Test
+    void shouldCountCompletionBeforeResultIsVisible() {
+        ReportStage stage = new ReportStage("export", 1, 0, Runnable::run);
+        CompletableFuture<String> task = new CompletableFuture<>();
+        List<Long> completedSeen = new ArrayList<>();
+
+        stage.submitAsync(JobPriority.BATCH, () -> task)
+                .thenRun(() -> completedSeen.add(stage.metrics().getCompleted()));
+        task.complete("gotowe");
+
+        assertThat(completedSeen).containsExactly(1L);
+    }
+}
@@ -0,0 +1,83 @@
+package pl.lib.automation.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Porównanie formatowania kwot przez DecimalFormat i {@link AmountFormatter}.
+ * Uruchamiany ręcznie metodą main (nie jest częścią testów jednostkowych).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class AmountFormatterBenchmark {
+
+    private BigDecimal[] amounts;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        amounts = new BigDecimal[1024];
+        for (int i = 0; i < amounts.length; i++) {
+            amounts[i] = BigDecimal.valueOf(random.nextLong() % 100_000_000_000L, 2);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class DecimalFormatState {
+        private DecimalFormat format;
+
+        @Setup
+        public void setUp() {
+            DecimalFormatSymbols symbols = new DecimalFormatSymbols();
+            symbols.setGroupingSeparator(' ');
+            symbols.setDecimalSeparator(',');
+            format = new DecimalFormat("#,##0.00", symbols);
+            format.setRoundingMode(RoundingMode.HALF_EVEN);
+        }
+    }
+
+    @Benchmark
+    public void decimalFormat(DecimalFormatState state, Blackhole blackhole) {
+        for (BigDecimal amount : amounts) {
+            blackhole.consume(state.format.format(amount) + " zł");
+        }
+    }
+
+    @Benchmark
+    public void amountFormatter(Blackhole blackhole) {
+        for (BigDecimal amount : amounts) {
+            blackhole.consume(AmountFormatter.PLN.formatAmount(amount));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(AmountFormatterBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
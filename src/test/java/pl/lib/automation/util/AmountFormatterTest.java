@@ -0,0 +1,146 @@
+package pl.lib.automation.util;
+
+import org.junit.jupiter.api.Test;
+import pl.lib.config.BudgetTableConfig;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AmountFormatterTest {
+
+    private static final List<BigDecimal> EDGE_CASES = List.of(
+            BigDecimal.ZERO,
+            new BigDecimal("-0.001"),
+            new BigDecimal("0.125"),
+            new BigDecimal("0.135"),
+            new BigDecimal("999.995"),
+            new BigDecimal("-1000000"),
+            new BigDecimal("999999999999999999.995"),
+            new BigDecimal("123456789012345678901234.567"));
+
+    @Test
+    void shouldMatchDecimalFormatForRandomAmounts() {
+        Random random = new Random(42);
+        for (Locale locale : List.of(Locale.US, Locale.GERMANY, Locale.forLanguageTag("pl-PL"))) {
+            for (int decimalPlaces : new int[]{0, 2, 3}) {
+                AmountFormatter formatter = new AmountFormatter("zł", ' ', ',', decimalPlaces, locale);
+                DecimalFormat amountReference = reference(amountPattern(decimalPlaces), ' ', ',', locale);
+                DecimalFormat percentReference = reference("0.00", ' ', ',', locale);
+
+                for (BigDecimal value : sample(random)) {
+                    assertEquals(amountReference.format(value), formatter.formatAmountWithoutCurrency(value), "kwota " + value);
+                    assertEquals(percentReference.format(value.setScale(2, RoundingMode.HALF_UP)) + "%",
+                            formatter.formatPercentDirect(value), "procent " + value);
+                }
+            }
+        }
+    }
+
+    @Test
+    void shouldUseConfiguredSeparators() {
+        AmountFormatter formatter = new AmountFormatter("EUR", '.', ',', 2, Locale.GERMANY);
+        DecimalFormat reference = reference("#,##0.00", '.', ',', Locale.GERMANY);
+
+        for (BigDecimal value : sample(new Random(7))) {
+            assertEquals(reference.format(value) + " EUR", formatter.formatAmount(value));
+        }
+    }
+
+    @Test
+    void shouldFollowBudgetConfig() {
+        BudgetTableConfig config = BudgetTableConfig.defaultConfig();
+        config.setUseThousandsSeparator(false);
+        config.setDecimalPlaces(3);
+        config.setDecimalSeparator('.');
+        AmountFormatter formatter = AmountFormatter.forBudget(config);
+
+        assertEquals("1234567.891", formatter.formatAmountWithoutCurrency(new BigDecimal("1234567.8906")));
+        assertEquals("+1000.000 zł", formatter.formatDifference(new BigDecimal("1000")));
+        assertEquals("0.00%", formatter.formatPercentDirect(null));
+    }
+
+    @Test
+    void shouldFormatEdgeCasesLikeCurrencyFormatter() {
+        AmountFormatter formatter = AmountFormatter.PLN;
+
+        assertEquals("-0,00", formatter.formatAmountWithoutCurrency(new BigDecimal("-0.001")));
+        assertEquals("0,12", formatter.formatAmountWithoutCurrency(new BigDecimal("0.125")));
+        assertEquals("0,00 zł", formatter.formatAmount(null));
+        assertEquals("+0,00 zł", formatter.formatDifference(BigDecimal.ZERO));
+        assertEquals("-1 500,50", formatter.formatDifferenceWithoutCurrency(new BigDecimal("-1500.5")));
+        assertEquals("97,12%", formatter.formatPercent(new BigDecimal("0.9712")));
+    }
+
+    @Test
+    void shouldAppendToCallerBuffer() {
+        StringBuilder target = new StringBuilder("Plan: ");
+
+        AmountFormatter.PLN.appendAmount(target, new BigDecimal("1234.5")).append(" / ");
+        AmountFormatter.PLN.appendPercentDirect(target, new BigDecimal("50"));
+
+        assertEquals("Plan: 1 234,50 zł / 50,00%", target.toString());
+    }
+
+    @Test
+    void shouldBeSafeForConcurrentUse() throws Exception {
+        AmountFormatter formatter = AmountFormatter.PLN;
+        List<BigDecimal> values = sample(new Random(3));
+        List<String> expected = new ArrayList<>();
+        for (BigDecimal value : values) {
+            expected.add(formatter.formatAmount(value));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<String>>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> {
+                    List<String> formatted = new ArrayList<>();
+                    for (BigDecimal value : values) {
+                        formatted.add(formatter.formatAmount(value));
+                    }
+                    return formatted;
+                }));
+            }
+            for (Future<List<String>> result : results) {
+                assertEquals(expected, result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static List<BigDecimal> sample(Random random) {
+        List<BigDecimal> values = new ArrayList<>(EDGE_CASES);
+        for (int i = 0; i < 20_000; i++) {
+            BigInteger unscaled = BigInteger.valueOf(random.nextLong() >> random.nextInt(63));
+            values.add(new BigDecimal(unscaled, random.nextInt(6)));
+        }
+        return values;
+    }
+
+    private static String amountPattern(int decimalPlaces) {
+        return decimalPlaces == 0 ? "#,##0" : "#,##0." + "0".repeat(decimalPlaces);
+    }
+
+    private static DecimalFormat reference(String pattern, char groupingSeparator, char decimalSeparator, Locale locale) {
+        DecimalFormatSymbols symbols = new DecimalFormatSymbols(locale);
+        symbols.setGroupingSeparator(groupingSeparator);
+        symbols.setDecimalSeparator(decimalSeparator);
+        DecimalFormat format = new DecimalFormat(pattern, symbols);
+        format.setRoundingMode(RoundingMode.HALF_EVEN);
+        return format;
+    }
+}
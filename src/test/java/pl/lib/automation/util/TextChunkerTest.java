@@ -0,0 +1,48 @@
+package pl.lib.automation.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TextChunkerTest {
+
+    @Test
+    void shouldKeepShortTextInOneChunk() {
+        assertThat(TextChunker.split("krótki tekst", 100)).containsExactly("krótki tekst");
+    }
+
+    @Test
+    void shouldSplitAtSentenceBoundariesWithinLimit() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            text.append("Zdanie numer ").append(i).append(" ma kilka słów. ");
+        }
+
+        List<String> chunks = TextChunker.split(text.toString(), 1000);
+
+        assertThat(chunks).hasSizeGreaterThan(5);
+        assertThat(chunks).allSatisfy(chunk -> {
+            assertThat(chunk.length()).isLessThanOrEqualTo(1000);
+            assertThat(chunk).endsWith(".");
+        });
+        assertThat(String.join(" ", chunks)).isEqualTo(text.toString().strip());
+    }
+
+    @Test
+    void shouldPreferLineBreaks() {
+        assertThat(TextChunker.split("Pierwszy akapit.\n\nDrugi akapit.", 20))
+                .containsExactly("Pierwszy akapit.", "Drugi akapit.");
+    }
+
+    @Test
+    void shouldCutTextWithoutBreaks() {
+        assertThat(TextChunker.split("x".repeat(25), 10)).containsExactly("x".repeat(10), "x".repeat(10), "x".repeat(5));
+    }
+
+    @Test
+    void shouldReturnOneEmptyChunkForLongWhitespace() {
+        assertThat(TextChunker.split(" \n ".repeat(50), 10)).containsExactly("");
+    }
+}